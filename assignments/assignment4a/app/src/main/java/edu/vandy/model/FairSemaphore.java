@@ -12,7 +12,7 @@ import java.util.concurrent.locks.ReentrantLock;
  * should use ReentrantLock/ConditionObject (which is more
  * complicated, but more efficient).
 */
-class FairSemaphore {
+public class FairSemaphore {
     /**
      * Debugging tag used by the Android logger.
      */
@@ -24,6 +24,7 @@ class FairSemaphore {
      */
     // TODO - you fill in here.  Make sure that this field will ensure
     // its values aren't cached by multiple threads..
+    private volatile int mAvailablePermits;
 
     /**
      * Define a class that can be used in the "WaitQueue" to wait for
@@ -45,6 +46,8 @@ class FairSemaphore {
             // TODO - graduate students need to initialize the lock
             // and condition fields.  Undergrads can leave this
             // constructor a no-op.
+            mLock = new ReentrantLock();
+            mCondition = mLock.newCondition();
         }
 
         /**
@@ -52,12 +55,14 @@ class FairSemaphore {
          */
         // TODO -- graduate students fill this in.  Undergraduates can
         // ignore this.
-        
+        final Lock mLock;
+
         /**
          * A condition that's used to wait in FIFO order.
          */
         // TODO -- graduate students fill this in.  Undergraduates can
         // ignore this.
+        final Condition mCondition;
     }
 
     /**
@@ -66,18 +71,21 @@ class FairSemaphore {
      * instead use the "intrinsic lock" to protect critical sections.
      */
     // TODO - you fill in here
+    private final ReentrantLock mLock = new ReentrantLock();
 
     /**
      * Define a "WaitQueue" that keeps track of the waiters in a FIFO
      * List to ensure "fair" semantics.
      */
     // TODO - you fill in here.
+    private final LinkedList<Waiter> mWaitQueue = new LinkedList<>();
 
     /**
      * Initialize the fields in the class.
      */
     public FairSemaphore(int availablePermits) {
         // TODO - you fill in here.
+        mAvailablePermits = availablePermits;
     }
 
     /**
@@ -87,13 +95,36 @@ class FairSemaphore {
     public void acquireUninterruptibly() {
         // TODO -- you fill in here, using a loop to ignore
         // InterruptedExceptions.
+        boolean interrupted = false;
+
+        for (;;) {
+            try {
+                acquire();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        // Restore the interrupt status that acquire() cleared.
+        if (interrupted)
+            Thread.currentThread().interrupt();
     }
 
     /**
      * Acquire one permit from the semaphore in a manner that can be
      * interrupted.
      */
-//
+    public void acquire() throws InterruptedException {
+        // Bail out quickly if we've been interrupted.
+        if (Thread.interrupted())
+            throw new InterruptedException();
+
+        // Try to get a permit without blocking.
+        else if (!tryToGetPermit())
+            // Block until a permit is available.
+            waitForPermit();
+    }
 
     /**
      * Handle the case where we can get a permit without blocking.
@@ -105,11 +136,18 @@ class FairSemaphore {
      *         "intrinsic lock") must be released due to the semantics
      *         of Java synchronized statements.
      */
-//    private boolean tryToGetPermit() {
-//        // TODO -- first try the "fast path" where the method doesn't
-//        // need to block if there are no waiters in the queue or if
-//        // there are permits available.
-//    }
+    private boolean tryToGetPermit() {
+        // TODO -- first try the "fast path" where the method doesn't
+        // need to block if there are no waiters in the queue or if
+        // there are permits available.
+        mLock.lock();
+
+        if (tryToGetPermitUnlocked()) {
+            mLock.unlock();
+            return true;
+        } else
+            return false;
+    }
 
     /**
      * Factors out code that checks to see if a permit can be obtained
@@ -118,11 +156,16 @@ class FairSemaphore {
      *
      * @return Returns true if the permit was obtained, else false.
      */
-//    private boolean tryToGetPermitUnlocked() {
-//        // We must wait if there are already conditions in the queue
-//        // or if there are no permits available.
-//        // TODO -- you fill in here.
-//    }
+    private boolean tryToGetPermitUnlocked() {
+        // We must wait if there are already conditions in the queue
+        // or if there are no permits available.
+        // TODO -- you fill in here.
+        if (mWaitQueue.isEmpty() && mAvailablePermits > 0) {
+            --mAvailablePermits;
+            return true;
+        } else
+            return false;
+    }
 
     /**
      * Handle the case where we need to block since there are already
@@ -134,6 +177,36 @@ class FairSemaphore {
     private void waitForPermit() throws InterruptedException {
         // TODO -- implement "fair" semaphore acquire semantics using
         // the Specific Notification pattern.
+        final Waiter waiter = new Waiter();
+
+        // Lock the waiter before releasing the monitor lock so that
+        // release() can't signal it before it starts waiting.
+        waiter.mLock.lock();
+        mWaitQueue.add(waiter);
+        mLock.unlock();
+
+        try {
+            // Loop to handle "spurious wakeups".
+            while (!waiter.mReleased)
+                waiter.mCondition.await();
+        } catch (InterruptedException e) {
+            // Unlock the waiter before acquiring the monitor lock to
+            // respect the lock ordering used by release().
+            waiter.mLock.unlock();
+
+            mLock.lock();
+            try {
+                // If the waiter is no longer in the queue, release()
+                // already gave it a permit, so pass that permit on.
+                if (!mWaitQueue.remove(waiter))
+                    release();
+            } finally {
+                mLock.unlock();
+            }
+            throw e;
+        }
+
+        waiter.mLock.unlock();
     }
 
     /**
@@ -142,13 +215,31 @@ class FairSemaphore {
     public void release() {
         // TODO -- implement "fair" semaphore release semantics using
         // the Specific Notification pattern.
+        mLock.lock();
+        try {
+            // Hand the permit directly to the first waiter (if any)
+            // so no other Thread can barge in ahead of it.
+            if (++mAvailablePermits > 0 && !mWaitQueue.isEmpty()) {
+                --mAvailablePermits;
+
+                Waiter waiter = mWaitQueue.removeFirst();
+                waiter.mLock.lock();
+                try {
+                    waiter.mReleased = true;
+                    waiter.mCondition.signal();
+                } finally {
+                    waiter.mLock.unlock();
+                }
+            }
+        } finally {
+            mLock.unlock();
+        }
     }
 
     /**
      * @return The number of available permits.
      */
-//    public int availablePermits() {
-//        return mAvailablePermits;
-//    }
+    public int availablePermits() {
+        return mAvailablePermits;
+    }
 }
-
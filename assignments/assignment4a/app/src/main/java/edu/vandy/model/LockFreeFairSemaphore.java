@@ -0,0 +1,294 @@
+package edu.vandy.model;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Implements a fair semaphore without any locks.  Like FairSemaphore
+ * it grants permits in strict FIFO order, but it keeps the permit
+ * count in an AtomicInteger that's updated via compareAndSet(), keeps
+ * the waiters in a lock-free ConcurrentLinkedQueue, and blocks and
+ * wakes them with LockSupport.park() and unpark().  A blocked
+ * acquire() therefore costs one small Waiter and a queue node rather
+ * than a Waiter with its own ReentrantLock and Condition, and neither
+ * acquire() nor release() ever waits for a monitor lock.
+ *
+ * Only the Waiter at the head of the queue may take permits once the
+ * queue is non-empty, and every Thread that changes who can make
+ * progress (release(), a head that takes its permits, or a waiter
+ * that gives up) unparks the head, so no wakeup is lost.  A Waiter
+ * that asks for several permits gets them all at once, and Waiters
+ * behind it can't barge ahead while it waits for enough of them.
+ */
+public class LockFreeFairSemaphore {
+    /**
+     * Debugging tag used by the Android logger.
+     */
+    private final static String TAG =
+        LockFreeFairSemaphore.class.getSimpleName();
+
+    /**
+     * The number of available permits, which may be negative.
+     */
+    private final AtomicInteger mAvailablePermits;
+
+    /**
+     * A Thread waiting in the queue and the number of permits it
+     * needs.
+     */
+    private static class Waiter {
+        /**
+         * The Thread to unpark when the permits may be available.
+         */
+        final Thread mThread;
+
+        /**
+         * The number of permits this Waiter needs.
+         */
+        final int mPermits;
+
+        /**
+         * Constructor initializes the fields.
+         */
+        Waiter(Thread thread, int permits) {
+            mThread = thread;
+            mPermits = permits;
+        }
+    }
+
+    /**
+     * The Waiters waiting for permits, in FIFO order.
+     */
+    private final ConcurrentLinkedQueue<Waiter> mWaitQueue =
+        new ConcurrentLinkedQueue<>();
+
+    /**
+     * Initialize the fields in the class.
+     */
+    public LockFreeFairSemaphore(int availablePermits) {
+        mAvailablePermits = new AtomicInteger(availablePermits);
+    }
+
+    /**
+     * Acquire one permit from the semaphore in a manner that cannot
+     * be interrupted.  Unlike FairSemaphore, an interrupt doesn't cost
+     * the Thread its place in the queue.
+     */
+    public void acquireUninterruptibly() {
+        acquireUninterruptibly(1);
+    }
+
+    /**
+     * Atomically acquire @a permits permits from the semaphore in a
+     * manner that cannot be interrupted.
+     */
+    public void acquireUninterruptibly(int permits) {
+        checkPermits(permits);
+        try {
+            if (!tryToGetPermits(permits))
+                waitForPermits(permits, false, 0);
+        } catch (InterruptedException e) {
+            // Can't happen since interruptible is false.
+        }
+    }
+
+    /**
+     * Acquire one permit from the semaphore in a manner that can be
+     * interrupted.
+     */
+    public void acquire() throws InterruptedException {
+        acquire(1);
+    }
+
+    /**
+     * Atomically acquire @a permits permits from the semaphore in a
+     * manner that can be interrupted.
+     */
+    public void acquire(int permits) throws InterruptedException {
+        checkPermits(permits);
+
+        // Bail out quickly if we've been interrupted.
+        if (Thread.interrupted())
+            throw new InterruptedException();
+
+        // Try to get the permits without blocking.
+        else if (!tryToGetPermits(permits))
+            // Block until the permits are available.
+            waitForPermits(permits, true, 0);
+    }
+
+    /**
+     * Acquire one permit from the semaphore, waiting at most @a
+     * timeout for it to become available.
+     *
+     * @return Returns true if the permit was obtained, or false if
+     *         the timeout elapsed first.
+     */
+    public boolean tryAcquire(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return tryAcquire(1, timeout, unit);
+    }
+
+    /**
+     * Atomically acquire @a permits permits from the semaphore,
+     * waiting at most @a timeout for them to become available.  No
+     * permits are taken if the timeout elapses first.
+     *
+     * @return Returns true if the permits were obtained, or false if
+     *         the timeout elapsed first.
+     */
+    public boolean tryAcquire(int permits, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkPermits(permits);
+
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        else if (tryToGetPermits(permits))
+            return true;
+        else {
+            long nanos = unit.toNanos(timeout);
+            return nanos > 0
+                && waitForPermits(permits,
+                                  true,
+                                  System.nanoTime() + nanos);
+        }
+    }
+
+    /**
+     * Throw IllegalArgumentException if @a permits isn't positive.
+     */
+    private static void checkPermits(int permits) {
+        if (permits <= 0)
+            throw new IllegalArgumentException("permits must be positive");
+    }
+
+    /**
+     * Handle the case where we can get the permits without blocking,
+     * which is only allowed if no other Thread is waiting.
+     *
+     * @return Returns true if the permits were obtained, else false.
+     */
+    private boolean tryToGetPermits(int permits) {
+        return mWaitQueue.isEmpty() && tryDecrement(permits);
+    }
+
+    /**
+     * Atomically take @a permits permits if that many are available.
+     *
+     * @return Returns true if the permits were obtained, else false.
+     */
+    private boolean tryDecrement(int permits) {
+        for (;;) {
+            int available = mAvailablePermits.get();
+            if (available < permits)
+                return false;
+            if (mAvailablePermits.compareAndSet(available,
+                                                available - permits))
+                return true;
+        }
+    }
+
+    /**
+     * Join the end of the queue and park until this Thread reaches
+     * the head of the queue and @a permits permits are available.  If
+     * @a interruptible is true an interrupt makes this Thread leave
+     * the queue and throw InterruptedException, otherwise the
+     * interrupt status is restored once the permits are obtained.  If
+     * @a deadline isn't 0 the Thread leaves the queue once
+     * System.nanoTime() passes it.
+     *
+     * @return Returns true if the permits were obtained, or false if
+     *         the deadline passed first.
+     */
+    private boolean waitForPermits(int permits,
+                                   boolean interruptible,
+                                   long deadline)
+        throws InterruptedException {
+        final Waiter waiter = new Waiter(Thread.currentThread(), permits);
+        boolean interrupted = false;
+
+        mWaitQueue.add(waiter);
+
+        // Loop to handle spurious returns from park().
+        for (;;) {
+            if (mWaitQueue.peek() == waiter && tryDecrement(permits)) {
+                mWaitQueue.remove(waiter);
+
+                // Let the next waiter have a go if there are permits
+                // left, e.g., if release() was called several times
+                // before we woke up.
+                signalHead();
+
+                if (interrupted)
+                    waiter.mThread.interrupt();
+                return true;
+            }
+
+            if (deadline == 0)
+                LockSupport.park(this);
+            else {
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0) {
+                    cancel(waiter);
+                    return false;
+                }
+                LockSupport.parkNanos(this, nanos);
+            }
+
+            if (Thread.interrupted()) {
+                if (interruptible) {
+                    cancel(waiter);
+                    throw new InterruptedException();
+                }
+                interrupted = true;
+            }
+        }
+    }
+
+    /**
+     * Remove @a waiter from the queue after it's given up.
+     */
+    private void cancel(Waiter waiter) {
+        mWaitQueue.remove(waiter);
+
+        // If the waiter was at the head, the permits it was waiting
+        // for may be enough for the Waiter now at the head.
+        signalHead();
+    }
+
+    /**
+     * Wake up the Waiter at the head of the queue if enough permits
+     * are available for it.
+     */
+    private void signalHead() {
+        Waiter head = mWaitQueue.peek();
+        if (head != null
+            && mAvailablePermits.get() >= head.mPermits)
+            LockSupport.unpark(head.mThread);
+    }
+
+    /**
+     * Return one permit to the semaphore.
+     */
+    public void release() {
+        release(1);
+    }
+
+    /**
+     * Return @a permits permits to the semaphore.
+     */
+    public void release(int permits) {
+        checkPermits(permits);
+        mAvailablePermits.addAndGet(permits);
+        signalHead();
+    }
+
+    /**
+     * @return The number of available permits.
+     */
+    public int availablePermits() {
+        return mAvailablePermits.get();
+    }
+}
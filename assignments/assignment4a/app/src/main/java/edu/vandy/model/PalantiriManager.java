@@ -1,53 +1,103 @@
 package edu.vandy.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Defines a mechanism that mediates concurrent access to a fixed
- * number of available Palantiri.  This class uses a "fair" Semaphore
- * and a ConcurrentHashMap, and synchronized statements to mediate
- * concurrent access to the Palantiri.  This class implements a
- * variant of the "Pooling" pattern
+ * number of available Palantiri.  This class uses a
+ * LockFreeFairSemaphore to limit the number of Beings holding a
+ * Palantir and a lock-free free-list (a Treiber stack of Palantir
+ * indices) to hand out the Palantiri themselves, so both acquire()
+ * and release() take O(1) time and never use synchronized statements.
+ * This class implements a variant of the "Pooling" pattern
  * (kircher-schwanninger.de/michael/publications/Pooling.pdf).
  */
 public class PalantiriManager {
     /**
      * Debugging tag used by the Android logger.
      */
-    protected final static String TAG = 
+    protected final static String TAG =
         PalantiriManager.class.getSimpleName();
 
     /**
-     * A FairSemaphore that limits concurrent access to the fixed
-     * number of available palantiri managed by the PalantiriManager.
+     * Marks the end of the free-list.
      */
-    private final Semaphore mAvailablePalantiri;
+    private final static int NIL = -1;
 
     /**
-     * A map that associates the @a Palantiri key to the @a boolean
-     * values that keep track of whether the key is available.
+     * A LockFreeFairSemaphore that limits concurrent access to the
+     * fixed number of available palantiri managed by the
+     * PalantiriManager.  Since it hands out several permits at once
+     * in FIFO order, a Being that needs several Palantiri can't be
+     * starved by Beings that need just one.
      */
-    private final ConcurrentHashMap<Palantir, Boolean> mPalantiriMap;
+    private final LockFreeFairSemaphore mAvailablePalantiri;
+
+    /**
+     * The Palantiri managed by this class, indexed by their position
+     * in the List passed to the constructor.
+     */
+    private final Palantir[] mPalantiri;
+
+    /**
+     * A map that associates each Palantir with its index in
+     * mPalantiri.  It's never modified after the constructor, so it
+     * can be read concurrently without synchronization.
+     */
+    private final Map<Palantir, Integer> mIndices;
+
+    /**
+     * Index of the next free Palantir below each free Palantir in the
+     * free-list.
+     */
+    private final AtomicIntegerArray mNext;
+
+    /**
+     * Keeps track of whether each Palantir is currently handed out (1)
+     * or free (0), which ensures a Palantir that's released twice, or
+     * that was never acquired, isn't put back on the free-list.
+     */
+    private final AtomicIntegerArray mInUse;
+
+    /**
+     * The top of the free-list.  The low 32 bits hold the index of
+     * the top Palantir (or NIL) and the high 32 bits hold a stamp
+     * that's incremented on every change, which prevents the "ABA"
+     * problem when a Palantir is popped and pushed back while another
+     * Thread is in the middle of popping it.
+     */
+    private final AtomicLong mHead;
 
     /**
      * Constructor creates a PalantiriManager for the List of @a
      * palantiri passed as a parameter and initializes the fields.
      */
     public PalantiriManager(List<Palantir> palantiri) {
-        // Create a new ConcurrentHashMap, iterate through the List of
-        // Palantiri and initialize each key in the HashMap with
-        // "true" to indicate it's available, and initialize the
-        // Semaphore to use a "fair" implementation that mediates
-        // concurrent access to the given Palantiri.
-        // TODO -- you fill in here.
-        mPalantiriMap = new ConcurrentHashMap<>(palantiri.size());
-        palantiri.forEach(p -> mPalantiriMap.put(p, true));
-
-        mAvailablePalantiri = new Semaphore(palantiri.size(), true);
+        int count = palantiri.size();
+
+        mPalantiri = palantiri.toArray(new Palantir[count]);
+        mIndices = new HashMap<>(count * 2);
+        mNext = new AtomicIntegerArray(count);
+        mInUse = new AtomicIntegerArray(count);
+
+        // Chain all the Palantiri together in the free-list, with
+        // Palantir 0 at the top.
+        for (int i = 0; i < count; ++i) {
+            mIndices.put(mPalantiri[i], i);
+            mNext.set(i, i + 1 < count ? i + 1 : NIL);
+        }
+        mHead = new AtomicLong(pack(0, count > 0 ? 0 : NIL));
+
+        // Initialize the Semaphore to use a "fair" implementation
+        // that mediates concurrent access to the given Palantiri.
+        mAvailablePalantiri = new LockFreeFairSemaphore(count);
     }
 
     /**
@@ -55,24 +105,61 @@ public class PalantiriManager {
      * available.
      */
     public Palantir acquire() {
-        // Acquire the Semaphore uninterruptibly and then keep
-        // iterating through the ConcurrentHashMap to find the first
-        // key in the HashMap whose value is "true" (which indicates
-        // it's available for use) and atomically replace the value of
-        // this key with "false" to indicate the Palantir isn't
-        // available and then return that palantir to the client.
-        // There should be *no* synchronized statements in this
-        // method.
-        // TODO -- you fill in here.
+        // Acquire the Semaphore uninterruptibly, which guarantees
+        // there's at least one Palantir on the free-list since
+        // release() pushes a Palantir before releasing its permit.
         mAvailablePalantiri.acquireUninterruptibly();
-        Set<Map.Entry<Palantir, Boolean>> entries = mPalantiriMap.entrySet();
-        for (Map.Entry<Palantir, Boolean> entry:entries){
-            if(entry.getValue()){
-                entry.setValue(false);
-                return entry.getKey();
-            }
-        }
-        return null;
+
+        return take();
+    }
+
+    /**
+     * Get a Palantir from the PalantiriManager, waiting at most @a
+     * timeout for one to become available.
+     *
+     * @return The Palantir, or null if the timeout elapsed first.
+     */
+    public Palantir tryAcquire(long timeout,
+                               TimeUnit unit) throws InterruptedException {
+        return mAvailablePalantiri.tryAcquire(timeout, unit)
+            ? take()
+            : null;
+    }
+
+    /**
+     * Get @a n Palantiri from the PalantiriManager, blocking until
+     * all of them are available.  The Palantiri are acquired
+     * atomically, so a Being never holds some of them while it waits
+     * for the rest, which avoids "hold-and-wait" deadlocks between
+     * Beings that each need several Palantiri.
+     *
+     * @return A List containing @a n distinct Palantiri.
+     */
+    public List<Palantir> acquire(int n) {
+        // Asking for more Palantiri than exist would block forever.
+        if (n <= 0 || n > mPalantiri.length)
+            throw new IllegalArgumentException("Can't acquire "
+                                               + n
+                                               + " of "
+                                               + mPalantiri.length
+                                               + " palantiri");
+
+        mAvailablePalantiri.acquireUninterruptibly(n);
+
+        List<Palantir> palantiri = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i)
+            palantiri.add(take());
+        return palantiri;
+    }
+
+    /**
+     * Take a Palantir off the free-list after its permit has been
+     * acquired and mark it as handed out.
+     */
+    private Palantir take() {
+        int index = pop();
+        mInUse.set(index, 1);
+        return mPalantiri[index];
     }
 
     /**
@@ -81,14 +168,108 @@ public class PalantiriManager {
      * palantir is ignored.
      */
     public void release(final Palantir palantir) {
-        // Put the "true" value back into ConcurrentHashMap for the
-        // palantir key and release the Semaphore if all works
-        // properly.  There should be *no* synchronized statements in
-        // this method.
-        // TODO -- you fill in here.
-        mPalantiriMap.put(palantir, true);
-
-        mAvailablePalantiri.release();
+        // Put the Palantir back on the free-list before releasing the
+        // Semaphore so the next Being to get a permit finds it.
+        if (giveBack(palantir))
+            mAvailablePalantiri.release();
+    }
+
+    /**
+     * Returns all the designated @code palantiri to the
+     * PalantiriManager at once, so a Being waiting for several of
+     * them is woken up just once.  Invalid palantiri are ignored.
+     */
+    public void releaseAll(final Collection<Palantir> palantiri) {
+        int released = 0;
+
+        for (Palantir palantir : palantiri)
+            if (giveBack(palantir))
+                ++released;
+
+        if (released > 0)
+            mAvailablePalantiri.release(released);
+    }
+
+    /**
+     * Put @a palantir back on the free-list.  Palantiri this class
+     * doesn't manage, as well as ones that aren't currently handed
+     * out, are ignored so the permit count can't exceed the number of
+     * Palantiri.
+     *
+     * @return True if the Palantir was put back, else false.
+     */
+    private boolean giveBack(Palantir palantir) {
+        if (palantir == null)
+            return false;
+
+        Integer index = mIndices.get(palantir);
+
+        if (index == null
+            || !mInUse.compareAndSet(index, 1, 0))
+            return false;
+
+        push(index);
+        return true;
+    }
+
+    /**
+     * Pop the index of a free Palantir off the free-list.  This
+     * method assumes the caller holds a permit, so the free-list
+     * can't be empty.
+     */
+    private int pop() {
+        for (;;) {
+            long head = mHead.get();
+            int index = indexOf(head);
+
+            // A permit guarantees a Palantir is on the list, but
+            // retry if we read the head before it was pushed.
+            if (index == NIL)
+                continue;
+
+            // The stamp makes the compareAndSet() fail if the head
+            // changed since we read it, even if the same index is
+            // back on top.
+            if (mHead.compareAndSet(head,
+                                    pack(stampOf(head) + 1,
+                                         mNext.get(index))))
+                return index;
+        }
+    }
+
+    /**
+     * Push @a index back on top of the free-list.
+     */
+    private void push(int index) {
+        for (;;) {
+            long head = mHead.get();
+            mNext.set(index, indexOf(head));
+
+            if (mHead.compareAndSet(head,
+                                    pack(stampOf(head) + 1, index)))
+                return;
+        }
+    }
+
+    /**
+     * Combine a @a stamp and an @a index into one value for mHead.
+     */
+    private static long pack(int stamp, int index) {
+        return ((long) stamp << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the index portion of an mHead value.
+     */
+    private static int indexOf(long head) {
+        return (int) head;
+    }
+
+    /**
+     * Returns the stamp portion of an mHead value.
+     */
+    private static int stampOf(long head) {
+        return (int) (head >>> 32);
     }
 
     /*
@@ -1,8 +1,10 @@
 package edu.vandy.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is a proxy that provides access to the PalantiriManager.
@@ -58,6 +60,26 @@ public class PalantiriModel {
         return mPalantiriManager.acquire();
     }
 
+    /**
+     * Get the next available Palantir from the resource pool, waiting
+     * at most @a timeout for one to become available.
+     *
+     * @return The Palantir, or null if the timeout elapsed first.
+     */
+    public Palantir tryAcquirePalantir(long timeout,
+                                       TimeUnit unit)
+        throws InterruptedException {
+        return mPalantiriManager.tryAcquire(timeout, unit);
+    }
+
+    /**
+     * Get @a n Palantiri from the resource pool all at once, blocking
+     * until they're all available.
+     */
+    public List<Palantir> acquirePalantiri(int n) {
+        return mPalantiriManager.acquire(n);
+    }
+
     /**
      * Releases the designated @code palantir so it's available for
      * other Beings to use.  If @a palantir is null it is ignored.
@@ -65,4 +87,12 @@ public class PalantiriModel {
     public void releasePalantir(final Palantir palantir) {
         mPalantiriManager.release(palantir);
     }
+
+    /**
+     * Releases all the designated @code palantiri so they're
+     * available for other Beings to use.  Null entries are ignored.
+     */
+    public void releasePalantiri(final Collection<Palantir> palantiri) {
+        mPalantiriManager.releaseAll(palantiri);
+    }
 }
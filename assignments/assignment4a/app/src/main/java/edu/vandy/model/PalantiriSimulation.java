@@ -0,0 +1,309 @@
+package edu.vandy.model;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the gazing simulation headlessly against a PalantiriModel, so
+ * it can be run on the JVM without an Android device and can measure
+ * how well the Model layer scales.  Unlike BeingCallable it doesn't
+ * call Palantir.gaze() (which sleeps for 1 to 5 seconds) or update
+ * the UI.  Instead each Being gazes for a time drawn from a pluggable
+ * GazeTime distribution, which may be zero to measure the overhead of
+ * acquiring and releasing Palantiri by itself.
+ *
+ * The Beings are run by a fixed number of worker Threads, which lets
+ * a simulation have far more Beings (e.g., 100,000) than the JVM could
+ * run as Threads.  Each worker repeatedly takes the next Being that
+ * hasn't run yet and runs all its gazing iterations.
+ */
+public class PalantiriSimulation {
+    /**
+     * Chooses how long a Being gazes into its Palantir.
+     */
+    public interface GazeTime {
+        /**
+         * Returns the number of nanoseconds to gaze for.
+         */
+        long nextGazeNanos(ThreadLocalRandom random);
+    }
+
+    /**
+     * Returns a GazeTime where Beings release their Palantir as soon
+     * as they get it.
+     */
+    public static GazeTime zeroGazeTime() {
+        return random -> 0;
+    }
+
+    /**
+     * Returns a GazeTime where Beings always gaze for @a nanos.
+     */
+    public static GazeTime fixedGazeTime(final long nanos) {
+        return random -> nanos;
+    }
+
+    /**
+     * Returns a GazeTime where Beings gaze for a uniformly distributed
+     * time between @a minNanos and @a maxNanos.
+     */
+    public static GazeTime uniformGazeTime(final long minNanos,
+                                           final long maxNanos) {
+        return random -> random.nextLong(minNanos, maxNanos + 1);
+    }
+
+    /**
+     * Returns a GazeTime where Beings gaze for an exponentially
+     * distributed time with the given mean, which models Beings that
+     * mostly glance briefly but sometimes gaze for a long time.
+     */
+    public static GazeTime exponentialGazeTime(final long meanNanos) {
+        return random -> (long) (-meanNanos * Math.log(1.0 - random.nextDouble()));
+    }
+
+    /**
+     * The results of a simulation.
+     */
+    public static class Report {
+        /**
+         * Total number of Palantiri acquired.
+         */
+        public long mAcquires;
+
+        /**
+         * How long the simulation took in nanoseconds.
+         */
+        public long mElapsedNanos;
+
+        /**
+         * Number of Palantiri acquired per second.
+         */
+        public double mAcquiresPerSecond;
+
+        /**
+         * Percentiles of the time Beings waited to acquire a Palantir,
+         * in microseconds.
+         */
+        public double mWaitP50Micros, mWaitP99Micros, mWaitP999Micros;
+
+        /**
+         * The coefficient of variation (standard deviation divided by
+         * mean) of the Beings' total wait times.  It's 0 when every
+         * Being waits equally long, and grows as some Beings are
+         * favored over others.
+         */
+        public double mFairnessDeviation;
+
+        /**
+         * The fraction of the time the Palantiri were held by Beings,
+         * between 0 and 1.
+         */
+        public double mUtilization;
+
+        /**
+         * The most Palantiri that were ever held at the same time,
+         * which must never exceed the number of Palantiri.
+         */
+        public int mMaxConcurrentGazers;
+
+        @Override
+        public String toString() {
+            return String.format("%12.0f acquires/s, wait p50 %9.1f us,"
+                                 + " p99 %9.1f us, p99.9 %9.1f us,"
+                                 + " fairness dev %5.2f, utilization %5.1f%%",
+                                 mAcquiresPerSecond,
+                                 mWaitP50Micros,
+                                 mWaitP99Micros,
+                                 mWaitP999Micros,
+                                 mFairnessDeviation,
+                                 mUtilization * 100);
+        }
+    }
+
+    /**
+     * The number of Beings to simulate.
+     */
+    private final int mBeings;
+
+    /**
+     * The number of Palantiri the Beings contend for.
+     */
+    private final int mPalantiri;
+
+    /**
+     * The number of times each Being gazes.
+     */
+    private final int mIterations;
+
+    /**
+     * The number of worker Threads that run the Beings.
+     */
+    private final int mThreads;
+
+    /**
+     * How long the Beings gaze.
+     */
+    private final GazeTime mGazeTime;
+
+    /**
+     * Constructor initializes the fields.
+     */
+    public PalantiriSimulation(int beings,
+                               int palantiri,
+                               int iterations,
+                               int threads,
+                               GazeTime gazeTime) {
+        if (beings <= 0 || palantiri <= 0 || iterations <= 0 || threads <= 0)
+            throw new IllegalArgumentException();
+        if ((long) beings * iterations > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Too many acquires to record");
+
+        mBeings = beings;
+        mPalantiri = palantiri;
+        mIterations = iterations;
+        mThreads = Math.min(threads, beings);
+        mGazeTime = gazeTime;
+    }
+
+    /**
+     * Run the simulation against @a model, which is given a new set
+     * of Palantiri first, and return the results.
+     */
+    public Report run(final PalantiriModel model)
+        throws InterruptedException {
+        model.makePalantiri(mPalantiri);
+
+        // Wait times are stored per acquire so the percentiles are
+        // exact, and are preallocated so the simulation itself
+        // doesn't allocate.
+        final long[] waits = new long[mBeings * mIterations];
+        final long[] beingWaits = new long[mBeings];
+
+        final AtomicInteger nextBeing = new AtomicInteger();
+        final AtomicInteger gazers = new AtomicInteger();
+        final AtomicInteger maxGazers = new AtomicInteger();
+        final AtomicLong heldNanos = new AtomicLong();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+
+        Thread[] workers = new Thread[mThreads];
+        for (int i = 0; i < mThreads; ++i)
+            workers[i] = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long held = 0;
+
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int being;
+                         (being = nextBeing.getAndIncrement()) < mBeings; ) {
+                        long total = 0;
+
+                        for (int j = 0; j < mIterations; ++j) {
+                            long start = System.nanoTime();
+                            Palantir palantir = model.acquirePalantir();
+                            long acquired = System.nanoTime();
+
+                            // Keep track of the most Palantiri that
+                            // are ever held at once.
+                            int now = gazers.incrementAndGet();
+                            for (int max; now > (max = maxGazers.get()); )
+                                if (maxGazers.compareAndSet(max, now))
+                                    break;
+
+                            gaze(mGazeTime.nextGazeNanos(random));
+
+                            gazers.decrementAndGet();
+                            long released = System.nanoTime();
+                            model.releasePalantir(palantir);
+
+                            waits[being * mIterations + j] = acquired - start;
+                            total += acquired - start;
+                            held += released - acquired;
+                        }
+                        beingWaits[being] = total;
+                    }
+                    heldNanos.addAndGet(held);
+                });
+
+        for (Thread t : workers)
+            t.start();
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        for (Thread t : workers)
+            t.join();
+        long elapsed = System.nanoTime() - start;
+
+        return makeReport(waits, beingWaits, elapsed,
+                          heldNanos.get(), maxGazers.get());
+    }
+
+    /**
+     * Gaze for @a nanos nanoseconds.  Parking can't wait for less
+     * than tens of microseconds on most platforms, so short gazes
+     * spin instead.
+     */
+    private static void gaze(long nanos) {
+        if (nanos <= 0)
+            return;
+        else if (nanos < 50000) {
+            long end = System.nanoTime() + nanos;
+            while (System.nanoTime() - end < 0)
+                Thread.yield();
+        } else
+            LockSupport.parkNanos(nanos);
+    }
+
+    /**
+     * Compute the Report from the measurements.
+     */
+    private Report makeReport(long[] waits,
+                              long[] beingWaits,
+                              long elapsedNanos,
+                              long heldNanos,
+                              int maxGazers) {
+        Report report = new Report();
+
+        report.mAcquires = waits.length;
+        report.mElapsedNanos = elapsedNanos;
+        report.mAcquiresPerSecond = waits.length / (elapsedNanos / 1e9);
+
+        Arrays.sort(waits);
+        report.mWaitP50Micros = percentile(waits, 50);
+        report.mWaitP99Micros = percentile(waits, 99);
+        report.mWaitP999Micros = percentile(waits, 99.9);
+
+        double mean = 0;
+        for (long w : beingWaits)
+            mean += w;
+        mean /= beingWaits.length;
+
+        double variance = 0;
+        for (long w : beingWaits)
+            variance += (w - mean) * (w - mean);
+        variance /= beingWaits.length;
+
+        report.mFairnessDeviation = mean == 0 ? 0 : Math.sqrt(variance) / mean;
+
+        report.mUtilization =
+            Math.min(1.0, heldNanos / ((double) mPalantiri * elapsedNanos));
+        report.mMaxConcurrentGazers = maxGazers;
+        return report;
+    }
+
+    /**
+     * Return the value at percentile @a p of the sorted @a values,
+     * converted from nanoseconds to microseconds.
+     */
+    private static double percentile(long[] values, double p) {
+        int index = (int) Math.ceil(p / 100.0 * values.length) - 1;
+        return values[Math.max(0, index)] / 1000.0;
+    }
+}
@@ -0,0 +1,123 @@
+package edu.vandy.presenter;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implements the semantics shared by all BeingSchedulers, so each
+ * subclass just has to define how a Being is launched.  This class
+ * plays the "Template Method" role: start() wraps each Being in a
+ * Runnable that tracks the Thread it runs in and passes it to the
+ * launch() hook method.
+ *
+ * Cancellation doesn't rely on the execution model, e.g., cancelling
+ * a ForkJoinTask or a CompletableFuture doesn't interrupt it.
+ * Instead cancel() sets a flag that stops Beings that haven't started
+ * and interrupts the Threads of the Beings that have.
+ */
+public abstract class AbstractBeingScheduler
+       implements BeingScheduler {
+    /**
+     * True once cancel() has been called.
+     */
+    private volatile boolean mCancelled = false;
+
+    /**
+     * The Threads currently running a Being.
+     */
+    private final Set<Thread> mRunningThreads =
+        ConcurrentHashMap.newKeySet();
+
+    /**
+     * The exception thrown by the first Being that failed.
+     */
+    private final AtomicReference<Throwable> mFailure =
+        new AtomicReference<>();
+
+    /**
+     * Counted down as each Being stops running, or skips running
+     * because it was cancelled.
+     */
+    private volatile CountDownLatch mDoneLatch;
+
+    /**
+     * Run @a task concurrently with the caller.
+     */
+    protected abstract void launch(Runnable task);
+
+    /**
+     * Hook method that releases any Threads created by the scheduler
+     * once every Being has stopped.  By default it does nothing.
+     */
+    protected void releaseResources() {
+    }
+
+    @Override
+    public void start(List<? extends Callable<?>> beings) {
+        if (mDoneLatch != null)
+            throw new IllegalStateException("Scheduler already started");
+
+        mDoneLatch = new CountDownLatch(beings.size());
+
+        for (final Callable<?> being : beings)
+            launch(() -> runBeing(being));
+    }
+
+    /**
+     * Run @a being unless the scheduler has been cancelled.
+     */
+    private void runBeing(Callable<?> being) {
+        final Thread thread = Thread.currentThread();
+
+        // Register the Thread before checking the flag, so either
+        // this Being sees the flag or cancel() sees the Thread.
+        mRunningThreads.add(thread);
+        try {
+            if (!mCancelled)
+                being.call();
+        } catch (Throwable t) {
+            // Record the first failure and stop the other Beings.
+            if (mFailure.compareAndSet(null, t))
+                cancel();
+        } finally {
+            mRunningThreads.remove(thread);
+
+            // Don't leave a pooled Thread interrupted for its next
+            // task.
+            Thread.interrupted();
+            mDoneLatch.countDown();
+        }
+    }
+
+    @Override
+    public boolean awaitCompletion() throws InterruptedException {
+        if (mDoneLatch == null)
+            throw new IllegalStateException("Scheduler not started");
+
+        mDoneLatch.await();
+        releaseResources();
+        return !mCancelled;
+    }
+
+    @Override
+    public void cancel() {
+        mCancelled = true;
+
+        for (Thread thread : mRunningThreads)
+            thread.interrupt();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public Throwable getFailure() {
+        return mFailure.get();
+    }
+}
@@ -0,0 +1,57 @@
+package edu.vandy.presenter;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Defines how the Beings in the simulation are run concurrently,
+ * e.g., in a Thread each, in a pool of Threads, or as a pipeline of
+ * CompletableFutures.  This interface plays the "Strategy" role in
+ * the Strategy pattern, so PalantiriPresenter can run the same
+ * simulation under any execution model.
+ *
+ * All implementations share these semantics:
+ *
+ * - start() returns immediately after scheduling every Being.
+ *
+ * - cancel() interrupts the Beings that are running, and Beings that
+ *   haven't started yet never run.  It can be called from any Thread
+ *   and more than once.
+ *
+ * - If a Being throws an exception the remaining Beings are
+ *   cancelled.
+ *
+ * - awaitCompletion() returns only after every Being has stopped
+ *   running, and then releases any Threads the scheduler created.
+ */
+public interface BeingScheduler {
+    /**
+     * Start running all the @a beings concurrently.  A scheduler can
+     * only be started once.
+     */
+    void start(List<? extends Callable<?>> beings);
+
+    /**
+     * Block until every Being has finished, failed, or been
+     * cancelled.
+     *
+     * @return True if every Being finished normally, else false.
+     */
+    boolean awaitCompletion() throws InterruptedException;
+
+    /**
+     * Cancel all the Beings that haven't finished.
+     */
+    void cancel();
+
+    /**
+     * Returns true if cancel() was called or a Being failed.
+     */
+    boolean isCancelled();
+
+    /**
+     * Returns the exception thrown by the first Being that failed, or
+     * null if none did.
+     */
+    Throwable getFailure();
+}
@@ -0,0 +1,93 @@
+package edu.vandy.presenter;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Factory methods that create the BeingScheduler for each kind of
+ * execution model.
+ */
+public final class BeingSchedulers {
+    /**
+     * The kinds of BeingSchedulers.
+     */
+    public enum Kind {
+        PLATFORM_THREADS,   // A new platform Thread per Being.
+        CACHED_POOL,        // A cached Thread pool.
+        FIXED_POOL,         // A fixed-size Thread pool.
+        FORK_JOIN,          // A ForkJoinPool.
+        VIRTUAL_THREADS,    // A new virtual Thread per Being.
+        COMPLETABLE_FUTURE  // A CompletableFuture per Being.
+    }
+
+    /**
+     * A utility class should not be instantiated.
+     */
+    private BeingSchedulers() {
+        throw new AssertionError("cannot instantiate utility class");
+    }
+
+    /**
+     * Returns a new BeingScheduler of the given @a kind.  The pooled
+     * schedulers use @a threads Threads, which should be the number of
+     * Beings if they must all be able to gaze concurrently.
+     */
+    public static BeingScheduler make(Kind kind, int threads) {
+        switch (kind) {
+        case PLATFORM_THREADS:
+            return new ThreadBeingScheduler(Thread::new);
+        case CACHED_POOL:
+            return new ExecutorBeingScheduler
+                (Executors.newCachedThreadPool());
+        case FIXED_POOL:
+            return new ExecutorBeingScheduler
+                (Executors.newFixedThreadPool(threads));
+        case FORK_JOIN:
+            return new ExecutorBeingScheduler(new ForkJoinPool(threads));
+        case VIRTUAL_THREADS:
+            return new ThreadBeingScheduler(virtualThreadFactory());
+        case COMPLETABLE_FUTURE:
+            return new CompletableFutureBeingScheduler
+                (Executors.newCachedThreadPool());
+        default:
+            throw new IllegalArgumentException("Unknown scheduler " + kind);
+        }
+    }
+
+    /**
+     * Returns true if the runtime supports virtual Threads.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return makeVirtualThreadFactory() != null;
+    }
+
+    /**
+     * Returns a ThreadFactory that creates virtual Threads if the
+     * runtime supports them, else one that creates platform Threads.
+     */
+    public static ThreadFactory virtualThreadFactory() {
+        ThreadFactory factory = makeVirtualThreadFactory();
+        return factory != null ? factory : Thread::new;
+    }
+
+    /**
+     * Use reflection to create a virtual Thread factory, so this code
+     * compiles and runs on runtimes without virtual Threads.
+     *
+     * @return The factory, or null if virtual Threads aren't supported.
+     */
+    private static ThreadFactory makeVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class
+                .getMethod("ofVirtual")
+                .invoke(null);
+            return (ThreadFactory) Class
+                .forName("java.lang.Thread$Builder")
+                .getMethod("factory")
+                .invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package edu.vandy.presenter;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A BeingScheduler that runs each Being asynchronously as a
+ * CompletableFuture and combines them into a single future that
+ * completes when all the Beings have stopped.
+ *
+ * Cancelling a CompletableFuture doesn't interrupt the Thread running
+ * it, so cancellation is handled by AbstractBeingScheduler rather than
+ * by the futures.
+ */
+public class CompletableFutureBeingScheduler
+       extends AbstractBeingScheduler {
+    /**
+     * Runs the Beings' CompletableFutures.
+     */
+    private final ExecutorService mExecutor;
+
+    /**
+     * The CompletableFuture of each Being.
+     */
+    private final List<CompletableFuture<Void>> mFutures =
+        new CopyOnWriteArrayList<>();
+
+    /**
+     * Completes when all the Beings' futures have completed.
+     */
+    private volatile CompletableFuture<Void> mAllDone;
+
+    /**
+     * Constructor initializes the field.
+     */
+    public CompletableFutureBeingScheduler(ExecutorService executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Start running the @a beings and combine their futures.
+     */
+    @Override
+    public void start(List<? extends Callable<?>> beings) {
+        super.start(beings);
+
+        mAllDone = CompletableFuture
+            .allOf(mFutures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Run @a task asynchronously in the ExecutorService.
+     */
+    @Override
+    protected void launch(Runnable task) {
+        mFutures.add(CompletableFuture.runAsync(task, mExecutor));
+    }
+
+    /**
+     * Shutdown the ExecutorService so its Threads exit.
+     */
+    @Override
+    protected void releaseResources() {
+        mExecutor.shutdown();
+    }
+
+    /**
+     * Returns a future that completes when all the Beings have
+     * stopped, e.g., so other processing can be chained after the
+     * simulation.
+     */
+    public CompletableFuture<Void> getCompletionFuture() {
+        return mAllDone;
+    }
+}
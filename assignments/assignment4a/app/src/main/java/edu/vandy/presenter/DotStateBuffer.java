@@ -0,0 +1,216 @@
+package edu.vandy.presenter;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import edu.vandy.view.DotArrayAdapter.DotColor;
+
+/**
+ * Buffers the colors of a row of dots (e.g., the Beings or the
+ * Palantiri) so that the UI is updated at most once per frame,
+ * however many times the Beings change the colors in between.
+ *
+ * Being Threads call set() as often as they like, which just stores
+ * the color's ordinal in a primitive array and never touches the UI
+ * Thread.  Once per frame the UI Thread calls publish(), which
+ * returns a Diff containing only the dots whose color has changed
+ * since the last publish(), so a dot that turns red and back to green
+ * within one frame isn't redrawn at all.  publish() also enforces a
+ * minimum interval between Diffs, which limits the frame rate.
+ *
+ * This class doesn't depend on the Android framework, so it can be
+ * unit tested on the JVM.
+ */
+public class DotStateBuffer {
+    /**
+     * The colors, indexed by their ordinals.
+     */
+    private final static DotColor[] sColors = DotColor.values();
+
+    /**
+     * The latest color ordinal set for each dot.
+     */
+    private final AtomicIntegerArray mPending;
+
+    /**
+     * The color ordinal of each dot as of the last Diff.  It's only
+     * accessed by the Thread that calls publish().
+     */
+    private final int[] mPublished;
+
+    /**
+     * A snapshot of mPending taken by publish(), which is preallocated
+     * so publish() only allocates the Diff itself.
+     */
+    private final int[] mSnapshot;
+
+    /**
+     * True if set() has been called since the last publish().
+     */
+    private final AtomicBoolean mDirty = new AtomicBoolean(false);
+
+    /**
+     * The minimum number of nanoseconds between two Diffs.
+     */
+    private final long mMinFrameIntervalNanos;
+
+    /**
+     * The frame time of the last Diff, which is only valid if
+     * mHasPublished is true.  Both are only accessed by the Thread
+     * that calls publish().
+     */
+    private long mLastPublishNanos;
+    private boolean mHasPublished;
+
+    /**
+     * The changes to a row of dots since the previous Diff.
+     */
+    public static class Diff {
+        /**
+         * The indices of the dots that changed.
+         */
+        private final int[] mIndices;
+
+        /**
+         * The new color ordinal of each dot in mIndices.
+         */
+        private final int[] mColors;
+
+        /**
+         * Constructor initializes the fields.
+         */
+        Diff(int[] indices, int[] colors) {
+            mIndices = indices;
+            mColors = colors;
+        }
+
+        /**
+         * Returns the number of dots that changed.
+         */
+        public int size() {
+            return mIndices.length;
+        }
+
+        /**
+         * Returns the index of the @a i'th dot that changed.
+         */
+        public int index(int i) {
+            return mIndices[i];
+        }
+
+        /**
+         * Returns the new color of the @a i'th dot that changed.
+         */
+        public DotColor color(int i) {
+            return sColors[mColors[i]];
+        }
+
+        /**
+         * Apply the changes to @a dots, e.g., the List backing a
+         * DotArrayAdapter.
+         */
+        public void applyTo(List<DotColor> dots) {
+            for (int i = 0; i < mIndices.length; ++i)
+                dots.set(mIndices[i], sColors[mColors[i]]);
+        }
+    }
+
+    /**
+     * Constructor creates a buffer for @a size dots that all start out
+     * as @a initialColor, and that publishes at most one Diff every
+     * @a minFrameIntervalNanos nanoseconds.
+     */
+    public DotStateBuffer(int size,
+                          DotColor initialColor,
+                          long minFrameIntervalNanos) {
+        mPending = new AtomicIntegerArray(size);
+        mPublished = new int[size];
+        mSnapshot = new int[size];
+        mMinFrameIntervalNanos = minFrameIntervalNanos;
+
+        for (int i = 0; i < size; ++i) {
+            mPending.set(i, initialColor.ordinal());
+            mPublished[i] = initialColor.ordinal();
+        }
+    }
+
+    /**
+     * Returns the number of dots in the buffer.
+     */
+    public int size() {
+        return mPublished.length;
+    }
+
+    /**
+     * Set the dot at @a index to @a color.  This method can be called
+     * concurrently from any Thread.
+     */
+    public void set(int index, DotColor color) {
+        mPending.set(index, color.ordinal());
+
+        // Set the flag after the color so publish() can't clear the
+        // flag without seeing the color.
+        mDirty.set(true);
+    }
+
+    /**
+     * Returns the changes since the last Diff, or null if nothing has
+     * changed or if less than the minimum frame interval has passed
+     * since the last Diff.  This method must only be called by one
+     * Thread, e.g., the UI Thread.
+     *
+     * @param frameTimeNanos The time of the current frame, e.g., as
+     *                       passed to a Choreographer.FrameCallback.
+     */
+    public Diff publish(long frameTimeNanos) {
+        // Leave the changes pending until the next frame if this one
+        // comes too soon after the last Diff.
+        if (mHasPublished
+            && frameTimeNanos - mLastPublishNanos < mMinFrameIntervalNanos)
+            return null;
+
+        if (!mDirty.getAndSet(false))
+            return null;
+
+        // Snapshot the colors and count the dots whose color changed
+        // since the last Diff.  A set() that races with this loop sets
+        // mDirty again, so it's picked up by the next publish() if
+        // it's missed here.
+        int changed = 0;
+        for (int i = 0; i < mSnapshot.length; ++i)
+            if ((mSnapshot[i] = mPending.get(i)) != mPublished[i])
+                ++changed;
+
+        if (changed == 0)
+            return null;
+
+        int[] indices = new int[changed];
+        int[] colors = new int[changed];
+        for (int i = 0, k = 0; k < changed; ++i)
+            if (mSnapshot[i] != mPublished[i]) {
+                indices[k] = i;
+                colors[k++] = mSnapshot[i];
+                mPublished[i] = mSnapshot[i];
+            }
+
+        mLastPublishNanos = frameTimeNanos;
+        mHasPublished = true;
+        return new Diff(indices, colors);
+    }
+
+    /**
+     * Apply the changes since the last Diff (if any) to @a dots.
+     *
+     * @return True if @a dots was changed, in which case the adapter
+     *         that displays them must be notified, else false.
+     */
+    public boolean publishTo(List<DotColor> dots, long frameTimeNanos) {
+        Diff diff = publish(frameTimeNanos);
+        if (diff == null)
+            return false;
+
+        diff.applyTo(dots);
+        return true;
+    }
+}
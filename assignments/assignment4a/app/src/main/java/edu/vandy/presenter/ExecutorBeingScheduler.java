@@ -0,0 +1,39 @@
+package edu.vandy.presenter;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A BeingScheduler that runs the Beings in an ExecutorService, e.g.,
+ * a cached, fixed-size, or ForkJoin pool.  The scheduler owns the
+ * ExecutorService and shuts it down once all the Beings have stopped.
+ */
+public class ExecutorBeingScheduler
+       extends AbstractBeingScheduler {
+    /**
+     * Runs the Beings.
+     */
+    private final ExecutorService mExecutor;
+
+    /**
+     * Constructor initializes the field.
+     */
+    public ExecutorBeingScheduler(ExecutorService executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Run @a task in the ExecutorService.
+     */
+    @Override
+    protected void launch(Runnable task) {
+        mExecutor.execute(task);
+    }
+
+    /**
+     * Shutdown the ExecutorService so its Threads exit.
+     */
+    @Override
+    protected void releaseResources() {
+        mExecutor.shutdown();
+    }
+}
@@ -3,16 +3,11 @@ package edu.vandy.presenter;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 import android.content.Intent;
 import android.util.Log;
 import edu.vandy.R;
-import edu.vandy.utils.StreamsUtils;
 import edu.vandy.utils.UiUtils;
 import edu.vandy.model.PalantiriModel;
 import edu.vandy.utils.Options;
@@ -69,15 +64,16 @@ public class PalantiriPresenter {
     private List<BeingCallable> mBeingCallables;
 
     /**
-     * The list of futures to Beings that are running concurrently in
-     * the ExecutorService's thread pool.
+     * The kind of BeingScheduler used to run the Beings, which
+     * defaults to a cached pool of Threads.
      */
-    private List<Future<?>> mFutureList;
+    private BeingSchedulers.Kind mSchedulerKind =
+        BeingSchedulers.Kind.CACHED_POOL;
 
     /**
-     * The ExecutorService contains a cached pool of threads.
+     * Runs the Beings concurrently and cancels them on shutdown.
      */
-    private ExecutorService mExecutor;
+    private volatile BeingScheduler mScheduler;
 
     /**
      * Tracks whether a simulation is currently running or not.
@@ -98,6 +94,24 @@ public class PalantiriPresenter {
     private List<DotColor> mBeingsColors =
         new ArrayList<>();
 
+    /**
+     * The minimum time between two UI updates of the dots, which
+     * limits the updates to about 60 frames per second.
+     */
+    private final static long MIN_FRAME_INTERVAL_NANOS = 16666667L;
+
+    /**
+     * Buffers the changes the Beings make to the colors of the
+     * Palantiri so the View can apply them once per frame.
+     */
+    private volatile DotStateBuffer mPalantiriDots;
+
+    /**
+     * Buffers the changes the Beings make to their own colors so the
+     * View can apply them once per frame.
+     */
+    private volatile DotStateBuffer mBeingsDots;
+
     /**
      * This reference points to the PalantiriModel in the Model layer.
      */
@@ -129,6 +143,19 @@ public class PalantiriPresenter {
             UiUtils.showToast(view,
                               R.string.toast_incorrect_arguments);
 
+        // Use the scheduler named in the intent (if any) to run the
+        // Beings, keeping the default if it names no known scheduler.
+        String scheduler =
+            intent.getStringExtra(GazingSimulationActivity.SCHEDULER);
+        if (scheduler != null) {
+            try {
+                mSchedulerKind = BeingSchedulers.Kind.valueOf(scheduler);
+            } catch (IllegalArgumentException e) {
+                UiUtils.showToast(view,
+                                  R.string.toast_incorrect_arguments);
+            }
+        }
+
         // A runtime configuration change has not occurred (yet).
         mConfigurationChangeOccurred = false;
     }
@@ -190,6 +217,21 @@ public class PalantiriPresenter {
         mRunning = running;
     }
 
+    /**
+     * Returns the kind of BeingScheduler used to run the Beings.
+     */
+    public BeingSchedulers.Kind getSchedulerKind() {
+        return mSchedulerKind;
+    }
+
+    /**
+     * Sets the kind of BeingScheduler used to run the Beings the next
+     * time the simulation is started.
+     */
+    public void setSchedulerKind(BeingSchedulers.Kind schedulerKind) {
+        mSchedulerKind = schedulerKind;
+    }
+
     /**
      * Returns the List of Palantiri and whether they are gazing.
      */
@@ -204,6 +246,22 @@ public class PalantiriPresenter {
         return mBeingsColors;
     }
 
+    /**
+     * Returns the buffer of changes to the colors of the Palantiri,
+     * which the View applies to getPalantiriColors() once per frame.
+     */
+    public DotStateBuffer getPalantiriDots() {
+        return mPalantiriDots;
+    }
+
+    /**
+     * Returns the buffer of changes to the colors of the Beings,
+     * which the View applies to getBeingsColors() once per frame.
+     */
+    public DotStateBuffer getBeingsDots() {
+        return mBeingsDots;
+    }
+
     /**
      * This method is called when the user asks to start the
      * simulation in the context of the main UI Thread.  It creates
@@ -218,17 +276,29 @@ public class PalantiriPresenter {
         // Initialize the Palantiri.
         getModel().makePalantiri(Options.instance().numberOfPalantiri());
 
+        // Create the buffers that coalesce the Beings' changes to the
+        // dots, starting with the colors shown by showBeings() and
+        // showPalantiri().
+        mPalantiriDots =
+            new DotStateBuffer(Options.instance().numberOfPalantiri(),
+                               DotColor.GRAY,
+                               MIN_FRAME_INTERVAL_NANOS);
+        mBeingsDots =
+            new DotStateBuffer(Options.instance().numberOfBeings(),
+                               DotColor.YELLOW,
+                               MIN_FRAME_INTERVAL_NANOS);
+
         // Show the Beings on the UI.
         mView.get().showBeings();
 
         // Show the palantiri on the UI.
         mView.get().showPalantiri();
 
-        // Create and execute an Thread for each Being and 
-        // store the results in a list of futures.
+        // Create a BeingCallable for each Being and run them all
+        // concurrently via the BeingScheduler.
         beingBeingCallablesGazing(Options.instance().numberOfBeings());
 
-        // Spawn a thread that waits for all the futures to complete.
+        // Spawn a thread that waits for all the Beings to complete.
         awaitCompletionOfFutures();
     }
 
@@ -243,46 +313,47 @@ public class PalantiriPresenter {
      */
     private void beingBeingCallablesGazing(int beingCount) {
         // Create a new ArrayList that stores beingCount number of
-        // BeingCallables and then create a cached thread pool to run
-        // all these callables.
+        // BeingCallables and then create the BeingScheduler that runs
+        // all these callables.  The pooled schedulers get a Thread
+        // per Being so all the Beings can gaze concurrently.
         // TODO - You fill in here.
         mBeingCallables = new ArrayList<>(beingCount);
         for (int i = 0; i <beingCount;i++){
             mBeingCallables.add(i, new BeingCallable(this));
         }
-        mExecutor = Executors.newCachedThreadPool();
+        mScheduler = BeingSchedulers.make(mSchedulerKind, beingCount);
 
-        // Call submitAll() to run all the BeingCallables concurrently
-        // in the ExecutorService thread pool and store the results in
-        // mFutureList.
-        mFutureList = StreamsUtils.submitAll(mExecutor,
-                                             mBeingCallables);
+        // Run all the BeingCallables concurrently.
+        mScheduler.start(mBeingCallables);
     }
 
     /**
      * Spawn a thread that waits for all the futures to complete.
      */
     private void awaitCompletionOfFutures() {
-        // Use the ExecutorService to execute a runnable lambda that
-        // uses a foreach loop to wait for all the futures to
-        // complete.  After they're all complete then tell the UI
-        // thread this simulation is done.  If an exception is thrown
-        // shutdown the simulation.
+        // Spawn a thread that waits for all the Beings to stop
+        // running.  After they've all stopped then tell the UI thread
+        // this simulation is done.  If a Being failed (in which case
+        // the scheduler has already cancelled the others) or the wait
+        // is interrupted then shutdown the simulation.
 
         // TODO -- you fill in here.
-        ExecutorService extcutor = Executors.newSingleThreadExecutor();
-        extcutor.execute(() ->{
-            mFutureList.forEach(f -> {
-                try {
-                    f.get();
-                } catch (InterruptedException | ExecutionException e ) {
+        final BeingScheduler scheduler = mScheduler;
+        new Thread(() -> {
+            try {
+                if (!scheduler.awaitCompletion()
+                    && scheduler.getFailure() != null) {
+                    Log.e(TAG,
+                          "Being failed",
+                          scheduler.getFailure());
                     shutdown();
-                    //e.printStackTrace();
                 }
-            });
+            } catch (InterruptedException e) {
+                shutdown();
+            }
 
             mView.get().done();
-        });
+        }).start();
     }
 
     /**
@@ -292,10 +363,10 @@ public class PalantiriPresenter {
      */
     public void shutdown() {
         synchronized(this) {
-            // Cancel all the outstanding BeingCallables via their
-            // futures.
+            // Cancel all the outstanding BeingCallables via the
+            // scheduler.
             // TODO - you fill in here.
-                mFutureList.forEach( f -> f.cancel(true));
+            mScheduler.cancel();
             // Inform the user that we're shutting down the
             // simulation due to an error.
             mView.get().shutdownOccurred(mBeingCallables.size());
@@ -0,0 +1,30 @@
+package edu.vandy.presenter;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A BeingScheduler that runs each Being in a new Thread created by a
+ * ThreadFactory, e.g., a platform Thread or a virtual Thread.
+ */
+public class ThreadBeingScheduler
+       extends AbstractBeingScheduler {
+    /**
+     * Creates a Thread for each Being.
+     */
+    private final ThreadFactory mThreadFactory;
+
+    /**
+     * Constructor initializes the field.
+     */
+    public ThreadBeingScheduler(ThreadFactory threadFactory) {
+        mThreadFactory = threadFactory;
+    }
+
+    /**
+     * Run @a task in a new Thread.
+     */
+    @Override
+    protected void launch(Runnable task) {
+        mThreadFactory.newThread(task).start();
+    }
+}
@@ -4,6 +4,7 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.support.design.widget.FloatingActionButton;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.View;
 import android.widget.ArrayAdapter;
 import android.widget.ListView;
@@ -54,6 +55,27 @@ public class GazingSimulationActivity
      */
     private FloatingActionButton mStartOrStopFab;
 
+    /**
+     * Applies the Beings' buffered changes to the dots once per
+     * frame while the simulation runs, so the UI Thread's queue isn't
+     * flooded with a Runnable per change.
+     */
+    private final Choreographer.FrameCallback mFrameCallback =
+        new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                publishDotChanges(frameTimeNanos);
+
+                // Keep going until stopFrameUpdates() is called.
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        };
+
+    /**
+     * Keeps track of whether mFrameCallback is posted.
+     */
+    private boolean mFrameUpdatesRunning = false;
+
     /**
      * Reference to the PalantiriPresenter that implements the entry
      * point into the Presenter layer in the MVP pattern.
@@ -73,6 +95,7 @@ public class GazingSimulationActivity
     public final static String BEINGS = "BEINGS";
     public final static String PALANTIRI = "PALANTIRI";
     public final static String GAZING_ITERATIONS = "GAZING_ITERATIONS";
+    public final static String SCHEDULER = "SCHEDULER";
 
     /**
      * Factory method that returns an intent that starts the
@@ -128,6 +151,10 @@ public class GazingSimulationActivity
         // Check to see if the Presenter layer is still running the
         // simulation.
         if (getPresenter().isRunning()) {
+            // Resume updating the dots, which the previous instance
+            // of this activity stopped in onDestroy().
+            startFrameUpdates();
+
             // Note that we must display toast after changing button
             // text to ensure the Espresso tests get are able to
             // detect and test for the correct sequence of events.
@@ -138,6 +165,17 @@ public class GazingSimulationActivity
             runSimulation();
     }
 
+    /**
+     * This hook method is called when the activity is destroyed.  It
+     * stops the frame updates so the Choreographer doesn't keep this
+     * activity alive.
+     */
+    @Override
+    protected void onDestroy() {
+        stopFrameUpdates();
+        super.onDestroy();
+    }
+
     /**
      * This hook method is called by Android as part of destroying an
      * activity due to a configuration change, when it is known that a
@@ -195,10 +233,47 @@ public class GazingSimulationActivity
         // Start the simulation in the Presenter layer.
         getPresenter().start();
 
+        // Start applying the Beings' changes to the dots each frame.
+        startFrameUpdates();
+
         // Change the button to say "Stop Simulation."
         updateSimulationButtonText();
     }
 
+    /**
+     * Start applying the buffered dot changes once per frame.
+     */
+    private void startFrameUpdates() {
+        if (!mFrameUpdatesRunning) {
+            mFrameUpdatesRunning = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * Stop applying the buffered dot changes.
+     */
+    private void stopFrameUpdates() {
+        mFrameUpdatesRunning = false;
+        Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+    }
+
+    /**
+     * Apply the changes the Beings made to the dots since the last
+     * frame, notifying each adapter at most once.
+     */
+    private void publishDotChanges(long frameTimeNanos) {
+        if (getPresenter().getPalantiriDots()
+            .publishTo(getPresenter().getPalantiriColors(),
+                       frameTimeNanos))
+            mPalantiriAdapter.notifyDataSetChanged();
+
+        if (getPresenter().getBeingsDots()
+            .publishTo(getPresenter().getBeingsColors(),
+                       frameTimeNanos))
+            mBeingAdapter.notifyDataSetChanged();
+    }
+
     /**
      * Updates the simulation button text display either a start or
      * stop string based on the simulation running state.
@@ -273,39 +348,23 @@ public class GazingSimulationActivity
     }
 
     /**
-     * Mark a Palantir at location @a index the given @a color.
+     * Mark a Palantir at location @a index the given @a color.  The
+     * change is buffered and shown on the next frame.
      */
     private void markPalantir(final int index,
                               final DotColor color) {
-        final Runnable runnable = () -> {
-            // Set the appropriate value
-            getPresenter().getPalantiriColors().set(index,
-                                                    color);
-
-            // Update the list view.
-            mPalantiriAdapter.notifyDataSetChanged();
-        };
-
-        // Use the HaMeR framework to run runnable on the UI Thread.
-        runOnUiThread(runnable);
+        getPresenter().getPalantiriDots().set(index,
+                                              color);
     }
 
     /**
-     * Mark a Being at location @a index the given @a color.
+     * Mark a Being at location @a index the given @a color.  The
+     * change is buffered and shown on the next frame.
      */
     private void markBeing(final int index,
                            final DotColor color) {
-        final Runnable runnable = () -> {
-            // Set the appropriate value.
-            getPresenter().getBeingsColors().set(index,
-                                                 color);
-
-            // Update the list view.
-            mBeingAdapter.notifyDataSetChanged();
-        };
-
-        // Use the HaMeR framework to run runnable on the UI Thread.
-        runOnUiThread(runnable);
+        getPresenter().getBeingsDots().set(index,
+                                           color);
     }
 
     /**
@@ -358,6 +417,10 @@ public class GazingSimulationActivity
      */
     public void done() {
         final Runnable runnable = () -> {
+            // Stop applying the Beings' changes, since the dots are
+            // about to be reset.
+            stopFrameUpdates();
+
             // Make the Palantiri gray again.
             showPalantiri();
 
@@ -400,19 +463,15 @@ public class GazingSimulationActivity
      * user.
      */
     public void threadShutdown(final int index) {
+        // Mark the Being as idle (yellow) on the next frame.
+        markIdle(index);
+
         final Runnable runnable = () -> {
             Log.d(TAG,
                   "Being "
                           + index
                           + " was shutdown");
 
-            // Mark the Being as idle (yellow).
-            getPresenter().getBeingsColors().set(index,
-                                                 DotColor.YELLOW);
-
-            // Update the list view.
-            mBeingAdapter.notifyDataSetChanged();
-
             // Indicate the current simulation is no longer
             // running.
             getPresenter().setRunning(false);
@@ -0,0 +1,114 @@
+package edu.vandy.PalantiriManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import edu.vandy.model.Palantir;
+import edu.vandy.model.PalantiriModel;
+import edu.vandy.presenter.BeingScheduler;
+import edu.vandy.presenter.BeingSchedulers;
+
+/**
+ * Runs the same PalantiriModel under each kind of BeingScheduler, so
+ * the execution models can be compared without an Android device.
+ * Each Being repeatedly acquires a Palantir, gazes for a short time,
+ * and releases it, just like BeingCallable but without the UI.  Run
+ * it as a plain Java program on the development machine, e.g., from
+ * the IDE.
+ */
+public class BeingSchedulerBenchmark {
+    /**
+     * The numbers of Beings to run.
+     */
+    private static final int[] BEING_COUNTS = {10, 1000};
+
+    /**
+     * The number of Palantiri the Beings contend for.
+     */
+    private static final int PALANTIRI = 6;
+
+    /**
+     * The number of times each Being gazes.
+     */
+    private static final int ITERATIONS = 10;
+
+    /**
+     * How long each Being gazes in microseconds.
+     */
+    private static final long GAZE_MICROS = 50;
+
+    /**
+     * Create @a count Beings that gaze into Palantiri from @a model.
+     */
+    private static List<Callable<Void>> makeBeings(int count,
+                                                   PalantiriModel model) {
+        List<Callable<Void>> beings = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i)
+            beings.add(() -> {
+                    for (int j = 0; j < ITERATIONS; ++j) {
+                        Palantir palantir = model.acquirePalantir();
+                        try {
+                            TimeUnit.MICROSECONDS.sleep(GAZE_MICROS);
+                        } finally {
+                            model.releasePalantir(palantir);
+                        }
+                    }
+                    return null;
+                });
+        return beings;
+    }
+
+    /**
+     * Run @a beingCount Beings under a scheduler of the given @a kind.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    private static long runBeings(BeingSchedulers.Kind kind,
+                                  int beingCount)
+        throws InterruptedException {
+        PalantiriModel model = new PalantiriModel();
+        model.makePalantiri(PALANTIRI);
+
+        BeingScheduler scheduler = BeingSchedulers.make(kind, beingCount);
+
+        long start = System.nanoTime();
+        scheduler.start(makeBeings(beingCount, model));
+        if (!scheduler.awaitCompletion())
+            throw new IllegalStateException(kind + " failed",
+                                            scheduler.getFailure());
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * This is the entry point into the benchmark program.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Starting BeingSchedulerBenchmark ("
+                           + PALANTIRI
+                           + " palantiri, "
+                           + ITERATIONS
+                           + " iterations, virtual threads "
+                           + (BeingSchedulers.isVirtualThreadsSupported()
+                              ? "supported"
+                              : "not supported")
+                           + ")");
+
+        for (int beingCount : BEING_COUNTS)
+            for (BeingSchedulers.Kind kind : BeingSchedulers.Kind.values()) {
+                // Warm up once before taking the measurement.
+                runBeings(kind, beingCount);
+
+                long elapsed = runBeings(kind, beingCount);
+                System.out.printf("%-18s %5d beings: %6d ms, %9.0f gazes/s%n",
+                                  kind,
+                                  beingCount,
+                                  TimeUnit.NANOSECONDS.toMillis(elapsed),
+                                  (double) beingCount * ITERATIONS
+                                  * TimeUnit.SECONDS.toNanos(1) / elapsed);
+            }
+
+        System.out.println("Ending BeingSchedulerBenchmark");
+    }
+}
@@ -0,0 +1,140 @@
+package edu.vandy.PalantiriManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import edu.vandy.presenter.BeingScheduler;
+import edu.vandy.presenter.BeingSchedulers;
+
+/**
+ * Unit test that checks every kind of BeingScheduler has the same
+ * completion, cancellation, and failure semantics.
+ */
+public class BeingSchedulerUnitTest {
+    /**
+     * The number of Beings run by each test.
+     */
+    private final static int BEINGS = 10;
+
+    /**
+     * Create a List of @a count copies of @a being.
+     */
+    private static List<Callable<Void>> makeBeings(int count,
+                                                   Callable<Void> being) {
+        List<Callable<Void>> beings = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i)
+            beings.add(being);
+        return beings;
+    }
+
+    @Test
+    public void testAllBeingsComplete() throws InterruptedException {
+        for (BeingSchedulers.Kind kind : BeingSchedulers.Kind.values()) {
+            final AtomicInteger completed = new AtomicInteger(0);
+            BeingScheduler scheduler = BeingSchedulers.make(kind, BEINGS);
+
+            scheduler.start(makeBeings(BEINGS, () -> {
+                        completed.incrementAndGet();
+                        return null;
+                    }));
+
+            assertTrue(kind.toString(), scheduler.awaitCompletion());
+            assertEquals(kind.toString(), BEINGS, completed.get());
+            assertFalse(kind.toString(), scheduler.isCancelled());
+            assertNull(kind.toString(), scheduler.getFailure());
+        }
+    }
+
+    @Test
+    public void testCancelInterruptsRunningBeings()
+        throws InterruptedException {
+        for (BeingSchedulers.Kind kind : BeingSchedulers.Kind.values()) {
+            final CountDownLatch startedLatch = new CountDownLatch(BEINGS);
+            final AtomicInteger interrupted = new AtomicInteger(0);
+            BeingScheduler scheduler = BeingSchedulers.make(kind, BEINGS);
+
+            // Each Being gazes "forever" unless it's interrupted.
+            scheduler.start(makeBeings(BEINGS, () -> {
+                        startedLatch.countDown();
+                        try {
+                            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                        } catch (InterruptedException e) {
+                            interrupted.incrementAndGet();
+                        }
+                        return null;
+                    }));
+
+            assertTrue(kind.toString(),
+                       startedLatch.await(10, TimeUnit.SECONDS));
+            scheduler.cancel();
+            scheduler.cancel();
+
+            assertFalse(kind.toString(), scheduler.awaitCompletion());
+            assertEquals(kind.toString(), BEINGS, interrupted.get());
+            assertTrue(kind.toString(), scheduler.isCancelled());
+        }
+    }
+
+    @Test
+    public void testCancelSkipsBeingsThatHaveNotStarted()
+        throws InterruptedException {
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final AtomicInteger started = new AtomicInteger(0);
+
+        // A single Thread runs the Beings one at a time, so all but
+        // the first are still queued when the scheduler is cancelled.
+        BeingScheduler scheduler =
+            BeingSchedulers.make(BeingSchedulers.Kind.FIXED_POOL, 1);
+
+        scheduler.start(makeBeings(BEINGS, () -> {
+                    started.incrementAndGet();
+                    startedLatch.countDown();
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    return null;
+                }));
+
+        assertTrue(startedLatch.await(10, TimeUnit.SECONDS));
+        scheduler.cancel();
+
+        assertFalse(scheduler.awaitCompletion());
+        assertEquals(1, started.get());
+    }
+
+    @Test
+    public void testFailureCancelsOtherBeings() throws InterruptedException {
+        for (BeingSchedulers.Kind kind : BeingSchedulers.Kind.values()) {
+            final CountDownLatch startedLatch = new CountDownLatch(BEINGS);
+            final RuntimeException failure = new RuntimeException("failed");
+            final AtomicInteger ids = new AtomicInteger(0);
+            BeingScheduler scheduler = BeingSchedulers.make(kind, BEINGS);
+
+            // Once all the Beings have started the first one fails
+            // and the others gaze until they're interrupted.
+            scheduler.start(makeBeings(BEINGS, () -> {
+                        boolean first = ids.getAndIncrement() == 0;
+                        startedLatch.countDown();
+                        startedLatch.await();
+                        if (first)
+                            throw failure;
+                        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                        return null;
+                    }));
+
+            assertFalse(kind.toString(), scheduler.awaitCompletion());
+            assertTrue(kind.toString(), scheduler.isCancelled());
+            assertSame(kind.toString(), failure, scheduler.getFailure());
+        }
+    }
+}
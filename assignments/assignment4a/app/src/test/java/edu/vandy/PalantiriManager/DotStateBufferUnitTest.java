@@ -0,0 +1,140 @@
+package edu.vandy.PalantiriManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import edu.vandy.presenter.DotStateBuffer;
+import edu.vandy.view.DotArrayAdapter.DotColor;
+
+/**
+ * Unit test for the DotStateBuffer.
+ */
+public class DotStateBufferUnitTest {
+    /**
+     * The minimum frame interval used by the tests.
+     */
+    private final static long FRAME_NANOS = 16000000L;
+
+    @Test
+    public void testNothingToPublish() {
+        DotStateBuffer buffer =
+            new DotStateBuffer(4, DotColor.GRAY, FRAME_NANOS);
+
+        assertEquals(4, buffer.size());
+        assertNull(buffer.publish(0));
+
+        // Setting a dot to the color it already has isn't a change.
+        buffer.set(2, DotColor.GRAY);
+        assertNull(buffer.publish(FRAME_NANOS));
+    }
+
+    @Test
+    public void testChangesAreCoalesced() {
+        DotStateBuffer buffer =
+            new DotStateBuffer(4, DotColor.YELLOW, FRAME_NANOS);
+
+        // Several changes to the same dot within a frame produce one
+        // entry with the latest color.
+        buffer.set(1, DotColor.RED);
+        buffer.set(1, DotColor.GREEN);
+        buffer.set(3, DotColor.RED);
+
+        DotStateBuffer.Diff diff = buffer.publish(0);
+        assertNotNull(diff);
+        assertEquals(2, diff.size());
+        assertEquals(1, diff.index(0));
+        assertEquals(DotColor.GREEN, diff.color(0));
+        assertEquals(3, diff.index(1));
+        assertEquals(DotColor.RED, diff.color(1));
+
+        // A dot that changes and changes back within a frame isn't
+        // published at all.
+        buffer.set(0, DotColor.RED);
+        buffer.set(0, DotColor.YELLOW);
+        assertNull(buffer.publish(FRAME_NANOS));
+    }
+
+    @Test
+    public void testFrameRateIsLimited() {
+        DotStateBuffer buffer =
+            new DotStateBuffer(2, DotColor.YELLOW, FRAME_NANOS);
+
+        buffer.set(0, DotColor.RED);
+        assertNotNull(buffer.publish(1000));
+
+        // A change made before the next frame is due stays pending.
+        buffer.set(1, DotColor.RED);
+        assertNull(buffer.publish(1000 + FRAME_NANOS / 2));
+
+        DotStateBuffer.Diff diff = buffer.publish(1000 + FRAME_NANOS);
+        assertNotNull(diff);
+        assertEquals(1, diff.size());
+        assertEquals(1, diff.index(0));
+    }
+
+    @Test
+    public void testPublishTo() {
+        DotStateBuffer buffer =
+            new DotStateBuffer(3, DotColor.GRAY, FRAME_NANOS);
+        List<DotColor> dots =
+            new ArrayList<>(Collections.nCopies(3, DotColor.GRAY));
+
+        assertFalse(buffer.publishTo(dots, 0));
+
+        buffer.set(0, DotColor.RED);
+        buffer.set(2, DotColor.GREEN);
+        assertTrue(buffer.publishTo(dots, 0));
+        assertEquals(DotColor.RED, dots.get(0));
+        assertEquals(DotColor.GRAY, dots.get(1));
+        assertEquals(DotColor.GREEN, dots.get(2));
+    }
+
+    @Test
+    public void testConcurrentSetters() throws InterruptedException {
+        final int DOTS = 512;
+        final int THREADS = 8;
+        final int ITERATIONS = 20000;
+
+        final DotStateBuffer buffer =
+            new DotStateBuffer(DOTS, DotColor.YELLOW, 0);
+        final List<DotColor> dots =
+            new ArrayList<>(Collections.nCopies(DOTS, DotColor.YELLOW));
+        final DotColor[] colors = DotColor.values();
+        final CountDownLatch doneLatch = new CountDownLatch(THREADS);
+
+        // Each thread owns the dots whose index is congruent to its
+        // id and finishes by setting them all to GREEN.
+        for (int t = 0; t < THREADS; ++t) {
+            final int id = t;
+            new Thread(() -> {
+                    for (int i = 0; i < ITERATIONS; ++i) {
+                        int dot = (i * THREADS + id) % DOTS;
+                        buffer.set(dot, colors[i % colors.length]);
+                    }
+                    for (int dot = id; dot < DOTS; dot += THREADS)
+                        buffer.set(dot, DotColor.GREEN);
+                    doneLatch.countDown();
+                }).start();
+        }
+
+        // Publish "frames" while the threads run.
+        long frame = 0;
+        while (doneLatch.getCount() > 0)
+            buffer.publishTo(dots, ++frame);
+
+        // One more frame after they're done picks up the final state.
+        buffer.publishTo(dots, ++frame);
+        for (int dot = 0; dot < DOTS; ++dot)
+            assertEquals(DotColor.GREEN, dots.get(dot));
+    }
+}
@@ -0,0 +1,208 @@
+package edu.vandy.PalantiriManager;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+
+import edu.vandy.model.FairSemaphore;
+import edu.vandy.model.LockFreeFairSemaphore;
+
+/**
+ * Compares the throughput and acquire latency of FairSemaphore,
+ * LockFreeFairSemaphore, and java.util.concurrent.Semaphore in fair
+ * mode under heavy contention, i.e., many more threads than permits
+ * and a very short critical section.  Run it as a plain Java program
+ * on the development machine, e.g., from the IDE.
+ */
+public class FairSemaphoreBenchmark {
+    /**
+     * Total number of acquire()/release() pairs in each run.
+     */
+    private static final int OPERATIONS = 200000;
+
+    /**
+     * The numbers of threads contending for the semaphore.
+     */
+    private static final int[] THREAD_COUNTS = {4, 16, 64};
+
+    /**
+     * The numbers of permits in the semaphore.
+     */
+    private static final int[] PERMIT_COUNTS = {1, 4};
+
+    /**
+     * Number of iterations of busy work done while holding a permit.
+     */
+    private static final int CRITICAL_SECTION_WORK = 50;
+
+    /**
+     * Enumerate the semaphores to compare.
+     */
+    enum SemaphoresToRun {
+        FAIR_SEMAPHORE,
+        LOCK_FREE_FAIR_SEMAPHORE,
+        JAVA_FAIR_SEMAPHORE
+    }
+
+    /**
+     * The operations the benchmark needs from each semaphore.
+     */
+    interface BenchmarkSemaphore {
+        void acquire() throws InterruptedException;
+        void release();
+    }
+
+    /**
+     * Factory method that creates the desired type of semaphore.
+     */
+    private static BenchmarkSemaphore makeSemaphore(SemaphoresToRun choice,
+                                                    int permits) {
+        switch (choice) {
+        case FAIR_SEMAPHORE: {
+            final FairSemaphore s = new FairSemaphore(permits);
+            return new BenchmarkSemaphore() {
+                public void acquire() throws InterruptedException {
+                    s.acquire();
+                }
+                public void release() {
+                    s.release();
+                }
+            };
+        }
+        case LOCK_FREE_FAIR_SEMAPHORE: {
+            final LockFreeFairSemaphore s = new LockFreeFairSemaphore(permits);
+            return new BenchmarkSemaphore() {
+                public void acquire() throws InterruptedException {
+                    s.acquire();
+                }
+                public void release() {
+                    s.release();
+                }
+            };
+        }
+        case JAVA_FAIR_SEMAPHORE: {
+            final Semaphore s = new Semaphore(permits, true);
+            return new BenchmarkSemaphore() {
+                public void acquire() throws InterruptedException {
+                    s.acquire();
+                }
+                public void release() {
+                    s.release();
+                }
+            };
+        }
+        }
+        return null;
+    }
+
+    /**
+     * Keeps the busy work in the critical section from being
+     * optimized away.
+     */
+    static volatile long sSink;
+
+    /**
+     * Holds the results of one run.
+     */
+    static class Result {
+        double mOpsPerSecond;
+        long[] mLatencies;
+    }
+
+    /**
+     * Run @a threadCount threads that each acquire and release @a
+     * semaphore repeatedly until OPERATIONS pairs have completed.
+     */
+    private static Result run(final BenchmarkSemaphore semaphore,
+                              int threadCount)
+        throws InterruptedException {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final int perThread = OPERATIONS / threadCount;
+        final long[][] latencies = new long[threadCount][perThread];
+        Thread[] threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; ++i) {
+            final long[] samples = latencies[i];
+
+            threads[i] = new Thread(() -> {
+                    try {
+                        startLatch.await();
+                        long sum = 0;
+                        for (int j = 0; j < samples.length; ++j) {
+                            long start = System.nanoTime();
+                            semaphore.acquire();
+                            samples[j] = System.nanoTime() - start;
+
+                            for (int k = 0; k < CRITICAL_SECTION_WORK; ++k)
+                                sum += k * j;
+
+                            semaphore.release();
+                        }
+                        sSink = sum;
+                    } catch (InterruptedException e) {
+                        System.out.println("InterruptedException caught");
+                    }
+                });
+        }
+
+        for (Thread t : threads)
+            t.start();
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        for (Thread t : threads)
+            t.join();
+        long elapsed = System.nanoTime() - start;
+
+        Result result = new Result();
+        result.mOpsPerSecond = (double) perThread * threadCount / (elapsed / 1e9);
+
+        result.mLatencies = new long[perThread * threadCount];
+        for (int i = 0; i < threadCount; ++i)
+            System.arraycopy(latencies[i], 0,
+                             result.mLatencies, i * perThread,
+                             perThread);
+        Arrays.sort(result.mLatencies);
+        return result;
+    }
+
+    /**
+     * Return the latency at percentile @a p of the sorted @a
+     * latencies, in microseconds.
+     */
+    private static double percentile(long[] latencies, double p) {
+        int index = (int) Math.ceil(p / 100.0 * latencies.length) - 1;
+        return latencies[Math.max(0, index)] / 1000.0;
+    }
+
+    /**
+     * This is the entry point into the benchmark program.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Starting FairSemaphoreBenchmark ("
+                           + OPERATIONS
+                           + " acquire/release pairs per run)");
+        System.out.printf("%-26s %7s %7s %12s %9s %10s%n",
+                          "semaphore", "threads", "permits",
+                          "ops/s", "p50 us", "p99 us");
+
+        for (int permits : PERMIT_COUNTS)
+            for (int threads : THREAD_COUNTS)
+                for (SemaphoresToRun choice : SemaphoresToRun.values()) {
+                    // Warm up once before taking the measurement.
+                    run(makeSemaphore(choice, permits), threads);
+
+                    Result r = run(makeSemaphore(choice, permits), threads);
+
+                    System.out.printf("%-26s %7d %7d %12.0f %9.1f %10.1f%n",
+                                      choice,
+                                      threads,
+                                      permits,
+                                      r.mOpsPerSecond,
+                                      percentile(r.mLatencies, 50),
+                                      percentile(r.mLatencies, 99));
+                }
+
+        System.out.println("Ending FairSemaphoreBenchmark");
+    }
+}
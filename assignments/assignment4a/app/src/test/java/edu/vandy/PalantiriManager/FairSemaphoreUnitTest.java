@@ -0,0 +1,37 @@
+package edu.vandy.PalantiriManager;
+
+import edu.vandy.model.FairSemaphore;
+
+/**
+ * Unit test for the FairSemaphore, which runs the tests in
+ * AbstractFairSemaphoreUnitTest.
+ */
+public class FairSemaphoreUnitTest
+       extends AbstractFairSemaphoreUnitTest {
+    /**
+     * Make a FairSemaphore with @a availablePermits permits.
+     */
+    @Override
+    protected SemaphoreUnderTest makeSemaphore(int availablePermits) {
+        FairSemaphore fairSemaphore =
+            new FairSemaphore(availablePermits);
+
+        return new SemaphoreUnderTest() {
+            public void acquire() throws InterruptedException {
+                fairSemaphore.acquire();
+            }
+
+            public void acquireUninterruptibly() {
+                fairSemaphore.acquireUninterruptibly();
+            }
+
+            public void release() {
+                fairSemaphore.release();
+            }
+
+            public int availablePermits() {
+                return fairSemaphore.availablePermits();
+            }
+        };
+    }
+}
@@ -0,0 +1,201 @@
+package edu.vandy.PalantiriManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import edu.vandy.model.LockFreeFairSemaphore;
+
+/**
+ * Unit test for the LockFreeFairSemaphore, which runs the tests in
+ * AbstractFairSemaphoreUnitTest along with tests of the operations
+ * only the LockFreeFairSemaphore has.
+ */
+public class LockFreeFairSemaphoreUnitTest
+       extends AbstractFairSemaphoreUnitTest {
+    /**
+     * Make a LockFreeFairSemaphore with @a availablePermits permits.
+     */
+    @Override
+    protected SemaphoreUnderTest makeSemaphore(int availablePermits) {
+        LockFreeFairSemaphore fairSemaphore =
+            new LockFreeFairSemaphore(availablePermits);
+
+        return new SemaphoreUnderTest() {
+            public void acquire() throws InterruptedException {
+                fairSemaphore.acquire();
+            }
+
+            public void acquireUninterruptibly() {
+                fairSemaphore.acquireUninterruptibly();
+            }
+
+            public void release() {
+                fairSemaphore.release();
+            }
+
+            public int availablePermits() {
+                return fairSemaphore.availablePermits();
+            }
+        };
+    }
+
+    @Test
+    public void testAcquireUninterruptiblyKeepsWaiting() throws InterruptedException {
+        LockFreeFairSemaphore fairSemaphore =
+            new LockFreeFairSemaphore(0);
+
+        // Keep track of whether the thread's interrupt status was
+        // restored after it got its permit.
+        final boolean[] interruptRestored = new boolean[1];
+
+        Thread t = new Thread(() -> {
+                fairSemaphore.acquireUninterruptibly();
+                interruptRestored[0] =
+                    Thread.currentThread().isInterrupted();
+            });
+        t.start();
+
+        // Interrupt the thread while it's blocked, which shouldn't
+        // make it return without a permit.
+        Thread.sleep(250);
+        t.interrupt();
+        t.join(500);
+        assertTrue(t.isAlive());
+
+        // Release a permit so the thread can finish.
+        fairSemaphore.release();
+        t.join();
+
+        assertTrue(interruptRestored[0]);
+        assertEquals(fairSemaphore.availablePermits(), 0);
+    }
+
+    @Test
+    public void testMultiplePermitsAreFifo() throws InterruptedException {
+        LockFreeFairSemaphore fairSemaphore =
+            new LockFreeFairSemaphore(0);
+
+        // Records the order in which the threads get their permits.
+        final List<String> order =
+            Collections.synchronizedList(new ArrayList<>());
+
+        // This thread needs two permits and gets in line first.
+        Thread needsTwo = new Thread(() -> {
+                fairSemaphore.acquireUninterruptibly(2);
+                order.add("two");
+            });
+        needsTwo.start();
+        Thread.sleep(250);
+
+        // This thread needs just one permit and gets in line second.
+        Thread needsOne = new Thread(() -> {
+                fairSemaphore.acquireUninterruptibly();
+                order.add("one");
+            });
+        needsOne.start();
+        Thread.sleep(250);
+
+        // One permit isn't enough for the head of the queue, and the
+        // second thread mustn't barge ahead of it.
+        fairSemaphore.release();
+        Thread.sleep(250);
+        assertTrue(order.isEmpty());
+        assertEquals(fairSemaphore.availablePermits(), 1);
+
+        // A second permit lets the head take both at once.
+        fairSemaphore.release();
+        needsTwo.join();
+        assertEquals(fairSemaphore.availablePermits(), 0);
+        assertTrue(needsOne.isAlive());
+
+        fairSemaphore.release();
+        needsOne.join();
+
+        assertEquals(order.size(), 2);
+        assertEquals(order.get(0), "two");
+        assertEquals(order.get(1), "one");
+    }
+
+    @Test
+    public void testTryAcquireDeadline() throws InterruptedException {
+        final long TIMEOUT_MS = 200;
+
+        // Allow for the scheduler waking the thread up late.
+        final long SLACK_MS = 150;
+
+        LockFreeFairSemaphore fairSemaphore =
+            new LockFreeFairSemaphore(1);
+
+        // The permit is available, so this shouldn't wait at all.
+        assertTrue(fairSemaphore.tryAcquire(TIMEOUT_MS,
+                                            TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        assertFalse(fairSemaphore.tryAcquire(TIMEOUT_MS,
+                                             TimeUnit.MILLISECONDS));
+        long elapsedMs =
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("tryAcquire() returned after " + elapsedMs + " ms",
+                   elapsedMs >= TIMEOUT_MS
+                   && elapsedMs < TIMEOUT_MS + SLACK_MS);
+
+        // Asking for more permits than are available must not take
+        // any of them.
+        fairSemaphore.release();
+        assertFalse(fairSemaphore.tryAcquire(2,
+                                             TIMEOUT_MS,
+                                             TimeUnit.MILLISECONDS));
+        assertEquals(fairSemaphore.availablePermits(), 1);
+    }
+
+    @Test
+    public void testTimedOutWaiterLetsNextWaiterIn() throws InterruptedException {
+        LockFreeFairSemaphore fairSemaphore =
+            new LockFreeFairSemaphore(0);
+
+        final boolean[] gotTwo = new boolean[1];
+
+        // This thread gets in line first for two permits, but gives
+        // up after 500 milliseconds.
+        Thread needsTwo = new Thread(() -> {
+                try {
+                    gotTwo[0] =
+                        fairSemaphore.tryAcquire(2,
+                                                 500,
+                                                 TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    mInterrupted = true;
+                }
+            });
+        needsTwo.start();
+        Thread.sleep(100);
+
+        // This thread gets in line behind it for one permit.
+        Thread needsOne = new Thread(fairSemaphore::acquireUninterruptibly);
+        needsOne.start();
+        Thread.sleep(100);
+
+        // The single permit can't go to the second thread until the
+        // first one gives up.
+        fairSemaphore.release();
+        needsOne.join(100);
+        assertTrue(needsOne.isAlive());
+
+        needsTwo.join();
+        needsOne.join(1000);
+
+        assertFalse(gotTwo[0]);
+        assertFalse(needsOne.isAlive());
+        assertFalse(mInterrupted);
+        assertEquals(fairSemaphore.availablePermits(), 0);
+    }
+}
@@ -3,12 +3,17 @@ package edu.vandy.PalantiriManager;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
@@ -222,4 +227,189 @@ public class PalantiriManagerUnitTest {
                     + "This shouldn't happen (even if your Semaphore is wrong).", 
                     mInterrupted);
     }
+
+    @Test
+    public void testStressNoDoubleHandout() {
+        // The number of Beings contending for the Palantiri.
+        final int BEING_COUNT = 10000;
+
+        // The number of Palantiri they contend for.
+        final int PALANTIRI_COUNT = 8;
+
+        // The number of times each Being acquires a Palantir.
+        final int ACCESS_COUNT = 5;
+
+        final PalantiriManager palantiriManager =
+            makePalantiri(PALANTIRI_COUNT);
+
+        // Records which Palantiri are currently held by a Being, so
+        // a Palantir that's handed out twice is detected.
+        final AtomicIntegerArray held =
+            new AtomicIntegerArray(PALANTIRI_COUNT);
+
+        // Holds the Beings back until they've all been started, which
+        // maximizes contention.
+        final CountDownLatch startLatch = new CountDownLatch(1);
+
+        Thread threads[] =
+            new Thread[BEING_COUNT];
+
+        for (int i = 0; i < BEING_COUNT; ++i) {
+            final Thread t =
+                new Thread(() -> {
+                        try {
+                            startLatch.await();
+                        } catch (InterruptedException e) {
+                            mInterrupted = true;
+                            return;
+                        }
+
+                        for (int j = 0;
+                             j < ACCESS_COUNT;
+                             ++j) {
+                            Palantir palantir = palantiriManager.acquire();
+
+                            // Fail if another Being already holds
+                            // this Palantir.
+                            if (palantir == null
+                                || !held.compareAndSet(palantir.getId(), 0, 1))
+                                throw new RuntimeException("Palantir "
+                                                           + palantir
+                                                           + " handed out twice");
+
+                            Thread.yield();
+
+                            held.set(palantir.getId(), 0);
+                            palantiriManager.release(palantir);
+                        }
+                    }, "Being " + i);
+
+            t.setUncaughtExceptionHandler((thread, e) -> {
+                    System.out.println("uncaughtException in testStressNoDoubleHandout()" + e);
+                    mFailed = true;
+                });
+
+            threads[i] = t;
+        }
+
+        for (final Thread t : threads)
+            t.start();
+
+        startLatch.countDown();
+
+        for (final Thread t : threads)
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                fail("The main thread was interrupted for some reason.");
+            }
+
+        assertFalse(mFailed);
+        assertFalse(mInterrupted);
+
+        // Every Palantir should be back in the PalantiriManager.
+        assertEquals(PALANTIRI_COUNT, palantiriManager.availablePermits());
+        for (int i = 0; i < PALANTIRI_COUNT; ++i)
+            assertEquals(0, held.get(i));
+    }
+
+    @Test
+    public void testReleaseIgnoresInvalidPalantiri() {
+        PalantiriManager palantiriManager = makePalantiri(2);
+
+        // Releasing a Palantir that wasn't acquired, or that this
+        // manager doesn't own, shouldn't add permits.
+        palantiriManager.release(new Palantir(0, new Random()));
+        palantiriManager.release(new Palantir(42, new Random()));
+        assertEquals(2, palantiriManager.availablePermits());
+
+        // Releasing the same Palantir twice should only add one
+        // permit back.
+        Palantir palantir = palantiriManager.acquire();
+        palantiriManager.release(palantir);
+        palantiriManager.release(palantir);
+        assertEquals(2, palantiriManager.availablePermits());
+
+        // Both Palantiri can still be acquired, and they're distinct.
+        Palantir palantir1 = palantiriManager.acquire();
+        Palantir palantir2 = palantiriManager.acquire();
+        assertTrue(palantir1.getId() != palantir2.getId());
+        assertEquals(0, palantiriManager.availablePermits());
+    }
+
+    @Test
+    public void testTryAcquireTimeout() throws InterruptedException {
+        final long TIMEOUT_MS = 200;
+
+        // Allow for the scheduler waking the thread up late.
+        final long SLACK_MS = 150;
+
+        PalantiriManager palantiriManager = makePalantiri(1);
+        Palantir palantir = palantiriManager.acquire();
+
+        long start = System.nanoTime();
+        assertNull(palantiriManager.tryAcquire(TIMEOUT_MS,
+                                               TimeUnit.MILLISECONDS));
+        long elapsedMs =
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("tryAcquire() returned after " + elapsedMs + " ms",
+                   elapsedMs >= TIMEOUT_MS
+                   && elapsedMs < TIMEOUT_MS + SLACK_MS);
+        assertEquals(0, palantiriManager.availablePermits());
+
+        // Once the Palantir is released it can be acquired again.
+        palantiriManager.release(palantir);
+        assertEquals(palantir,
+                     palantiriManager.tryAcquire(TIMEOUT_MS,
+                                                 TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testAcquireMultiple() {
+        PalantiriManager palantiriManager = makePalantiri(3);
+
+        List<Palantir> palantiri = palantiriManager.acquire(3);
+        assertEquals(3, palantiri.size());
+        assertEquals(3, new HashSet<>(palantiri).size());
+        assertEquals(0, palantiriManager.availablePermits());
+
+        palantiriManager.releaseAll(palantiri);
+        assertEquals(3, palantiriManager.availablePermits());
+
+        // Releasing them again shouldn't add any permits.
+        palantiriManager.releaseAll(palantiri);
+        assertEquals(3, palantiriManager.availablePermits());
+
+        try {
+            palantiriManager.acquire(4);
+            fail("acquire(4) should throw for 3 palantiri");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testAcquireMultipleIsAllOrNothing() throws InterruptedException {
+        PalantiriManager palantiriManager = makePalantiri(2);
+        Palantir palantir = palantiriManager.acquire();
+
+        final List<List<Palantir>> result = new ArrayList<>();
+
+        // This thread needs both Palantiri, but only one is free.
+        Thread t = new Thread(() -> result.add(palantiriManager.acquire(2)));
+        t.start();
+
+        // The thread mustn't take the free Palantir while it waits
+        // for the other one.
+        t.join(250);
+        assertTrue(t.isAlive());
+        assertEquals(1, palantiriManager.availablePermits());
+
+        palantiriManager.release(palantir);
+        t.join();
+
+        assertEquals(2, result.get(0).size());
+        assertEquals(0, palantiriManager.availablePermits());
+    }
 }
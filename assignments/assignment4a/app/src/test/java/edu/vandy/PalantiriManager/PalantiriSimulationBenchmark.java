@@ -0,0 +1,197 @@
+package edu.vandy.PalantiriManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import edu.vandy.model.FairSemaphore;
+import edu.vandy.model.Palantir;
+import edu.vandy.model.PalantiriModel;
+import edu.vandy.model.PalantiriSimulation;
+import edu.vandy.model.PalantiriSimulation.GazeTime;
+
+/**
+ * Runs PalantiriSimulation with 100,000 Beings against several Model
+ * implementations and gaze-time distributions, so PalantiriManager
+ * and the semaphores can be compared without an Android device.  Run
+ * it as a plain Java program on the development machine, e.g., from
+ * the IDE.
+ */
+public class PalantiriSimulationBenchmark {
+    /**
+     * The number of Beings in each simulation.
+     */
+    private static final int BEINGS = 100000;
+
+    /**
+     * The numbers of Palantiri the Beings contend for.
+     */
+    private static final int[] PALANTIRI_COUNTS = {4, 32};
+
+    /**
+     * The number of times each Being gazes.
+     */
+    private static final int ITERATIONS = 1;
+
+    /**
+     * The number of worker Threads that run the Beings.
+     */
+    private static final int THREADS = 64;
+
+    /**
+     * Enumerate the Model implementations to compare.
+     */
+    enum ModelsToRun {
+        PALANTIRI_MANAGER,
+        FAIR_SEMAPHORE_MAP,
+        JAVA_SEMAPHORE_MAP
+    }
+
+    /**
+     * Factory method that creates the desired Model.
+     */
+    private static PalantiriModel makeModel(ModelsToRun choice) {
+        switch (choice) {
+        case PALANTIRI_MANAGER:
+            return new PalantiriModel();
+        case FAIR_SEMAPHORE_MAP:
+            return new MapModel() {
+                private FairSemaphore mSemaphore;
+
+                @Override
+                void makeSemaphore(int permits) {
+                    mSemaphore = new FairSemaphore(permits);
+                }
+
+                @Override
+                void acquirePermit() {
+                    mSemaphore.acquireUninterruptibly();
+                }
+
+                @Override
+                void releasePermit() {
+                    mSemaphore.release();
+                }
+            };
+        case JAVA_SEMAPHORE_MAP:
+            return new MapModel() {
+                private Semaphore mSemaphore;
+
+                @Override
+                void makeSemaphore(int permits) {
+                    mSemaphore = new Semaphore(permits, true);
+                }
+
+                @Override
+                void acquirePermit() {
+                    mSemaphore.acquireUninterruptibly();
+                }
+
+                @Override
+                void releasePermit() {
+                    mSemaphore.release();
+                }
+            };
+        }
+        return null;
+    }
+
+    /**
+     * A baseline Model that finds a free Palantir by scanning a
+     * ConcurrentHashMap, as PalantiriManager originally did, but
+     * claims it atomically via replace().
+     */
+    static abstract class MapModel extends PalantiriModel {
+        /**
+         * Associates each Palantir with whether it's available.
+         */
+        private ConcurrentHashMap<Palantir, Boolean> mPalantiriMap;
+
+        abstract void makeSemaphore(int permits);
+        abstract void acquirePermit();
+        abstract void releasePermit();
+
+        @Override
+        public void makePalantiri(int palantiriCount) {
+            mPalantiriMap = new ConcurrentHashMap<>(palantiriCount);
+            for (int i = 0; i < palantiriCount; ++i)
+                mPalantiriMap.put(new Palantir(i, null), true);
+            makeSemaphore(palantiriCount);
+        }
+
+        @Override
+        public Palantir acquirePalantir() {
+            acquirePermit();
+            for (;;)
+                for (Palantir palantir : mPalantiriMap.keySet())
+                    if (mPalantiriMap.replace(palantir, true, false))
+                        return palantir;
+        }
+
+        @Override
+        public void releasePalantir(Palantir palantir) {
+            if (palantir != null
+                && mPalantiriMap.replace(palantir, false, true))
+                releasePermit();
+        }
+    }
+
+    /**
+     * Enumerate the gaze-time distributions to run.
+     */
+    enum GazeTimesToRun {
+        ZERO,
+        UNIFORM_0_TO_20_US,
+        EXPONENTIAL_100_US
+    }
+
+    /**
+     * Factory method that creates the desired GazeTime.
+     */
+    private static GazeTime makeGazeTime(GazeTimesToRun choice) {
+        switch (choice) {
+        case ZERO:
+            return PalantiriSimulation.zeroGazeTime();
+        case UNIFORM_0_TO_20_US:
+            return PalantiriSimulation.uniformGazeTime(0, 20000);
+        case EXPONENTIAL_100_US:
+            return PalantiriSimulation.exponentialGazeTime(100000);
+        }
+        return null;
+    }
+
+    /**
+     * This is the entry point into the benchmark program.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Starting PalantiriSimulationBenchmark ("
+                           + BEINGS
+                           + " beings, "
+                           + THREADS
+                           + " worker threads)");
+
+        for (GazeTimesToRun gazeTime : GazeTimesToRun.values())
+            for (int palantiri : PALANTIRI_COUNTS)
+                for (ModelsToRun model : ModelsToRun.values()) {
+                    PalantiriSimulation simulation =
+                        new PalantiriSimulation(BEINGS,
+                                                palantiri,
+                                                ITERATIONS,
+                                                THREADS,
+                                                makeGazeTime(gazeTime));
+
+                    // Warm up once before taking the measurement.
+                    simulation.run(makeModel(model));
+
+                    PalantiriSimulation.Report report =
+                        simulation.run(makeModel(model));
+
+                    System.out.printf("%-18s %-18s %3d palantiri: %s%n",
+                                      gazeTime,
+                                      model,
+                                      palantiri,
+                                      report);
+                }
+
+        System.out.println("Ending PalantiriSimulationBenchmark");
+    }
+}
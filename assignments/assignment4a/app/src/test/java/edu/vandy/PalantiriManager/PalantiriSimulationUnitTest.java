@@ -0,0 +1,63 @@
+package edu.vandy.PalantiriManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import edu.vandy.model.PalantiriModel;
+import edu.vandy.model.PalantiriSimulation;
+
+/**
+ * Unit test for the PalantiriSimulation.
+ */
+public class PalantiriSimulationUnitTest {
+    @Test
+    public void testZeroGazeTime() throws InterruptedException {
+        final int BEINGS = 10000;
+        final int PALANTIRI = 4;
+        final int ITERATIONS = 3;
+
+        PalantiriSimulation.Report report =
+            new PalantiriSimulation(BEINGS,
+                                    PALANTIRI,
+                                    ITERATIONS,
+                                    16,
+                                    PalantiriSimulation.zeroGazeTime())
+            .run(new PalantiriModel());
+
+        assertEquals(BEINGS * ITERATIONS, report.mAcquires);
+        assertTrue(report.mAcquiresPerSecond > 0);
+        assertTrue(report.mMaxConcurrentGazers <= PALANTIRI);
+        assertTrue(report.mWaitP50Micros <= report.mWaitP99Micros);
+        assertTrue(report.mWaitP99Micros <= report.mWaitP999Micros);
+        assertTrue(report.mUtilization >= 0 && report.mUtilization <= 1);
+    }
+
+    @Test
+    public void testFixedGazeTimeKeepsPalantiriBusy() throws InterruptedException {
+        final int PALANTIRI = 4;
+
+        // Many more Beings than Palantiri, each gazing for 1 ms, so
+        // the Palantiri should hardly ever be idle.
+        PalantiriSimulation.Report report =
+            new PalantiriSimulation(400,
+                                    PALANTIRI,
+                                    1,
+                                    16,
+                                    PalantiriSimulation.fixedGazeTime
+                                    (TimeUnit.MILLISECONDS.toNanos(1)))
+            .run(new PalantiriModel());
+
+        assertEquals(400, report.mAcquires);
+        assertEquals(PALANTIRI, report.mMaxConcurrentGazers);
+        assertTrue("utilization was " + report.mUtilization,
+                   report.mUtilization > 0.5);
+
+        // Each Palantir is used 100 times for at least 1 ms, so the
+        // simulation can't finish in less than 100 ms.
+        assertTrue(report.mElapsedNanos >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+}
@@ -14,7 +14,9 @@ public class BarrierTaskGangTest {
     enum TestsToRun {
         COUNTDOWNLATCH,
         CYCLIC_BARRIER,
-        PHASER
+        TIERED_PHASER,
+        PHASER,
+        ELASTIC_PHASER
     }
 
     /**
@@ -87,9 +89,17 @@ public class BarrierTaskGangTest {
         case CYCLIC_BARRIER:
             return new CyclicSearchWithCyclicBarrier(wordList,
                                                      mFixedNumberOfInputStrings);
+        case TIERED_PHASER:
+            // Use a small fan-out so even this input builds a tree.
+            return new CyclicSearchWithTieredPhaser(wordList,
+                                                    mFixedNumberOfInputStrings,
+                                                    4);
         case PHASER:
             return new CyclicSearchWithPhaser(wordList,
                                               mVariableNumberOfInputStrings);
+        case ELASTIC_PHASER:
+            return new ElasticSearchWithPhaser(wordList,
+                                               mVariableNumberOfInputStrings);
         }
         return null;
     }
@@ -0,0 +1,157 @@
+import java.util.concurrent.Phaser;
+
+/**
+ * @class CyclicSearchWithTieredPhaser
+ *
+ * @brief Customizes the SearchTaskGangCommon framework with a tree of
+ *        tiered Phasers to continue searching a fixed number of input
+ *        Strings via a fixed number of Threads until there's no more
+ *        input to process.  Each Thread only arrives at the leaf
+ *        Phaser that covers its index, so arrivals contend with at
+ *        most @code mFanOut - 1 other Threads rather than with the
+ *        whole gang, as they do with a single flat CyclicBarrier or
+ *        Phaser.  A leaf only arrives at its parent once all of its
+ *        own parties have arrived, and so on up to the root.
+ */
+public class CyclicSearchWithTieredPhaser
+             extends SearchTaskGangCommonCyclic {
+    /**
+     * Default maximum number of parties registered with each Phaser
+     * in the tree.
+     */
+    static final int DEFAULT_FAN_OUT = 16;
+
+    /**
+     * Maximum number of parties registered with each Phaser in the
+     * tree.  A fan-out that's at least as large as the input List
+     * yields a single flat Phaser.
+     */
+    protected final int mFanOut;
+
+    /**
+     * The root of the tree, whose onAdvance() hook gets the next List
+     * of input data (if any).
+     */
+    protected Phaser mRoot;
+
+    /**
+     * The leaves of the tree, where the Thread processing index @code
+     * i arrives at @code mLeaves[i / mFanOut].
+     */
+    protected Phaser[] mLeaves;
+
+    /**
+     * Constructor initializes the superclass using the default
+     * fan-out.
+     */
+    CyclicSearchWithTieredPhaser(String[] wordsToFind,
+                                 String[][] stringsToSearch) {
+        this(wordsToFind,
+             stringsToSearch,
+             DEFAULT_FAN_OUT);
+    }
+
+    /**
+     * Constructor initializes the data members and superclass.
+     */
+    CyclicSearchWithTieredPhaser(String[] wordsToFind,
+                                 String[][] stringsToSearch,
+                                 int fanOut) {
+        // Pass input to superclass constructor.
+        super(wordsToFind,
+              stringsToSearch);
+
+        if (fanOut < 2)
+            throw new IllegalArgumentException("fanOut must be at least 2");
+        mFanOut = fanOut;
+    }
+
+    /**
+     * Hook method invoked by initiateTaskGang() to build the tree of
+     * Phasers before the Threads in the gang are spawned.
+     */
+    @Override
+    protected void initiateHook(int size) {
+        // Create the root, whose onAdvance() hook plays the same role
+        // as the barrier action in CyclicSearchWithCyclicBarrier.
+        mRoot = new Phaser() {
+            protected boolean onAdvance(int phase,
+                                        int registeredParties) {
+                // Returning true terminates the whole tree.
+                if (setInput(getNextInput()) == null)
+                    return true;
+
+                BarrierTaskGangTest.printDebugging
+                    ("@@@@@ Started cycle "
+                     + currentCycle()
+                     + " @@@@@");
+                return false;
+            }
+        };
+
+        mLeaves = makeLeaves(mRoot, size);
+
+        // Register each Thread with the leaf that covers its index.
+        // A child Phaser registers itself with its parent when its
+        // first party is registered.
+        for (int i = 0; i < mLeaves.length; ++i)
+            mLeaves[i].bulkRegister(Math.min(mFanOut,
+                                             size - i * mFanOut));
+
+        BarrierTaskGangTest.printDebugging
+            ("@@@@@ Started cycle 1 with "
+             + size
+             + " Thread"
+             + (size == 1 ? "" : "s")
+             + " and "
+             + mLeaves.length
+             + " leaf Phaser"
+             + (mLeaves.length == 1 ? "" : "s")
+             + " @@@@@");
+    }
+
+    /**
+     * Build the tiers of the tree from @code root downwards and return
+     * the leaves, each of which has at most @code mFanOut of the
+     * @code size parties registered with it.
+     */
+    private Phaser[] makeLeaves(Phaser root, int size) {
+        // Compute how many Phasers are needed in each tier, starting
+        // with the leaves and ending with the single root.
+        int tiers = 1;
+        for (int n = size; n > mFanOut; n = ceilDiv(n, mFanOut))
+            ++tiers;
+
+        Phaser[] tier = { root };
+        for (int t = tiers - 1; t > 0; --t) {
+            // The number of children in the next tier down is the
+            // number of Phasers needed to cover the parties below it.
+            int children = size;
+            for (int i = 0; i < t; ++i)
+                children = ceilDiv(children, mFanOut);
+
+            Phaser[] next = new Phaser[children];
+            for (int i = 0; i < children; ++i)
+                next[i] = new Phaser(tier[i / mFanOut]);
+            tier = next;
+        }
+        return tier;
+    }
+
+    /**
+     * Returns @code n / d rounded up.
+     */
+    private static int ceilDiv(int n, int d) {
+        return (n + d - 1) / d;
+    }
+
+    /**
+     * Each Thread in the gang arrives at its leaf Phaser and waits
+     * for all the other Threads in the tree to complete their current
+     * cycle.
+     */
+    @Override
+    protected void taskDone(int index) throws IndexOutOfBoundsException {
+        mLeaves[index / mFanOut].arriveAndAwaitAdvance();
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+
+/**
+ * @class ElasticSearchWithPhaser
+ *
+ * @brief Customizes the SearchTaskGangCommon framework with a Phaser
+ *        to continue searching a variable number of words
+ *        concurrently until there's no more input to process.  Unlike
+ *        CyclicSearchWithPhaser, which starts a new Thread for each
+ *        added input element and uses an extra CyclicBarrier and an
+ *        IndexOutOfBoundsException to reconfigure the gang, this
+ *        implementation runs its tasks in a pooled ExecutorService
+ *        and resizes the gang simply by registering and deregistering
+ *        parties with the Phaser.
+ */
+public class ElasticSearchWithPhaser
+             extends SearchTaskGangCommonCyclic {
+    /**
+     * The barrier that's used to coordinate each cycle, i.e., each
+     * task must await on mPhaser for all the other tasks to complete
+     * their processing before they all attempt to move to the next
+     * cycle en masse.
+     */
+    protected final Phaser mPhaser;
+
+    /**
+     * The change in the size of the input List for the current
+     * cycle, which is computed by the Phaser's onAdvance() hook.
+     */
+    volatile int mReconfiguration;
+
+    /**
+     * Constructor initializes the data members and superclass.
+     */
+    ElasticSearchWithPhaser(String[] wordsToFind,
+                            String[][] stringsToSearch) {
+        // Pass input to superclass constructor.
+        super(wordsToFind,
+              stringsToSearch);
+
+        // Run the tasks in a pool whose Threads are reused when the
+        // gang shrinks and grows again.  A cached pool is needed
+        // since every task blocks on the Phaser until all the others
+        // arrive.
+        setExecutor(Executors.newCachedThreadPool());
+
+        // Create a Phaser whose onAdvance() hook fetches the next
+        // input and records how much the gang must grow or shrink.
+        mPhaser = new Phaser() {
+            protected boolean onAdvance(int phase,
+                                        int registeredParties) {
+                // Record the size of the previous input List.
+                int prevSize = getInput().size();
+
+                // Get the new input Strings to process and bail out
+                // if there's no input or no registered parties.
+                if (setInput(getNextInput()) == null
+                    || registeredParties == 0)
+                    return true;
+
+                int newSize = getInput().size();
+                mReconfiguration = newSize - prevSize;
+
+                BarrierTaskGangTest.printDebugging("@@@@@ Started cycle "
+                                                   + currentCycle()
+                                                   + " with "
+                                                   + newSize
+                                                   + " vs "
+                                                   + prevSize
+                                                   + " tasks @@@@@");
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Hook method called back by initiateTaskGang() to perform custom
+     * initializations before the tasks in the gang are spawned.
+     */
+    @Override
+    protected void initiateHook(int size) {
+        BarrierTaskGangTest.printDebugging
+            ("@@@@@ Started cycle 1 with "
+             + size
+             + " task"
+             + (size == 1 ? "" : "s")
+             + " @@@@@");
+    }
+
+    /**
+     * Hook method that initiates the gang of tasks by registering a
+     * party for each one and running it in the Executor's pool.
+     */
+    @Override
+    protected void initiateTaskGang(int size) {
+        initiateHook(size);
+
+        // Register all the parties up front so no task can advance
+        // the Phaser before the others have been started.
+        mPhaser.bulkRegister(size);
+
+        for (int i = 0; i < size; ++i)
+            getExecutor().execute(makeTask(i));
+    }
+
+    /**
+     * Factory method that creates a Runnable task that processes the
+     * element of the input List at location @code index each cycle
+     * until it's retired or there's no more input.
+     */
+    @Override
+    protected Runnable makeTask(final int index) {
+        return () -> {
+            do {
+                // Process the input data element associated with this
+                // index.
+                if (!processInput(getInput().get(index)))
+                    return;
+            } while (awaitNextCycle(index));
+        };
+    }
+
+    /**
+     * Wait for all the other tasks to complete the current cycle and
+     * then apply any change in the size of the gang.  Returns true if
+     * the task at @code index should process the next cycle, else
+     * false.
+     */
+    protected boolean awaitNextCycle(int index) {
+        // Wait until all other tasks are done with this cycle.
+        mPhaser.arriveAndAwaitAdvance();
+
+        // If the Phaser terminated then there's no more input, so
+        // release the exit barrier.  The last task to arrive isn't
+        // told about termination by arriveAndAwaitAdvance(), so
+        // check for it explicitly.
+        if (mPhaser.isTerminated()) {
+            mExitBarrier.countDown();
+            return false;
+        }
+
+        int reconfiguration = mReconfiguration;
+
+        if (reconfiguration > 0 && index == 0) {
+            // The first task grows the gang.  Registering the new
+            // parties before this task arrives again ensures the
+            // current phase can't advance without them.
+            int newSize = getInput().size();
+            mPhaser.bulkRegister(reconfiguration);
+
+            for (int i = newSize - reconfiguration; i < newSize; ++i)
+                getExecutor().execute(makeTask(i));
+        } else if (index >= getInput().size()) {
+            // This task is no longer needed, so remove it from the
+            // parties that will wait on the Phaser and return its
+            // Thread to the pool.
+            mPhaser.arriveAndDeregister();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Hook method that waits for the gang of tasks to exit and then
+     * shuts down the Executor's pool.
+     */
+    @Override
+    protected void awaitTasksDone() {
+        super.awaitTasksDone();
+        ((ExecutorService) getExecutor()).shutdown();
+    }
+}
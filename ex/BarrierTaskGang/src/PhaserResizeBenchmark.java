@@ -0,0 +1,94 @@
+/**
+ * @class PhaserResizeBenchmark
+ *
+ * @brief Measures the cost of resizing the gang of tasks in
+ *        ElasticSearchWithPhaser.  Each cycle size is run twice: once
+ *        with input whose size never changes and once with input that
+ *        alternates between a full and a half-sized List, so every
+ *        cycle requires the gang to grow or shrink.  An empty list of
+ *        words to find is used so the elapsed time is dominated by
+ *        the overhead of advancing and reconfiguring the gang.
+ *
+ *        CyclicSearchWithPhaser isn't included since its
+ *        reconfiguration protocol can hang when the size changes on
+ *        every cycle.
+ */
+public class PhaserResizeBenchmark {
+    /**
+     * Number of cycles to run in each measurement.
+     */
+    private static final int CYCLES = 200;
+
+    /**
+     * Number of times each measurement is repeated to warm up the
+     * JIT compiler before the final measurement is taken.
+     */
+    private static final int WARMUP_RUNS = 2;
+
+    /**
+     * Largest size of the input processed in each cycle.
+     */
+    private static final int[] CYCLE_SIZES = {4, 16, 64, 256};
+
+    /**
+     * Create @code cycles cycles of input.  If @code resize is true
+     * the cycles alternate between @code size and @code size / 2
+     * Strings, otherwise they all contain @code size Strings.
+     */
+    private static String[][] makeInput(int cycles,
+                                        int size,
+                                        boolean resize) {
+        String[][] input = new String[cycles][];
+
+        for (int c = 0; c < cycles; ++c) {
+            input[c] = new String[resize && c % 2 != 0 ? size / 2 : size];
+            for (int i = 0; i < input[c].length; ++i)
+                input[c][i] = "x";
+        }
+        return input;
+    }
+
+    /**
+     * Run the gang to completion and return the elapsed time in
+     * nanoseconds.
+     */
+    private static long timeGang(String[][] input) {
+        long start = System.nanoTime();
+        new ElasticSearchWithPhaser(new String[0], input).run();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * This is the entry point into the benchmark program.
+     */
+    public static void main(String[] args) {
+        // Keep the per-cycle diagnostics out of the measurements.
+        BarrierTaskGangTest.diagnosticsEnabled = false;
+
+        System.out.println("Starting PhaserResizeBenchmark ("
+                           + CYCLES
+                           + " cycles per run)");
+
+        for (int size : CYCLE_SIZES) {
+            long[] elapsed = new long[2];
+
+            for (int r = 0; r < elapsed.length; ++r) {
+                String[][] input = makeInput(CYCLES, size, r == 1);
+
+                for (int i = 0; i < WARMUP_RUNS; ++i)
+                    timeGang(input);
+
+                elapsed[r] = timeGang(input);
+            }
+
+            System.out.printf("size %3d: fixed %8.2f us/cycle,"
+                              + " resizing to %3d %8.2f us/cycle%n",
+                              size,
+                              elapsed[0] / 1000.0 / CYCLES,
+                              size / 2,
+                              elapsed[1] / 1000.0 / CYCLES);
+        }
+
+        System.out.println("Ending PhaserResizeBenchmark");
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * @class TieredPhaserBenchmark
+ *
+ * @brief Compares how the flat and tiered barrier synchronizers
+ *        scale as the number of parties in the gang grows.  An empty
+ *        list of words to find is used so the elapsed time is
+ *        dominated by the cost of every Thread arriving at the
+ *        barrier and waiting for the next cycle.
+ */
+public class TieredPhaserBenchmark {
+    /**
+     * Number of cycles to run in each measurement.
+     */
+    private static final int CYCLES = 100;
+
+    /**
+     * Number of parties (i.e., Threads) in the gang.
+     */
+    private static final int[] GANG_SIZES = {8, 100, 1000, 10000};
+
+    /**
+     * Fan-out used by the tiered variant.
+     */
+    private static final int FAN_OUT =
+        CyclicSearchWithTieredPhaser.DEFAULT_FAN_OUT;
+
+    /**
+     * Enumerate the barriers to compare.
+     */
+    enum BarriersToRun {
+        FLAT_CYCLIC_BARRIER,
+        FLAT_PHASER,
+        TIERED_PHASER
+    }
+
+    /**
+     * Create @code cycles cycles of input, each containing @code size
+     * Strings.
+     */
+    private static String[][] makeInput(int cycles, int size) {
+        String[][] input = new String[cycles][size];
+
+        for (int c = 0; c < cycles; ++c)
+            for (int i = 0; i < size; ++i)
+                input[c][i] = "x";
+        return input;
+    }
+
+    /**
+     * Factory method that creates the desired type of gang.
+     */
+    private static Runnable makeTaskGang(BarriersToRun choice,
+                                         String[][] input) {
+        switch(choice) {
+        case FLAT_CYCLIC_BARRIER:
+            return new CyclicSearchWithCyclicBarrier(new String[0], input);
+        case FLAT_PHASER:
+            // A fan-out as large as the input yields a single Phaser.
+            return new CyclicSearchWithTieredPhaser(new String[0],
+                                                    input,
+                                                    input[0].length + 1);
+        case TIERED_PHASER:
+            return new CyclicSearchWithTieredPhaser(new String[0],
+                                                    input,
+                                                    FAN_OUT);
+        }
+        return null;
+    }
+
+    /**
+     * This is the entry point into the benchmark program.
+     */
+    public static void main(String[] args) {
+        // Keep the per-cycle diagnostics out of the measurements.
+        BarrierTaskGangTest.diagnosticsEnabled = false;
+
+        System.out.println("Starting TieredPhaserBenchmark ("
+                           + CYCLES
+                           + " cycles per run, fan-out "
+                           + FAN_OUT
+                           + ")");
+
+        for (int size : GANG_SIZES) {
+            String[][] input = makeInput(CYCLES, size);
+
+            for (BarriersToRun barrier : BarriersToRun.values()) {
+                // Warm up once before taking the measurement.
+                makeTaskGang(barrier, input).run();
+
+                long start = System.nanoTime();
+                makeTaskGang(barrier, input).run();
+                long elapsed = System.nanoTime() - start;
+
+                System.out.printf("%-20s %5d parties: %10.2f us/cycle%n",
+                                  barrier,
+                                  size,
+                                  elapsed / 1000.0 / CYCLES);
+            }
+        }
+
+        System.out.println("Ending TieredPhaserBenchmark");
+    }
+}
@@ -0,0 +1,18 @@
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * @class BatchBlockingQueue
+ *
+ * @brief Extends the BlockingQueue interface with a batched producer
+ *        operation.  Together with drainTo() on the consumer side it
+ *        allows many elements to be transferred per lock acquisition
+ *        rather than one.
+ */
+interface BatchBlockingQueue<E> extends BlockingQueue<E> {
+    /**
+     * Add all the elements in @code c to the end of the queue in
+     * order, blocking if necessary for space to become available.
+     */
+    void putAll(Collection<? extends E> c) throws InterruptedException;
+}
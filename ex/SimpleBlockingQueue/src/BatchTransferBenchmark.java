@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @class BatchTransferBenchmark
+ *
+ * @brief Compares the throughput of handing elements from a producer
+ *        Thread to a consumer Thread one at a time via put()/take()
+ *        with handing them off in batches via putAll()/drainTo() at
+ *        various batch sizes.
+ */
+public class BatchTransferBenchmark {
+    /**
+     * Number of elements transferred in each measurement.
+     */
+    private static final int ELEMENTS = 1000000;
+
+    /**
+     * Capacity of the queues.
+     */
+    private static final int CAPACITY = 1024;
+
+    /**
+     * Number of elements per batch, where 1 means put()/take().
+     */
+    private static final int[] BATCH_SIZES = {1, 4, 16, 64, 256};
+
+    /**
+     * Enumerate the queues to compare.
+     */
+    enum QueuesToRun {
+        SIMPLE_BLOCKING_QUEUE,
+        CIRCULAR_ARRAY_BLOCKING_QUEUE
+    }
+
+    /**
+     * Factory method that creates the desired type of queue.
+     */
+    private static BatchBlockingQueue<Integer> makeQueue(QueuesToRun choice) {
+        switch(choice) {
+        case SIMPLE_BLOCKING_QUEUE:
+            return new SimpleBlockingQueue<Integer>(CAPACITY);
+        case CIRCULAR_ARRAY_BLOCKING_QUEUE:
+            return new CircularArrayBlockingQueue<Integer>(CAPACITY);
+        }
+        return null;
+    }
+
+    /**
+     * Transfer ELEMENTS elements from a producer Thread to a consumer
+     * Thread in batches of @code batchSize and return the number of
+     * elements transferred per second.
+     */
+    private static double measure(final BatchBlockingQueue<Integer> queue,
+                                  final int batchSize)
+        throws InterruptedException {
+        Thread producer = new Thread() {
+                public void run() {
+                    try {
+                        List<Integer> batch =
+                            new ArrayList<Integer>(batchSize);
+
+                        for (int i = 0; i < ELEMENTS; ) {
+                            if (batchSize == 1)
+                                queue.put(i++);
+                            else {
+                                batch.clear();
+                                while (batch.size() < batchSize
+                                       && i < ELEMENTS)
+                                    batch.add(i++);
+                                queue.putAll(batch);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        System.out.println("InterruptedException caught");
+                    }
+                }
+            };
+
+        Thread consumer = new Thread() {
+                public void run() {
+                    try {
+                        List<Integer> batch =
+                            new ArrayList<Integer>(batchSize);
+
+                        for (int i = 0; i < ELEMENTS; ) {
+                            // Block until at least one element is
+                            // available.
+                            queue.take();
+                            ++i;
+
+                            if (batchSize > 1) {
+                                // Then grab the rest of the batch
+                                // that's already there.
+                                batch.clear();
+                                i += queue.drainTo(batch,
+                                                   Math.min(batchSize - 1,
+                                                            ELEMENTS - i));
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        System.out.println("InterruptedException caught");
+                    }
+                }
+            };
+
+        long start = System.nanoTime();
+        producer.start();
+        consumer.start();
+        producer.join();
+        consumer.join();
+        return ELEMENTS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * This is the entry point into the benchmark program.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Starting BatchTransferBenchmark ("
+                           + ELEMENTS
+                           + " elements, capacity "
+                           + CAPACITY
+                           + ")");
+
+        for (QueuesToRun choice : QueuesToRun.values())
+            for (int batchSize : BATCH_SIZES) {
+                // Warm up once before taking the measurement.
+                measure(makeQueue(choice), batchSize);
+
+                System.out.printf("%-30s batch %3d: %12.0f elements/s%n",
+                                  choice,
+                                  batchSize,
+                                  measure(makeQueue(choice), batchSize));
+            }
+
+        System.out.println("Ending BatchTransferBenchmark");
+    }
+}
@@ -0,0 +1,494 @@
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @class CircularArrayBlockingQueue
+ *
+ * @brief Defines a complete bounded implementation of the
+ *        BlockingQueue interface that stores its elements in a
+ *        circular array.  Unlike SimpleBlockingQueue, which removes
+ *        from the front of an ArrayList (an O(n) shift) and uses a
+ *        single monitor whose notifyAll() wakes every waiting producer
+ *        and consumer, this queue inserts and removes in O(1) and uses
+ *        a ReentrantLock with separate "not full" and "not empty"
+ *        Conditions, so each operation wakes at most one Thread that
+ *        can actually make progress.
+ */
+class CircularArrayBlockingQueue<E>
+      extends AbstractQueue<E>
+      implements BatchBlockingQueue<E> {
+    /**
+     * The circular array that holds the elements in the queue.
+     */
+    private final Object[] mItems;
+
+    /**
+     * Index of the next element to take, poll, peek, or remove.
+     */
+    private int mTakeIndex;
+
+    /**
+     * Index of the next slot to put, offer, or add into.
+     */
+    private int mPutIndex;
+
+    /**
+     * Number of elements in the queue.
+     */
+    private int mCount;
+
+    /**
+     * Lock that guards all access to the queue's state.
+     */
+    private final ReentrantLock mLock = new ReentrantLock();
+
+    /**
+     * Condition that consumers wait on while the queue is empty.
+     */
+    private final Condition mNotEmpty = mLock.newCondition();
+
+    /**
+     * Condition that producers wait on while the queue is full.
+     */
+    private final Condition mNotFull = mLock.newCondition();
+
+    /**
+     * Create a CircularArrayBlockingQueue with the given capacity.
+     */
+    public CircularArrayBlockingQueue(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException();
+        mItems = new Object[capacity];
+    }
+
+    /**
+     * Return the index that follows @code i in the circular array.
+     */
+    private int inc(int i) {
+        return ++i == mItems.length ? 0 : i;
+    }
+
+    /**
+     * Insert @code e at the put index and wake up one consumer.
+     * Assumes the lock is held and the queue isn't full.
+     */
+    private void enqueue(E e) {
+        mItems[mPutIndex] = e;
+        mPutIndex = inc(mPutIndex);
+        mCount++;
+        mNotEmpty.signal();
+    }
+
+    /**
+     * Remove and return the element at the take index and wake up
+     * one producer.  Assumes the lock is held and the queue isn't
+     * empty.
+     */
+    private E dequeue() {
+        @SuppressWarnings("unchecked")
+        E e = (E) mItems[mTakeIndex];
+        mItems[mTakeIndex] = null;
+        mTakeIndex = inc(mTakeIndex);
+        mCount--;
+        mNotFull.signal();
+        return e;
+    }
+
+    /**
+     * Remove the element at @code removeIndex by shifting all the
+     * elements after it down by one.  Assumes the lock is held.
+     */
+    private void removeAt(int removeIndex) {
+        if (removeIndex == mTakeIndex) {
+            dequeue();
+            return;
+        }
+
+        // Slide over all the elements between removeIndex and the
+        // put index.
+        for (int i = removeIndex;;) {
+            int next = inc(i);
+            if (next == mPutIndex) {
+                mItems[i] = null;
+                mPutIndex = i;
+                break;
+            }
+            mItems[i] = mItems[next];
+            i = next;
+        }
+        mCount--;
+        mNotFull.signal();
+    }
+
+    /**
+     * Throw NullPointerException if @code e is null.
+     */
+    private static void checkNotNull(Object e) {
+        if (e == null)
+            throw new NullPointerException();
+    }
+
+    /**
+     * Add a new E to the end of the queue, blocking if necessary for
+     * space to become available.
+     */
+    public void put(E e) throws InterruptedException {
+        checkNotNull(e);
+        mLock.lockInterruptibly();
+        try {
+            // Wait until the queue is not full.
+            while (mCount == mItems.length)
+                mNotFull.await();
+            enqueue(e);
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Add all the elements in @code c to the end of the queue in
+     * order, blocking if necessary for space to become available.
+     * Rather than acquiring the lock once per element, this method
+     * adds as many elements as fit each time it holds the lock.
+     * Throws NullPointerException if any element is null, in which
+     * case none of them are added.
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+
+        // Check the whole batch before adding any of it.
+        Object[] elements = c.toArray();
+        for (Object e : elements)
+            checkNotNull(e);
+
+        mLock.lockInterruptibly();
+        try {
+            int i = 0;
+            while (i < elements.length) {
+                // Wait until the queue is not full.
+                while (mCount == mItems.length)
+                    mNotFull.await();
+
+                // Add as many elements as there's room for, waking up
+                // one consumer for each of them.
+                do {
+                    enqueue((E) elements[i++]);
+                } while (mCount < mItems.length && i < elements.length);
+            }
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Add a new E to the end of the queue if there's space, returning
+     * true if it was added, else false.
+     */
+    public boolean offer(E e) {
+        checkNotNull(e);
+        mLock.lock();
+        try {
+            if (mCount == mItems.length)
+                return false;
+            enqueue(e);
+            return true;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Add a new E to the end of the queue, waiting up to the given
+     * timeout for space to become available.  Returns false if the
+     * timeout elapsed first.
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkNotNull(e);
+        long nanos = unit.toNanos(timeout);
+        mLock.lockInterruptibly();
+        try {
+            while (mCount == mItems.length) {
+                if (nanos <= 0)
+                    return false;
+                nanos = mNotFull.awaitNanos(nanos);
+            }
+            enqueue(e);
+            return true;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Remove the E at the front of the queue, blocking until there's
+     * something in the queue.
+     */
+    public E take() throws InterruptedException {
+        mLock.lockInterruptibly();
+        try {
+            // Wait until the queue is not empty.
+            while (mCount == 0)
+                mNotEmpty.await();
+            return dequeue();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Remove the E at the front of the queue, returning null if the
+     * queue is empty.
+     */
+    public E poll() {
+        mLock.lock();
+        try {
+            return mCount == 0 ? null : dequeue();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Remove the E at the front of the queue, waiting up to the given
+     * timeout for an element to become available.  Returns null if
+     * the timeout elapsed first.
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        mLock.lockInterruptibly();
+        try {
+            while (mCount == 0) {
+                if (nanos <= 0)
+                    return null;
+                nanos = mNotEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Return the E at the front of the queue without removing it, or
+     * null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        mLock.lock();
+        try {
+            return (E) mItems[mTakeIndex];
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of elements in this queue.
+     */
+    public int size() {
+        mLock.lock();
+        try {
+            return mCount;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of additional elements this queue can accept
+     * without blocking.
+     */
+    public int remainingCapacity() {
+        mLock.lock();
+        try {
+            return mItems.length - mCount;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Remove all the available elements from the queue and add them
+     * to @code c.
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Remove up to @code maxElements available elements from the
+     * queue and add them to @code c, all while holding the lock just
+     * once.  Returns the number of elements transferred.
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+
+        mLock.lock();
+        try {
+            int n = Math.min(maxElements, mCount);
+            int i = 0;
+            try {
+                for (; i < n; ++i) {
+                    @SuppressWarnings("unchecked")
+                    E e = (E) mItems[mTakeIndex];
+                    c.add(e);
+                    mItems[mTakeIndex] = null;
+                    mTakeIndex = inc(mTakeIndex);
+                }
+            } finally {
+                // Account for the elements that were transferred,
+                // even if c.add() threw, and wake up one producer for
+                // each slot that was freed.
+                mCount -= i;
+                for (int k = 0; k < i && mLock.hasWaiters(mNotFull); ++k)
+                    mNotFull.signal();
+            }
+            return n;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns true if the queue contains @code o, else false.
+     */
+    public boolean contains(Object o) {
+        if (o == null)
+            return false;
+        mLock.lock();
+        try {
+            for (int i = mTakeIndex, k = 0; k < mCount; i = inc(i), ++k)
+                if (o.equals(mItems[i]))
+                    return true;
+            return false;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Remove a single instance of @code o from the queue, returning
+     * true if it was found, else false.
+     */
+    public boolean remove(Object o) {
+        if (o == null)
+            return false;
+        mLock.lock();
+        try {
+            for (int i = mTakeIndex, k = 0; k < mCount; i = inc(i), ++k)
+                if (o.equals(mItems[i])) {
+                    removeAt(i);
+                    return true;
+                }
+            return false;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Remove all the elements from the queue.
+     */
+    public void clear() {
+        mLock.lock();
+        try {
+            for (int k = 0; k < mCount; ++k) {
+                mItems[mTakeIndex] = null;
+                mTakeIndex = inc(mTakeIndex);
+            }
+            int removed = mCount;
+            mCount = 0;
+            mPutIndex = mTakeIndex;
+            for (int k = 0; k < removed && mLock.hasWaiters(mNotFull); ++k)
+                mNotFull.signal();
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns an array containing the elements in the queue in FIFO
+     * order.
+     */
+    public Object[] toArray() {
+        mLock.lock();
+        try {
+            Object[] a = new Object[mCount];
+            for (int i = mTakeIndex, k = 0; k < mCount; i = inc(i), ++k)
+                a[k] = mItems[i];
+            return a;
+        } finally {
+            mLock.unlock();
+        }
+    }
+
+    /**
+     * Returns an Iterator over a snapshot of the elements in the
+     * queue, in FIFO order.  The Iterator never throws
+     * ConcurrentModificationException and its remove() method removes
+     * the last element returned if it's still in the queue.
+     */
+    public Iterator<E> iterator() {
+        final Object[] snapshot = toArray();
+
+        return new Iterator<E>() {
+            /**
+             * Index of the next element to return.
+             */
+            private int mNext = 0;
+
+            /**
+             * The last element returned, or null if there isn't one.
+             */
+            private Object mLast = null;
+
+            public boolean hasNext() {
+                return mNext < snapshot.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return (E) (mLast = snapshot[mNext++]);
+            }
+
+            public void remove() {
+                if (mLast == null)
+                    throw new IllegalStateException();
+                removeIdentical(mLast);
+                mLast = null;
+            }
+        };
+    }
+
+    /**
+     * Remove the element that's identical to @code o (if any) from
+     * the queue.
+     */
+    private void removeIdentical(Object o) {
+        mLock.lock();
+        try {
+            for (int i = mTakeIndex, k = 0; k < mCount; i = inc(i), ++k)
+                if (mItems[i] == o) {
+                    removeAt(i);
+                    return;
+                }
+        } finally {
+            mLock.unlock();
+        }
+    }
+}
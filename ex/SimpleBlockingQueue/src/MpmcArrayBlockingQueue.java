@@ -0,0 +1,519 @@
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @class MpmcArrayBlockingQueue
+ *
+ * @brief Defines a lock-free bounded multi-producer/multi-consumer
+ *        implementation of the BlockingQueue interface, based on
+ *        Dmitry Vyukov's bounded MPMC queue.  Each slot in a circular
+ *        array has a sequence number that tells producers and
+ *        consumers whether the slot is ready for them, so offer() and
+ *        poll() need just one compareAndSet() on the shared enqueue or
+ *        dequeue position, and producers and consumers never contend
+ *        with each other unless the queue is empty or full.
+ *
+ *        Since there are no locks there are no Conditions to wait on,
+ *        so the blocking operations first spin, then yield, and
+ *        finally park for short periods until they can make progress.
+ *
+ *        The iterator is weakly consistent: it walks the slots between
+ *        the dequeue and enqueue positions at the time it was created,
+ *        skipping any that consumers have since emptied, and never
+ *        throws ConcurrentModificationException.  Removing an element
+ *        from the middle of the queue, with remove(Object) or the
+ *        iterator, replaces it with a marker that consumers skip, so
+ *        its slot isn't free for producers until it reaches the front
+ *        of the queue.
+ */
+class MpmcArrayBlockingQueue<E>
+      extends AbstractQueue<E>
+      implements BlockingQueue<E> {
+    /**
+     * Number of times a blocking operation retries before it starts
+     * yielding.
+     */
+    private static final int SPIN_TRIES = 100;
+
+    /**
+     * Number of times a blocking operation yields before it starts
+     * parking.
+     */
+    private static final int YIELD_TRIES = 10;
+
+    /**
+     * How long a blocking operation parks between retries.
+     */
+    private static final long PARK_NANOS = 50000;
+
+    /**
+     * Marks a slot whose element was removed from the middle of the
+     * queue.
+     */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * The circular array that holds the elements in the queue.  A
+     * slot is only read after its sequence number shows it's been
+     * written, but removing an element races with consumers, so each
+     * slot is changed atomically.
+     */
+    private final AtomicReferenceArray<Object> mItems;
+
+    /**
+     * Sequence number of each slot.  Slot i is ready for the producer
+     * at position p when its sequence is p, and ready for the
+     * consumer at position p when its sequence is p + 1.
+     */
+    private final AtomicLongArray mSequences;
+
+    /**
+     * Used to map a position to a slot, since the capacity is a power
+     * of two.
+     */
+    private final int mMask;
+
+    /**
+     * The maximum number of elements the queue can hold, which may be
+     * smaller than the size of the array.
+     */
+    private final int mCapacity;
+
+    /**
+     * Position of the next element to be added.
+     */
+    private final AtomicLong mEnqueuePos = new AtomicLong();
+
+    /**
+     * Position of the next element to be removed.
+     */
+    private final AtomicLong mDequeuePos = new AtomicLong();
+
+    /**
+     * Number of slots between the dequeue and enqueue positions whose
+     * elements were removed.
+     */
+    private final AtomicLong mRemoved = new AtomicLong();
+
+    /**
+     * Create an MpmcArrayBlockingQueue with the given capacity.
+     */
+    public MpmcArrayBlockingQueue(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30))
+            throw new IllegalArgumentException();
+        mCapacity = capacity;
+
+        // Round the size of the array up to a power of two.
+        int size = 1;
+        while (size < capacity)
+            size <<= 1;
+
+        mItems = new AtomicReferenceArray<Object>(size);
+        mMask = size - 1;
+        mSequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; ++i)
+            mSequences.set(i, i);
+    }
+
+    /**
+     * Add a new E to the end of the queue if there's space, returning
+     * true if it was added, else false.
+     */
+    public boolean offer(E e) {
+        if (e == null)
+            throw new NullPointerException();
+
+        for (;;) {
+            long pos = mEnqueuePos.get();
+
+            // Respect the capacity if it's smaller than the array.
+            if (pos - mDequeuePos.get() >= mCapacity) {
+                if (skipRemoved())
+                    continue;
+                return false;
+            }
+
+            int slot = (int) pos & mMask;
+            long diff = mSequences.get(slot) - pos;
+
+            if (diff == 0) {
+                // The slot is free, so try to claim it.
+                if (mEnqueuePos.compareAndSet(pos, pos + 1)) {
+                    mItems.lazySet(slot, e);
+
+                    // Publish the element to consumers.
+                    mSequences.lazySet(slot, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // The slot still holds an element from the previous
+                // lap, so the queue is full, unless the element at the
+                // front was removed.
+                if (skipRemoved())
+                    continue;
+                return false;
+            }
+
+            // Otherwise another producer claimed this position, so
+            // try again.
+        }
+    }
+
+    /**
+     * Remove the E at the front of the queue, returning null if the
+     * queue is empty.
+     */
+    public E poll() {
+        for (;;) {
+            long pos = mDequeuePos.get();
+            int slot = (int) pos & mMask;
+            long diff = mSequences.get(slot) - (pos + 1);
+
+            if (diff == 0) {
+                // The slot holds an element, so try to claim it.
+                if (mDequeuePos.compareAndSet(pos, pos + 1)) {
+                    Object item = clear(pos, slot);
+
+                    // Skip elements that were removed.
+                    if (item != REMOVED) {
+                        @SuppressWarnings("unchecked")
+                        E e = (E) item;
+                        return e;
+                    }
+                    continue;
+                }
+            } else if (diff < 0)
+                // Nothing has been published to this slot yet, so the
+                // queue is empty.
+                return null;
+
+            // Otherwise another consumer claimed this position, so
+            // try again.
+        }
+    }
+
+    /**
+     * Return the E at the front of the queue without removing it, or
+     * null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        for (;;) {
+            long pos = mDequeuePos.get();
+            int slot = (int) pos & mMask;
+
+            if (mSequences.get(slot) != pos + 1)
+                return null;
+
+            Object item = mItems.get(slot);
+
+            // Only return the item if it wasn't polled while we read it.
+            if (mDequeuePos.get() != pos || item == null)
+                continue;
+            if (item != REMOVED)
+                return (E) item;
+            skipRemoved();
+        }
+    }
+
+    /**
+     * Empty the slot at position @code pos, which the calling Thread
+     * has claimed by advancing the dequeue position past it, and free
+     * it for the producer on the next lap.  Returns the element it
+     * held, or REMOVED if the element was removed.
+     */
+    private Object clear(long pos, int slot) {
+        Object item = mItems.getAndSet(slot, null);
+        mSequences.lazySet(slot, pos + mMask + 1);
+        if (item == REMOVED)
+            mRemoved.decrementAndGet();
+        return item;
+    }
+
+    /**
+     * If the element at the front of the queue was removed, advance
+     * the dequeue position past it so its slot can be reused.
+     * Returns true if the front of the queue held a removed element.
+     */
+    private boolean skipRemoved() {
+        long pos = mDequeuePos.get();
+        int slot = (int) pos & mMask;
+
+        if (mSequences.get(slot) != pos + 1
+            || mItems.get(slot) != REMOVED)
+            return false;
+        if (mDequeuePos.compareAndSet(pos, pos + 1))
+            clear(pos, slot);
+        return true;
+    }
+
+    /**
+     * Returns the element at position @code pos, or null if the
+     * position isn't between the dequeue and enqueue positions or its
+     * element was removed.
+     */
+    private Object itemAt(long pos) {
+        int slot = (int) pos & mMask;
+        if (mSequences.get(slot) != pos + 1)
+            return null;
+
+        Object item = mItems.get(slot);
+
+        // The slot's sequence only ever increases, so if it's
+        // unchanged the item was read before a consumer took it.
+        if (item == REMOVED || mSequences.get(slot) != pos + 1)
+            return null;
+        return item;
+    }
+
+    /**
+     * Remove @code item, which was found at position @code pos, from
+     * the middle of the queue.  Returns false if a consumer took it
+     * first.  If the slot was refilled with the same element since it
+     * was checked, that later instance is removed instead, which is
+     * still a single instance of the element.
+     */
+    private boolean removeAt(long pos, Object item) {
+        int slot = (int) pos & mMask;
+        if (mSequences.get(slot) != pos + 1
+            || !mItems.compareAndSet(slot, item, REMOVED))
+            return false;
+        mRemoved.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Wait a bit before retrying a blocking operation that's tried
+     * and failed @code tries times.  Throws InterruptedException if
+     * the calling Thread is interrupted.
+     */
+    private static void backOff(int tries) throws InterruptedException {
+        if (tries < SPIN_TRIES)
+            // Just spin.
+            ;
+        else if (tries < SPIN_TRIES + YIELD_TRIES)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(PARK_NANOS);
+
+        if (Thread.interrupted())
+            throw new InterruptedException();
+    }
+
+    /**
+     * Add a new E to the end of the queue, blocking if necessary for
+     * space to become available.
+     */
+    public void put(E e) throws InterruptedException {
+        for (int tries = 0; !offer(e); ++tries)
+            backOff(tries);
+    }
+
+    /**
+     * Add a new E to the end of the queue, waiting up to the given
+     * timeout for space to become available.  Returns false if the
+     * timeout elapsed first.
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (int tries = 0; !offer(e); ++tries) {
+            if (System.nanoTime() - deadline >= 0)
+                return false;
+            backOff(tries);
+        }
+        return true;
+    }
+
+    /**
+     * Remove the E at the front of the queue, blocking until there's
+     * something in the queue.
+     */
+    public E take() throws InterruptedException {
+        E e;
+        for (int tries = 0; (e = poll()) == null; ++tries)
+            backOff(tries);
+        return e;
+    }
+
+    /**
+     * Remove the E at the front of the queue, waiting up to the given
+     * timeout for an element to become available.  Returns null if
+     * the timeout elapsed first.
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E e;
+
+        for (int tries = 0; (e = poll()) == null; ++tries) {
+            if (System.nanoTime() - deadline >= 0)
+                return null;
+            backOff(tries);
+        }
+        return e;
+    }
+
+    /**
+     * Returns the number of elements in this queue.  This is only an
+     * estimate if other Threads are accessing the queue concurrently.
+     */
+    public int size() {
+        return (int) Math.max(0, occupied() - mRemoved.get());
+    }
+
+    /**
+     * Returns the number of slots between the dequeue and enqueue
+     * positions, including those whose elements were removed.
+     */
+    private int occupied() {
+        for (;;) {
+            long dequeuePos = mDequeuePos.get();
+            long enqueuePos = mEnqueuePos.get();
+
+            // Retry if a consumer moved in between the two reads.
+            if (dequeuePos == mDequeuePos.get())
+                return (int) Math.max(0,
+                                      Math.min(mCapacity,
+                                               enqueuePos - dequeuePos));
+        }
+    }
+
+    /**
+     * Returns true if the queue is empty, else false.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of additional elements this queue can accept
+     * without blocking.  Slots whose elements were removed aren't
+     * counted until they reach the front of the queue.
+     */
+    public int remainingCapacity() {
+        return mCapacity - occupied();
+    }
+
+    /**
+     * Remove all the available elements from the queue and add them
+     * to @code c.
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Remove up to @code maxElements available elements from the
+     * queue and add them to @code c.  Returns the number of elements
+     * transferred.
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+
+        int n = 0;
+        for (E e; n < maxElements && (e = poll()) != null; ++n)
+            c.add(e);
+        return n;
+    }
+
+    /**
+     * Remove a single instance of @code o from the queue, returning
+     * true if it was found, else false.
+     */
+    public boolean remove(Object o) {
+        if (o == null)
+            return false;
+
+        long end = mEnqueuePos.get();
+        for (long pos = mDequeuePos.get(); pos < end; ++pos) {
+            Object item = itemAt(pos);
+            if (item != null && o.equals(item) && removeAt(pos, item))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a weakly consistent Iterator over the elements in the
+     * queue, in FIFO order.  It returns the elements that were in the
+     * queue when it was created and haven't been removed since it
+     * reached them, and its remove() method removes the last element
+     * returned if it's still in the queue.
+     */
+    public Iterator<E> iterator() {
+        final long end = mEnqueuePos.get();
+        final long start = mDequeuePos.get();
+
+        return new Iterator<E>() {
+            /**
+             * Position after the next element to return.
+             */
+            private long mPos = start;
+
+            /**
+             * The next element to return and its position, or null if
+             * there isn't one.
+             */
+            private Object mNext = advance();
+            private long mNextPos;
+
+            /**
+             * The last element returned and its position, or null if
+             * there isn't one.
+             */
+            private Object mLast = null;
+            private long mLastPos;
+
+            /**
+             * Returns the next element in the queue before @code end,
+             * skipping positions consumers have already passed, or
+             * null if there isn't one.
+             */
+            private Object advance() {
+                for (mPos = Math.max(mPos, mDequeuePos.get());
+                     mPos < end;
+                     ++mPos) {
+                    Object item = itemAt(mPos);
+                    if (item != null) {
+                        mNextPos = mPos++;
+                        return item;
+                    }
+                }
+                return null;
+            }
+
+            public boolean hasNext() {
+                return mNext != null;
+            }
+
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                mLast = mNext;
+                mLastPos = mNextPos;
+                mNext = advance();
+                return (E) mLast;
+            }
+
+            public void remove() {
+                if (mLast == null)
+                    throw new IllegalStateException();
+                removeAt(mLastPos, mLast);
+                mLast = null;
+            }
+        };
+    }
+}
@@ -0,0 +1,235 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class QueueContentionBenchmark
+ *
+ * @brief Measures how the BlockingQueue implementations in this
+ *        project and in java.util.concurrent behave under contention.
+ *        Each queue is run with 1:1, 1:N, N:1 and N:N
+ *        producer/consumer topologies at several capacities, and for
+ *        each run the benchmark reports the throughput in operations
+ *        per second, percentiles of the hand-off latency from put() to
+ *        take(), and the number of bytes allocated per operation.
+ *
+ *        Each producer puts the value of System.nanoTime() when the
+ *        element is put, which lets the consumer compute the latency
+ *        of each hand-off.  Boxing these values allocates the same
+ *        amount for every queue, so differences in allocation come
+ *        from the queues themselves.  LinkedTransferQueue is unbounded,
+ *        so its capacity is ignored.
+ */
+public class QueueContentionBenchmark {
+    /**
+     * Number of elements transferred in each run.
+     */
+    private static final int ELEMENTS = 400000;
+
+    /**
+     * Number of Threads on the "N" side of each topology.
+     */
+    private static final int N = 4;
+
+    /**
+     * The {producers, consumers} topologies to run.
+     */
+    private static final int[][] TOPOLOGIES = {
+        {1, 1}, {1, N}, {N, 1}, {N, N}
+    };
+
+    /**
+     * Capacities of the queues.
+     */
+    private static final int[] CAPACITIES = {16, 1024};
+
+    /**
+     * Enumerate the queues to compare.
+     */
+    enum QueuesToRun {
+        SIMPLE_BLOCKING_QUEUE,
+        CIRCULAR_ARRAY_BLOCKING_QUEUE,
+        MPMC_ARRAY_BLOCKING_QUEUE,
+        ARRAY_BLOCKING_QUEUE,
+        LINKED_BLOCKING_QUEUE,
+        LINKED_TRANSFER_QUEUE
+    }
+
+    /**
+     * Factory method that creates the desired type of queue.
+     */
+    private static BlockingQueue<Long> makeQueue(QueuesToRun choice,
+                                                 int capacity) {
+        switch(choice) {
+        case SIMPLE_BLOCKING_QUEUE:
+            return new SimpleBlockingQueue<Long>(capacity);
+        case CIRCULAR_ARRAY_BLOCKING_QUEUE:
+            return new CircularArrayBlockingQueue<Long>(capacity);
+        case MPMC_ARRAY_BLOCKING_QUEUE:
+            return new MpmcArrayBlockingQueue<Long>(capacity);
+        case ARRAY_BLOCKING_QUEUE:
+            return new ArrayBlockingQueue<Long>(capacity);
+        case LINKED_BLOCKING_QUEUE:
+            return new LinkedBlockingQueue<Long>(capacity);
+        case LINKED_TRANSFER_QUEUE:
+            return new LinkedTransferQueue<Long>();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the calling
+     * Thread, or -1 if the JVM can't report it.
+     */
+    private static long allocatedBytes() {
+        try {
+            return ((com.sun.management.ThreadMXBean)
+                    ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+        } catch (Throwable t) {
+            return -1;
+        }
+    }
+
+    /**
+     * Holds the results of one run.
+     */
+    static class Result {
+        double mOpsPerSecond;
+        long[] mLatencies;
+        double mBytesPerOp;
+    }
+
+    /**
+     * Run @code producers producers and @code consumers consumers
+     * over @code queue until ELEMENTS elements have been transferred.
+     */
+    private static Result run(final BlockingQueue<Long> queue,
+                              int producers,
+                              int consumers)
+        throws InterruptedException {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicLong allocated = new AtomicLong();
+        final long[][] latencies = new long[consumers][];
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (int p = 0; p < producers; ++p) {
+            final int count = ELEMENTS / producers;
+
+            threads.add(new Thread() {
+                    public void run() {
+                        try {
+                            startLatch.await();
+                            long before = allocatedBytes();
+                            for (int i = 0; i < count; ++i)
+                                queue.put(System.nanoTime());
+                            allocated.addAndGet(allocatedBytes() - before);
+                        } catch (InterruptedException e) {
+                            System.out.println("InterruptedException caught");
+                        }
+                    }
+                });
+        }
+
+        for (int c = 0; c < consumers; ++c) {
+            // Preallocate the latency samples so they aren't counted
+            // as allocations made by the queue.
+            final long[] samples = latencies[c] =
+                new long[ELEMENTS / consumers];
+
+            threads.add(new Thread() {
+                    public void run() {
+                        try {
+                            startLatch.await();
+                            long before = allocatedBytes();
+                            for (int i = 0; i < samples.length; ++i)
+                                samples[i] = System.nanoTime() - queue.take();
+                            allocated.addAndGet(allocatedBytes() - before);
+                        } catch (InterruptedException e) {
+                            System.out.println("InterruptedException caught");
+                        }
+                    }
+                });
+        }
+
+        for (Thread thread : threads)
+            thread.start();
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        for (Thread thread : threads)
+            thread.join();
+        long elapsed = System.nanoTime() - start;
+
+        Result result = new Result();
+
+        // Each element involves one put and one take.
+        result.mOpsPerSecond = 2.0 * ELEMENTS / (elapsed / 1e9);
+
+        result.mLatencies = new long[ELEMENTS];
+        int k = 0;
+        for (long[] samples : latencies) {
+            System.arraycopy(samples, 0, result.mLatencies, k, samples.length);
+            k += samples.length;
+        }
+        Arrays.sort(result.mLatencies);
+
+        result.mBytesPerOp = allocatedBytes() < 0
+            ? -1
+            : allocated.get() / (2.0 * ELEMENTS);
+        return result;
+    }
+
+    /**
+     * Return the latency at percentile @code p of the sorted @code
+     * latencies, in microseconds.
+     */
+    private static double percentile(long[] latencies, double p) {
+        int index = (int) Math.ceil(p / 100.0 * latencies.length) - 1;
+        return latencies[Math.max(0, index)] / 1000.0;
+    }
+
+    /**
+     * This is the entry point into the benchmark program.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Starting QueueContentionBenchmark ("
+                           + ELEMENTS
+                           + " elements per run)");
+        System.out.printf("%-30s %5s %8s %12s %9s %9s %9s %8s%n",
+                          "queue", "P:C", "capacity", "ops/s",
+                          "p50 us", "p99 us", "p99.9 us", "B/op");
+
+        for (int capacity : CAPACITIES)
+            for (int[] topology : TOPOLOGIES)
+                for (QueuesToRun choice : QueuesToRun.values()) {
+                    // Warm up once before taking the measurement.
+                    run(makeQueue(choice, capacity),
+                        topology[0],
+                        topology[1]);
+
+                    Result r = run(makeQueue(choice, capacity),
+                                   topology[0],
+                                   topology[1]);
+
+                    System.out.printf("%-30s %5s %8d %12.0f %9.1f %9.1f %9.1f %8.1f%n",
+                                      choice,
+                                      topology[0] + ":" + topology[1],
+                                      capacity,
+                                      r.mOpsPerSecond,
+                                      percentile(r.mLatencies, 50),
+                                      percentile(r.mLatencies, 99),
+                                      percentile(r.mLatencies, 99.9),
+                                      r.mBytesPerOp);
+                }
+
+        System.out.println("Ending QueueContentionBenchmark");
+    }
+}
@@ -3,7 +3,6 @@ import java.util.concurrent.CyclicBarrier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 /*
@@ -13,7 +12,7 @@ import java.util.concurrent.TimeUnit;
  *        that works properly when accessed via multiple threads since
  *        it's synchronized properly.
  */
-class SimpleBlockingQueue<E> implements BlockingQueue<E> {
+class SimpleBlockingQueue<E> implements BatchBlockingQueue<E> {
     /**
      * The queue consists of a List of E's.
      */
@@ -66,6 +65,46 @@ class SimpleBlockingQueue<E> implements BlockingQueue<E> {
         }
     } 
 
+    /**
+     * Add all the elements in @code c to the end of the queue in
+     * order, blocking if necessary for space to become available.
+     * Rather than acquiring the monitor lock once per element, this
+     * method adds as many elements as fit each time it holds the lock.
+     * Throws NullPointerException if any element is null, in which
+     * case none of them are added.
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+
+        // Check the whole batch before adding any of it.
+        Object[] elements = c.toArray();
+        for (Object e : elements)
+            if (e == null)
+                throw new NullPointerException();
+
+        synchronized(this) {
+            int i = 0;
+            while (i < elements.length) {
+                // Wait until the queue is not full.
+                while (isFull())
+                    wait();
+
+                // Add as many elements as there's room for.
+                do {
+                    mList.add((E) elements[i++]);
+                } while (!isFull() && i < elements.length);
+
+                // Notify that the queue may have changed state, e.g.,
+                // "no longer empty".
+                notifyAll();
+            }
+        }
+    }
+
     /**
      * Remove the E at the front of the queue, blocking until there's
      * something in the queue.
@@ -114,16 +153,85 @@ class SimpleBlockingQueue<E> implements BlockingQueue<E> {
     }
 
     /**
-     * All these methods are inherited from the BlockingQueue
-     * interface. They are defined as no-ops and their implementations
-     * are left as an exercise to the reader.
+     * Remove all the available elements from the queue and add them
+     * to @code c.
      */
     public int drainTo(Collection<? super E> c) {
-        return 0;
+        return drainTo(c, Integer.MAX_VALUE);
     }
+
+    /**
+     * Remove up to @code maxElements available elements from the
+     * queue and add them to @code c, all while holding the monitor
+     * lock just once.  Returns the number of elements transferred.
+     */
     public int drainTo(Collection<? super E> c, int maxElements) {
-        return 0;
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+
+        synchronized(this) {
+            int n = Math.min(maxElements, mList.size());
+            int i = 0;
+            try {
+                for (; i < n; ++i)
+                    c.add(mList.get(i));
+            } finally {
+                // Remove just the elements that were transferred, even
+                // if @code c threw, with a single shift of the
+                // remaining elements.
+                if (i > 0) {
+                    mList.subList(0, i).clear();
+
+                    // Notify that the queue may have changed state,
+                    // e.g., "no longer full".
+                    notifyAll();
+                }
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Add all the elements in @code collection to the end of the
+     * queue while holding the monitor lock just once.  Throws
+     * IllegalStateException if they don't all fit, in which case none
+     * of them are added.
+     */
+    public boolean addAll(Collection<? extends E> collection) {
+        if (collection == null)
+            throw new NullPointerException();
+        if (collection == this)
+            throw new IllegalArgumentException();
+
+        synchronized(this) {
+            if (collection.size() > mCapacity - mList.size())
+                throw new IllegalStateException("Queue full");
+
+            for (E e : collection)
+                if (e == null)
+                    throw new NullPointerException();
+
+            if (collection.isEmpty())
+                return false;
+
+            mList.addAll(collection);
+
+            // Notify that the queue may have changed state, e.g., "no
+            // longer empty".
+            notifyAll();
+            return true;
+        }
     }
+
+    /**
+     * All these methods are inherited from the BlockingQueue
+     * interface. They are defined as no-ops and their implementations
+     * are left as an exercise to the reader.
+     */
     public boolean contains(Object o) {
         return false;
     }
@@ -171,9 +279,6 @@ class SimpleBlockingQueue<E> implements BlockingQueue<E> {
     public boolean removeAll(Collection<?> collection) {
         return false;
     }
-    public boolean addAll(Collection<? extends E> collection) {
-        return false;
-    }
     public boolean containsAll(Collection<?> collection) {
         return false;
     }
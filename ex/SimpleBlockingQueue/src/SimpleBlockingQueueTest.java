@@ -1,6 +1,9 @@
 import java.util.concurrent.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.List;
 
 /**
@@ -21,6 +24,17 @@ public class SimpleBlockingQueueTest
      */
     private final static int mQueueSize = 10;
 
+    /**
+     * Number of producer Threads and of consumer Threads used by the
+     * stress test.
+     */
+    private final static int mStressThreads = 4;
+
+    /**
+     * Number of elements each producer puts in the stress test.
+     */
+    private final static int mStressIterations = 100000;
+
     /**
      * Count the number of iterations.
      */
@@ -114,34 +128,458 @@ public class SimpleBlockingQueueTest
     }
 
     /**
-     * Main entry point that tests the SimpleBlockingQueue class.
+     * Enumerate the BlockingQueue implementations to test.
      */
-    public static void main(String argv[]) {
-        final SimpleBlockingQueue<String> simpleQueue =
-            new SimpleBlockingQueue<String>(mQueueSize);
+    enum QueuesToTest {
+        SIMPLE_BLOCKING_QUEUE,
+        CIRCULAR_ARRAY_BLOCKING_QUEUE,
+        MPMC_ARRAY_BLOCKING_QUEUE
+    }
+
+    /**
+     * Factory method that creates the desired type of BlockingQueue.
+     */
+    static <E> BlockingQueue<E> makeQueue(QueuesToTest choice,
+                                          int capacity) {
+        switch(choice) {
+        case SIMPLE_BLOCKING_QUEUE:
+            return new SimpleBlockingQueue<E>(capacity);
+        case CIRCULAR_ARRAY_BLOCKING_QUEUE:
+            return new CircularArrayBlockingQueue<E>(capacity);
+        case MPMC_ARRAY_BLOCKING_QUEUE:
+            return new MpmcArrayBlockingQueue<E>(capacity);
+        }
+        return null;
+    }
+
+    /**
+     * Run @code threads producers and @code threads consumers
+     * concurrently over one @code queue and check that each element
+     * put by a producer is taken by exactly one consumer.  Returns
+     * true if the test passed, else false.
+     */
+    static boolean runStressTest(final BlockingQueue<Integer> queue,
+                                 int threads)
+        throws InterruptedException {
+        final int total = threads * mStressIterations;
+
+        // Count how many times each element was taken.
+        final AtomicIntegerArray deliveries =
+            new AtomicIntegerArray(total);
+
+        List<Thread> workers = new ArrayList<Thread>();
+
+        for (int t = 0; t < threads; ++t) {
+            final int first = t * mStressIterations;
+
+            // Each producer puts its own range of distinct elements.
+            workers.add(new Thread() {
+                    public void run() {
+                        try {
+                            for (int i = 0; i < mStressIterations; i++)
+                                queue.put(first + i);
+                        } catch (InterruptedException e) {
+                            System.out.println("InterruptedException caught");
+                        }
+                    }
+                });
+
+            // Each consumer takes as many elements as one producer
+            // puts, so all the Threads finish once every element has
+            // been delivered.
+            workers.add(new Thread() {
+                    public void run() {
+                        try {
+                            for (int i = 0; i < mStressIterations; i++)
+                                deliveries.incrementAndGet(queue.take());
+                        } catch (InterruptedException e) {
+                            System.out.println("InterruptedException caught");
+                        }
+                    }
+                });
+        }
+
+        for (Thread worker : workers)
+            worker.start();
+        for (Thread worker : workers)
+            worker.join();
+
+        // Check that every element was delivered exactly once.
+        int failures = 0;
+        for (int i = 0; i < total; ++i)
+            if (deliveries.get(i) != 1) {
+                if (failures++ < 10)
+                    System.out.println("element "
+                                       + i
+                                       + " was delivered "
+                                       + deliveries.get(i)
+                                       + " times");
+            }
+
+        return failures == 0 && queue.isEmpty();
+    }
+
+    /**
+     * Check the Collection methods of an empty @code queue with a
+     * capacity of at least 5, which are built on its iterator and
+     * remove(Object).  Returns true if the test passed, else false.
+     */
+    static boolean runCollectionTest(BlockingQueue<Integer> queue) {
+        boolean passed = true;
+
+        for (int i = 0; i < 5; ++i)
+            queue.add(i);
+        passed &= queue.contains(3) && !queue.contains(5);
+        passed &= Arrays.equals(queue.toArray(),
+                                new Integer[] {0, 1, 2, 3, 4});
+
+        // Remove from the middle, the front and the back.
+        passed &= queue.remove(2) && !queue.remove(2);
+        passed &= queue.remove(0) && queue.remove(4);
+        passed &= queue.size() == 2
+            && queue.remainingCapacity() > 0
+            && queue.toString().equals("[1, 3]");
+
+        // Remove an element through the iterator.
+        for (Iterator<Integer> it = queue.iterator(); it.hasNext(); )
+            if (it.next() == 1)
+                it.remove();
+        passed &= Arrays.equals(queue.toArray(), new Integer[] {3});
+
+        // Elements added after removals are still taken in order.
+        queue.add(5);
+        queue.add(6);
+        passed &= queue.retainAll(Arrays.asList(3, 6))
+            && queue.containsAll(Arrays.asList(3, 6));
+        passed &= queue.removeAll(Arrays.asList(3));
+        passed &= queue.peek() == 6 && queue.poll() == 6;
+        passed &= queue.isEmpty() && queue.poll() == null;
+
+        return passed;
+    }
+
+    /**
+     * Run @code threads producers and @code threads consumers
+     * concurrently over one @code queue while another Thread iterates
+     * over it and removes every element that's a multiple of 3, and
+     * check that each element put by a producer is either taken by
+     * exactly one consumer or removed.  Returns true if the test
+     * passed, else false.
+     */
+    static boolean runRemovalStressTest(final BlockingQueue<Integer> queue,
+                                        int threads)
+        throws InterruptedException {
+        final int total = threads * mStressIterations;
+
+        // Count how many times each element was taken or removed.
+        final AtomicIntegerArray deliveries =
+            new AtomicIntegerArray(total);
+        final AtomicInteger done = new AtomicInteger(0);
+
+        List<Thread> workers = new ArrayList<Thread>();
+
+        for (int t = 0; t < threads; ++t) {
+            final int first = t * mStressIterations;
+
+            workers.add(new Thread() {
+                    public void run() {
+                        try {
+                            for (int i = 0; i < mStressIterations; i++)
+                                queue.put(first + i);
+                        } catch (InterruptedException e) {
+                            System.out.println("InterruptedException caught");
+                        }
+                    }
+                });
+
+            // Consumers don't know how many elements will be removed,
+            // so they run until every element is accounted for.
+            workers.add(new Thread() {
+                    public void run() {
+                        try {
+                            while (done.get() < total) {
+                                Integer e =
+                                    queue.poll(1, TimeUnit.MILLISECONDS);
+                                if (e != null) {
+                                    deliveries.incrementAndGet(e);
+                                    done.incrementAndGet();
+                                }
+                            }
+                        } catch (InterruptedException e) {
+                            System.out.println("InterruptedException caught");
+                        }
+                    }
+                });
+        }
+
+        workers.add(new Thread() {
+                public void run() {
+                    while (done.get() < total)
+                        for (Iterator<Integer> it = queue.iterator();
+                             it.hasNext(); ) {
+                            Integer e = it.next();
+                            if (e % 3 == 0 && queue.remove(e)) {
+                                deliveries.incrementAndGet(e);
+                                done.incrementAndGet();
+                            }
+                        }
+                }
+            });
+
+        for (Thread worker : workers)
+            worker.start();
+        for (Thread worker : workers)
+            worker.join();
+
+        // Check that every element was taken or removed exactly once.
+        int failures = 0;
+        for (int i = 0; i < total; ++i)
+            if (deliveries.get(i) != 1) {
+                if (failures++ < 10)
+                    System.out.println("element "
+                                       + i
+                                       + " was delivered "
+                                       + deliveries.get(i)
+                                       + " times");
+            }
+
+        return failures == 0
+            && queue.isEmpty()
+            && queue.remainingCapacity() == mQueueSize;
+    }
+
+    /**
+     * Check the batch operations of an empty @code queue of capacity
+     * mQueueSize: drainTo() moves the oldest elements in FIFO order,
+     * putAll() blocks while the queue is full, and a null element
+     * neither inserts part of a batch nor leaves a consumer waiting.
+     * Returns true if the test passed, else false.
+     */
+    static boolean runBatchTest(final BatchBlockingQueue<Integer> queue)
+        throws InterruptedException {
+        boolean passed = true;
 
+        // drainTo() moves the n oldest elements in order.
+        for (int i = 0; i < 6; ++i)
+            queue.put(i);
+        List<Integer> drained = new ArrayList<Integer>();
+        passed &= queue.drainTo(drained, 4) == 4
+            && drained.equals(Arrays.asList(0, 1, 2, 3));
+        passed &= queue.drainTo(drained, 4) == 2
+            && drained.equals(Arrays.asList(0, 1, 2, 3, 4, 5))
+            && queue.isEmpty();
+
+        // A collection that throws partway through a drainTo() only
+        // removes the elements it took.
+        for (int i = 0; i < 4; ++i)
+            queue.put(i);
+        final List<Integer> partial = new ArrayList<Integer>() {
+                public boolean add(Integer e) {
+                    if (size() == 2)
+                        throw new IllegalStateException();
+                    return super.add(e);
+                }
+            };
+        try {
+            queue.drainTo(partial, 4);
+            passed = false;
+        } catch (IllegalStateException e) {
+        }
+        passed &= partial.equals(Arrays.asList(0, 1))
+            && queue.size() == 2
+            && queue.take() == 2 && queue.take() == 3;
+
+        // putAll() blocks while the queue is full and resumes when a
+        // consumer makes room.
+        for (int i = 0; i < mQueueSize - 1; ++i)
+            queue.put(i);
+        final List<Integer> batch = new ArrayList<Integer>();
+        for (int i = mQueueSize - 1; i < mQueueSize + 2; ++i)
+            batch.add(i);
+        Thread producer = new Thread() {
+                public void run() {
+                    try {
+                        queue.putAll(batch);
+                    } catch (InterruptedException e) {
+                    }
+                }
+            };
+        producer.start();
+        Thread.sleep(100);
+        passed &= producer.isAlive() && queue.size() == mQueueSize;
+        passed &= queue.take() == 0 && queue.take() == 1;
+        producer.join(1000);
+        passed &= !producer.isAlive() && queue.size() == mQueueSize;
+        drained.clear();
+        queue.drainTo(drained);
+        for (int i = 0; i < drained.size(); ++i)
+            passed &= drained.get(i) == i + 2;
+
+        // A null element rejects the whole batch, and a consumer
+        // blocked in take() still gets the next element put.
+        final AtomicInteger taken = new AtomicInteger(-1);
+        Thread consumer = new Thread() {
+                public void run() {
+                    try {
+                        taken.set(queue.take());
+                    } catch (InterruptedException e) {
+                    }
+                }
+            };
+        consumer.start();
+        Thread.sleep(100);
         try {
-            // Create a ProducerThread.
-            Thread producer =
-                new ProducerThread(simpleQueue);
+            queue.putAll(Arrays.asList(1, null, 2));
+            passed = false;
+        } catch (NullPointerException e) {
+        }
+        // The other queues inherit AbstractQueue's addAll(), which,
+        // like ArrayBlockingQueue's, adds the elements one at a time.
+        if (queue instanceof SimpleBlockingQueue) {
+            try {
+                queue.addAll(Arrays.asList(1, null, 2));
+                passed = false;
+            } catch (NullPointerException e) {
+            }
+        }
+        passed &= queue.isEmpty();
+        queue.put(7);
+        consumer.join(1000);
+        passed &= !consumer.isAlive() && taken.get() == 7;
+
+        return passed;
+    }
+
+    /**
+     * Check that addAll() on a @code queue with room for fewer
+     * elements than it's given throws IllegalStateException without
+     * inserting any of them.  Returns true if the test passed, else
+     * false.
+     */
+    static boolean runAddAllTest(BlockingQueue<Integer> queue)
+        throws InterruptedException {
+        boolean passed = true;
+
+        for (int i = 0; i < mQueueSize - 2; ++i)
+            queue.put(i);
+        try {
+            queue.addAll(Arrays.asList(-1, -2, -3));
+            passed = false;
+        } catch (IllegalStateException e) {
+        }
+        passed &= queue.size() == mQueueSize - 2;
+
+        passed &= queue.addAll(Arrays.asList(-1, -2))
+            && queue.size() == mQueueSize;
+        List<Integer> drained = new ArrayList<Integer>();
+        queue.drainTo(drained);
+        passed &= drained.get(mQueueSize - 2) == -1
+            && drained.get(mQueueSize - 1) == -2;
+
+        return passed;
+    }
+
+    /**
+     * Main entry point that tests the SimpleBlockingQueue class and
+     * the other BlockingQueue implementations.
+     */
+    public static void main(String argv[]) {
+        for (QueuesToTest test : QueuesToTest.values()) {
+            System.out.println("Starting " + test);
+
+            final BlockingQueue<String> queue =
+                makeQueue(test, mQueueSize);
+
+            try {
+                // Create a ProducerThread.
+                Thread producer =
+                    new ProducerThread(queue);
         
-            // Create a ConsumerThread.
-            Thread consumer =
-                new ConsumerThread(simpleQueue);
+                // Create a ConsumerThread.
+                Thread consumer =
+                    new ConsumerThread(queue);
+
+                // Run both Threads concurrently.
+                producer.start();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {}
+
+                consumer.start();
+
+                // Wait for both Threads to stop.
+                producer.join();
+                consumer.join();
+            } catch (Exception e) {
+                System.out.println("caught exception");
+            }
 
-            // Run both Threads concurrently.
-            producer.start();
+            System.out.println("Ending " + test);
+        }
+
+        for (QueuesToTest test : QueuesToTest.values()) {
+            System.out.println("Starting stress test of "
+                               + test
+                               + " with "
+                               + mStressThreads
+                               + " producers and "
+                               + mStressThreads
+                               + " consumers");
             try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {}
+                BlockingQueue<Integer> queue =
+                    makeQueue(test, mQueueSize);
+
+                System.out.println(runStressTest(queue, mStressThreads)
+                                   ? "PASSED"
+                                   : "FAILED");
+            } catch (InterruptedException e) {
+                System.out.println("InterruptedException caught");
+            }
+        }
 
-            consumer.start();
+        // Only the SimpleBlockingQueue and the
+        // CircularArrayBlockingQueue implement BatchBlockingQueue,
+        // and only the SimpleBlockingQueue's addAll() inserts all of
+        // the elements or none of them.
+        for (QueuesToTest test : QueuesToTest.values()) {
+            if (test == QueuesToTest.MPMC_ARRAY_BLOCKING_QUEUE)
+                continue;
 
-            // Wait for both Threads to stop.
-            producer.join();
-            consumer.join();
-        } catch (Exception e) {
-            System.out.println("caught exception");
+            System.out.println("Starting batch tests of " + test);
+            try {
+                BlockingQueue<Integer> queue =
+                    makeQueue(test, mQueueSize);
+                boolean passed =
+                    runBatchTest((BatchBlockingQueue<Integer>) queue);
+                if (test == QueuesToTest.SIMPLE_BLOCKING_QUEUE)
+                    passed &= runAddAllTest(queue);
+
+                System.out.println(passed ? "PASSED" : "FAILED");
+            } catch (InterruptedException e) {
+                System.out.println("InterruptedException caught");
+            }
+        }
+
+        // The SimpleBlockingQueue doesn't implement the Collection
+        // methods, so only test them on the other queues.
+        for (QueuesToTest test : QueuesToTest.values()) {
+            if (test == QueuesToTest.SIMPLE_BLOCKING_QUEUE)
+                continue;
+
+            System.out.println("Starting collection and removal tests of "
+                               + test);
+            try {
+                BlockingQueue<Integer> queue =
+                    makeQueue(test, mQueueSize);
+
+                System.out.println(runCollectionTest(queue)
+                                   && runRemovalStressTest(queue,
+                                                           mStressThreads)
+                                   ? "PASSED"
+                                   : "FAILED");
+            } catch (InterruptedException e) {
+                System.out.println("InterruptedException caught");
+            }
         }
     }
 }
@@ -0,0 +1,120 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * @class CyclicGangBenchmark
+ *
+ * @brief Measures the cost of switching from one cycle to the next
+ *        in the cyclic TaskGang implementations.  An empty list of
+ *        words to find is used so that each task does essentially no
+ *        work, which means the elapsed time is dominated by the
+ *        overhead of starting and joining each cycle.
+ */
+public class CyclicGangBenchmark {
+    /**
+     * Number of cycles to run in each measurement.
+     */
+    private static final int CYCLES = 2000;
+
+    /**
+     * Number of times each measurement is repeated to warm up the
+     * JIT compiler before the final measurement is taken.
+     */
+    private static final int WARMUP_RUNS = 3;
+
+    /**
+     * Sizes of the input processed in each cycle.
+     */
+    private static final int[] INPUT_SIZES = {1, 8, 64, 512};
+
+    /**
+     * Enumerate the gangs to compare.
+     */
+    enum GangsToRun {
+        CYCLIC_EXECUTOR_SERVICE,
+        CYCLIC_WORKER_POOL
+    }
+
+    /**
+     * Discards everything written to it, which keeps the per-cycle
+     * diagnostics printed by the gangs out of the measurements.
+     */
+    private static final PrintStream mNullStream =
+        new PrintStream(new OutputStream() {
+                public void write(int b) {
+                    // No-op.
+                }
+            });
+
+    /**
+     * Create @code cycles cycles of input, each containing @code size
+     * Strings.
+     */
+    private static String[][] makeInput(int cycles, int size) {
+        String[][] input = new String[cycles][size];
+
+        for (int c = 0; c < cycles; ++c)
+            for (int i = 0; i < size; ++i)
+                input[c][i] = "x";
+        return input;
+    }
+
+    /**
+     * Factory method that creates the desired type of cyclic gang.
+     */
+    private static SearchTaskGangCommon makeTaskGang(GangsToRun choice,
+                                                     String[][] input) {
+        switch(choice) {
+        case CYCLIC_EXECUTOR_SERVICE:
+            return new CyclicExecutorService(new String[0], input);
+        case CYCLIC_WORKER_POOL:
+            return new CyclicWorkerPool(new String[0], input);
+        }
+        return null;
+    }
+
+    /**
+     * Run the gang to completion and return the elapsed time in
+     * nanoseconds.
+     */
+    private static long timeGang(GangsToRun choice,
+                                 String[][] input) {
+        PrintStream out = System.out;
+        System.setOut(mNullStream);
+
+        try {
+            long start = System.nanoTime();
+            makeTaskGang(choice, input).run();
+            return System.nanoTime() - start;
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * This is the entry point into the benchmark program.
+     */
+    public static void main(String[] args) {
+        System.out.println("Starting CyclicGangBenchmark ("
+                           + CYCLES
+                           + " cycles per run)");
+
+        for (int size : INPUT_SIZES) {
+            String[][] input = makeInput(CYCLES, size);
+
+            for (GangsToRun gang : GangsToRun.values()) {
+                for (int i = 0; i < WARMUP_RUNS; ++i)
+                    timeGang(gang, input);
+
+                long elapsed = timeGang(gang, input);
+
+                System.out.printf("%-24s size %4d: %8.2f us/cycle%n",
+                                  gang,
+                                  size,
+                                  elapsed / 1000.0 / CYCLES);
+            }
+        }
+
+        System.out.println("Ending CyclicGangBenchmark");
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class CyclicWorkerPool
+ *
+ * @brief Customizes the SearchTaskGangCommon framework to process a
+ *        cyclic List of tasks via a fixed set of long-lived worker
+ *        Threads.  Unlike CyclicExecutorService, which wraps every
+ *        input element in a new Callable and calls invokeAll() on
+ *        each cycle, the workers here are started only once and then
+ *        repeatedly claim (cycle, index) work items from a shared
+ *        cursor, so the per-cycle overhead is just one Phaser trip.
+ */
+public class CyclicWorkerPool
+       extends CyclicExecutorService {
+    /**
+     * Number of low-order bits of @code mCursor that hold the next
+     * unclaimed index.  The remaining high-order bits hold the cycle.
+     */
+    private static final int INDEX_BITS = 32;
+
+    /**
+     * Mask that extracts the index from @code mCursor.
+     */
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    /**
+     * Packs the current cycle and the next unclaimed index of that
+     * cycle's input into a single word.  Tagging each claim with the
+     * cycle ensures a worker that's still finishing an earlier cycle
+     * can never claim an item that belongs to the next one.
+     */
+    private final AtomicLong mCursor = new AtomicLong(0);
+
+    /**
+     * Workers wait on this Phaser until the next cycle has been
+     * published.  The Thread that runs the TaskGang is registered as
+     * the first party.
+     */
+    private final Phaser mCycleStart = new Phaser(1);
+
+    /**
+     * The phase in which the most recent cycle was published.
+     */
+    private int mPhase = -1;
+
+    /**
+     * Set to true when there's no more input, which causes the
+     * workers to exit.
+     */
+    private volatile boolean mShutdown = false;
+
+    /**
+     * Keeps track of whether the workers have been started yet.
+     */
+    private boolean mWorkersStarted = false;
+
+    /**
+     * Constructor initializes the superclass.
+     */
+    CyclicWorkerPool(String[] wordsToFind,
+                     String[][] stringsToSearch) {
+        // Pass input to superclass constructor.
+        super(wordsToFind,
+              stringsToSearch);
+    }
+
+    /**
+     * Initiate the TaskGang by publishing the current cycle to the
+     * worker Threads, starting them first if necessary.
+     */
+    @Override
+    protected void initiateTaskGang(int inputSize) {
+        // Allow subclasses to customize their behavior before the
+        // cycle is published.
+        initiateHook(inputSize);
+
+        if (!mWorkersStarted) {
+            mWorkersStarted = true;
+
+            // Register all the workers before any of them can arrive
+            // so the first cycle can't start without them.
+            mCycleStart.bulkRegister(MAX_THREADS);
+
+            for (int i = 0; i < MAX_THREADS; ++i)
+                getExecutor().execute(makeWorker());
+        }
+
+        // Make sure every worker has picked up the previous cycle
+        // before we publish the next one.
+        mCycleStart.awaitAdvance(mPhase);
+
+        // Reset the cursor to the first index of this cycle.
+        mCursor.set(currentCycle() << INDEX_BITS);
+
+        // Release the workers without waiting for them.
+        mPhase = mCycleStart.arrive();
+    }
+
+    /**
+     * When there's no more input data to process tell the workers to
+     * exit and return false.  Otherwise, return true so the next
+     * cycle is processed.
+     */
+    @Override
+    protected boolean advanceTaskToNextCycle() {
+        if (super.advanceTaskToNextCycle())
+            return true;
+
+        if (mWorkersStarted) {
+            mCycleStart.awaitAdvance(mPhase);
+            mShutdown = true;
+
+            // Release the workers one last time so they can see the
+            // shutdown flag.
+            mCycleStart.arriveAndDeregister();
+        }
+        return false;
+    }
+
+    /**
+     * Atomically claim the next index of @code cycle.  Returns -1 if
+     * all @code size items of this cycle have been claimed or the
+     * next cycle has already been published.
+     */
+    private int claim(long cycle, int size) {
+        for (;;) {
+            long cursor = mCursor.get();
+            int index = (int) (cursor & INDEX_MASK);
+
+            if ((cursor >>> INDEX_BITS) != cycle
+                || index >= size)
+                return -1;
+            else if (mCursor.compareAndSet(cursor, cursor + 1))
+                return index;
+        }
+    }
+
+    /**
+     * Factory method that creates a long-lived Runnable that
+     * processes input elements from every cycle until there's no
+     * more input.
+     */
+    private Runnable makeWorker() {
+        return new Runnable() {
+            public void run() {
+                try {
+                    for (;;) {
+                        // Wait for the next cycle to be published.
+                        mCycleStart.arriveAndAwaitAdvance();
+
+                        if (mShutdown)
+                            return;
+
+                        // The Phaser ensures these are the values
+                        // published for this cycle.
+                        List<String> input = getInput();
+                        long cycle = mCursor.get() >>> INDEX_BITS;
+
+                        for (int index;
+                             (index = claim(cycle, input.size())) != -1;
+                             )
+                            if (processInput(input.get(index)))
+                                taskDone(index);
+                    }
+                } finally {
+                    mCycleStart.arriveAndDeregister();
+                }
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
@@ -21,13 +22,25 @@ public class OneShotExecutorCompletionService
      */
     protected OneShotExecutorCompletionService(String[] wordsToFind,
                                                String[][] stringsToSearch) {
+        // Initialize the Executor with a cached pool of
+        // Threads.
+        this(wordsToFind,
+             stringsToSearch,
+             Executors.newCachedThreadPool());
+    }
+
+    /**
+     * Constructor initializes the superclass and data members,
+     * using @code executorService to run the tasks.
+     */
+    protected OneShotExecutorCompletionService(String[] wordsToFind,
+                                               String[][] stringsToSearch,
+                                               ExecutorService executorService) {
         // Pass input to superclass constructor.
         super(wordsToFind, 
               stringsToSearch);
 
-        // Initialize the Executor with a cached pool of
-        // Threads.
-        setExecutor (Executors.newCachedThreadPool());
+        setExecutor (executorService);
 
         // Connect the Executor with the CompletionService
         // to process SearchResults concurrently. 
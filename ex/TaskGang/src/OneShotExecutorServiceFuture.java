@@ -22,13 +22,25 @@ public class OneShotExecutorServiceFuture
      */
     protected OneShotExecutorServiceFuture(String[] wordsToFind,
                                            String[][] stringsToSearch) {
+        // Initialize the Executor with a cached pool of
+        // Threads.
+        this(wordsToFind,
+             stringsToSearch,
+             Executors.newCachedThreadPool());
+    }
+
+    /**
+     * Constructor initializes the superclass and data members,
+     * using @code executorService to run the tasks.
+     */
+    protected OneShotExecutorServiceFuture(String[] wordsToFind,
+                                           String[][] stringsToSearch,
+                                           ExecutorService executorService) {
         // Pass input to superclass constructor.
         super(wordsToFind, 
               stringsToSearch);
 
-        // Initialize the Executor with a cached pool of
-        // Threads.
-        setExecutor (Executors.newCachedThreadPool());
+        setExecutor (executorService);
     }
 
     /**
@@ -1,13 +1,16 @@
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * @class OneShotThreadPerTask
  *
  * @brief Customizes the SearchTaskGangCommon framework to process
  *        a one-shot List of tasks via an Executor that creates a
- *        Thread for each task.
+ *        Thread for each task.  The Threads are platform Threads by
+ *        default, but can be made by any ThreadFactory, e.g., one that
+ *        creates virtual Threads.
  */
 public class OneShotThreadPerTask
        extends SearchTaskGangCommon {
@@ -16,17 +19,41 @@ public class OneShotThreadPerTask
      */
     private List<Thread> mWorkerThreads;
 
+    /**
+     * Creates the Thread for each task.
+     */
+    private final ThreadFactory mThreadFactory;
+
     /**
      * Constructor initializes the superclass and data members.
      */
     public OneShotThreadPerTask(String[] wordsToFind,
                                 String[][] stringsToSearch) {
+        // Run each task in a new platform Thread.
+        this(wordsToFind,
+             stringsToSearch,
+             new ThreadFactory() {
+                 public Thread newThread(Runnable r) {
+                     return new Thread(r);
+                 }
+             });
+    }
+
+    /**
+     * Constructor initializes the superclass and data members,
+     * using @code threadFactory to create the Thread for each task.
+     */
+    public OneShotThreadPerTask(String[] wordsToFind,
+                                String[][] stringsToSearch,
+                                ThreadFactory threadFactory) {
         // Pass input to superclass constructor.
         super(wordsToFind,
               stringsToSearch);
 
         // This List holds Threads so they can be joined.
         mWorkerThreads = new LinkedList<Thread>();
+
+        mThreadFactory = threadFactory;
     }
 
     /**
@@ -40,7 +67,7 @@ public class OneShotThreadPerTask
             // Thread.
             setExecutor (new Executor() {
                     public void execute(Runnable r) {
-                        Thread thread = new Thread(r);
+                        Thread thread = mThreadFactory.newThread(r);
                         mWorkerThreads.add (thread);
                         thread.start();
                     }
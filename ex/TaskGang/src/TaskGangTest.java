@@ -16,10 +16,14 @@ public class TaskGangTest {
      */
     enum TestsToRun {
         ONESHOT_THREAD_PER_TASK,
+        ONESHOT_VIRTUAL_THREAD_PER_TASK,
         ONESHOT_EXECUTOR_SERVICE,
         CYCLIC_EXECUTOR_SERVICE,
+        CYCLIC_WORKER_POOL,
         ONESHOT_EXECUTOR_SERVICE_FUTURE,
-        ONESHOT_EXECUTOR_COMPLETION_SERVICE
+        ONESHOT_EXECUTOR_COMPLETION_SERVICE,
+        ONESHOT_VIRTUAL_EXECUTOR_SERVICE_FUTURE,
+        ONESHOT_VIRTUAL_EXECUTOR_COMPLETION_SERVICE
     }
 
     /**
@@ -92,18 +96,35 @@ public class TaskGangTest {
         case ONESHOT_THREAD_PER_TASK:
             return new OneShotThreadPerTask(wordList,
                                             mOneShotInputStrings);
+        case ONESHOT_VIRTUAL_THREAD_PER_TASK:
+            return new OneShotThreadPerTask(wordList,
+                                            mOneShotInputStrings,
+                                            VirtualThreads.factory());
         case ONESHOT_EXECUTOR_SERVICE:
             return new OneShotExecutorService(wordList,
                                               mOneShotInputStrings);
         case CYCLIC_EXECUTOR_SERVICE:
             return new CyclicExecutorService(wordList,
                                              mFixedNumberOfInputStrings);
+        case CYCLIC_WORKER_POOL:
+            return new CyclicWorkerPool(wordList,
+                                        mVariableNumberOfInputStrings);
         case ONESHOT_EXECUTOR_SERVICE_FUTURE:
             return new OneShotExecutorServiceFuture(wordList,
                                                     mOneShotInputStrings);
         case ONESHOT_EXECUTOR_COMPLETION_SERVICE:
             return new OneShotExecutorCompletionService(wordList,
                                                         mOneShotInputStrings);
+        case ONESHOT_VIRTUAL_EXECUTOR_SERVICE_FUTURE:
+            return new OneShotExecutorServiceFuture
+                (wordList,
+                 mOneShotInputStrings,
+                 VirtualThreads.newThreadPerTaskExecutor());
+        case ONESHOT_VIRTUAL_EXECUTOR_COMPLETION_SERVICE:
+            return new OneShotExecutorCompletionService
+                (wordList,
+                 mOneShotInputStrings,
+                 VirtualThreads.newThreadPerTaskExecutor());
         }
         return null;
     }
@@ -113,6 +134,10 @@ public class TaskGangTest {
      */
     public static void main(String[] args) {
         printDebugging("Starting TaskGangTest");
+
+        if (!VirtualThreads.isSupported())
+            printDebugging("Virtual Threads aren't supported by this JVM,"
+                           + " so the VIRTUAL tests use platform Threads");
         
         // Create/run appropriate type of SearchTaskGang to search for
         // words concurrently.
@@ -0,0 +1,222 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @class ThreadStrategyBenchmark
+ *
+ * @brief Compares the platform and virtual Thread strategies of the
+ *        one-shot TaskGang implementations at several input sizes.
+ *        For each strategy it reports the cost of creating, starting
+ *        and joining one Thread, the throughput of the gang in inputs
+ *        per second, and the peak resident set size (RSS) of the
+ *        process while the gang runs.  RSS is read from
+ *        /proc/self/status, so it's only reported on Linux.
+ */
+public class ThreadStrategyBenchmark {
+    /**
+     * Sizes of the input processed by each gang.
+     */
+    private static final int[] INPUT_SIZES = {10, 1000, 100000};
+
+    /**
+     * Word to search for, which never matches the input so nothing
+     * is printed while the gangs run.
+     */
+    private static final String[] mWordList = {"do"};
+
+    /**
+     * How often the RSS is sampled while a gang runs.
+     */
+    private static final long RSS_SAMPLE_MS = 5;
+
+    /**
+     * Enumerate the strategies to compare.
+     */
+    enum StrategiesToRun {
+        PLATFORM_THREAD_PER_TASK,
+        VIRTUAL_THREAD_PER_TASK,
+        CACHED_POOL_FUTURE,
+        VIRTUAL_FUTURE
+    }
+
+    /**
+     * Factory method that creates the gang for the desired strategy.
+     */
+    private static SearchTaskGangCommon makeTaskGang(StrategiesToRun choice,
+                                                     String[][] input) {
+        switch(choice) {
+        case PLATFORM_THREAD_PER_TASK:
+            return new OneShotThreadPerTask(mWordList, input);
+        case VIRTUAL_THREAD_PER_TASK:
+            return new OneShotThreadPerTask(mWordList,
+                                            input,
+                                            VirtualThreads.factory());
+        case CACHED_POOL_FUTURE:
+            return new OneShotExecutorServiceFuture(mWordList, input);
+        case VIRTUAL_FUTURE:
+            return new OneShotExecutorServiceFuture
+                (mWordList,
+                 input,
+                 VirtualThreads.newThreadPerTaskExecutor());
+        }
+        return null;
+    }
+
+    /**
+     * Return the ThreadFactory used by the strategy, which is used to
+     * measure the Thread creation cost.
+     */
+    private static ThreadFactory threadFactory(StrategiesToRun choice) {
+        switch(choice) {
+        case VIRTUAL_THREAD_PER_TASK:
+        case VIRTUAL_FUTURE:
+            return VirtualThreads.factory();
+        default:
+            return new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    return new Thread(r);
+                }
+            };
+        }
+    }
+
+    /**
+     * Returns the average number of nanoseconds it takes to create,
+     * start and join a Thread made by @code factory that does
+     * nothing.
+     */
+    private static double timeThreadCreation(ThreadFactory factory,
+                                             int count) {
+        Runnable noop = new Runnable() {
+                public void run() {
+                }
+            };
+
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < count; ++i) {
+                Thread t = factory.newThread(noop);
+                t.start();
+                t.join();
+            }
+        } catch (InterruptedException e) {
+            System.out.println("timeThreadCreation() interrupted");
+        }
+        return (System.nanoTime() - start) / (double) count;
+    }
+
+    /**
+     * Returns the current RSS of this process in kilobytes, or -1 if
+     * it can't be determined.
+     */
+    private static long currentRssKb() {
+        try (BufferedReader reader =
+             new BufferedReader(new FileReader("/proc/self/status"))) {
+            for (String line; (line = reader.readLine()) != null; )
+                if (line.startsWith("VmRSS:"))
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+        } catch (IOException | NumberFormatException e) {
+            // Fall through.
+        }
+        return -1;
+    }
+
+    /**
+     * Holds the measurements for one run of a gang.
+     */
+    static class Measurement {
+        long mElapsedNanos;
+        long mPeakRssKb = -1;
+    }
+
+    /**
+     * Run the gang to completion while sampling the RSS in a
+     * background Thread.
+     */
+    private static Measurement measure(StrategiesToRun choice,
+                                       String[][] input) {
+        final Measurement m = new Measurement();
+        final Thread sampler = new Thread(new Runnable() {
+                public void run() {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        m.mPeakRssKb = Math.max(m.mPeakRssKb,
+                                                currentRssKb());
+                        try {
+                            Thread.sleep(RSS_SAMPLE_MS);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            });
+        sampler.setDaemon(true);
+
+        System.gc();
+        sampler.start();
+
+        long start = System.nanoTime();
+        makeTaskGang(choice, input).run();
+        m.mElapsedNanos = System.nanoTime() - start;
+
+        sampler.interrupt();
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+        }
+
+        // Take one last sample in case the gang ran too quickly for
+        // the sampler.
+        m.mPeakRssKb = Math.max(m.mPeakRssKb, currentRssKb());
+        return m;
+    }
+
+    /**
+     * Create a single cycle of input containing @code size Strings.
+     */
+    private static String[][] makeInput(int size) {
+        String[][] input = new String[1][size];
+
+        for (int i = 0; i < size; ++i)
+            input[0][i] = "xreo";
+        return input;
+    }
+
+    /**
+     * This is the entry point into the benchmark program.
+     */
+    public static void main(String[] args) {
+        System.out.println("Starting ThreadStrategyBenchmark");
+
+        if (!VirtualThreads.isSupported())
+            System.out.println("Virtual Threads aren't supported by this JVM,"
+                               + " so the VIRTUAL strategies use platform Threads");
+
+        for (int size : INPUT_SIZES) {
+            String[][] input = makeInput(size);
+
+            for (StrategiesToRun strategy : StrategiesToRun.values()) {
+                // Warm up once before taking the measurements.
+                makeTaskGang(strategy, input).run();
+
+                double creationNanos =
+                    timeThreadCreation(threadFactory(strategy),
+                                       Math.min(size, 10000));
+                Measurement m = measure(strategy, input);
+
+                System.out.printf("%-26s %6d inputs: create %8.0f ns/thread,"
+                                  + " %12.0f inputs/s, peak RSS %s%n",
+                                  strategy,
+                                  size,
+                                  creationNanos,
+                                  size / (m.mElapsedNanos / 1e9),
+                                  m.mPeakRssKb < 0
+                                  ? "n/a"
+                                  : (m.mPeakRssKb / 1024) + " MB");
+            }
+        }
+
+        System.out.println("Ending ThreadStrategyBenchmark");
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.Vector;
+
+/**
+ * @class ArrayThreadGang
+ *
+ * @brief Customizes the ThreadGang framework so that worker Threads
+ *        read their input without locking.  ThreadGang stores each
+ *        cycle's input in a Vector, whose synchronized get() method
+ *        makes every worker acquire the same monitor on each access.
+ *        This class also publishes a snapshot of each cycle's input
+ *        as an array via a single volatile write, which the workers
+ *        then read directly.  The Vector is still available via
+ *        getVector() for subclasses that need it.
+ */
+public abstract class ArrayThreadGang<E, R> extends ThreadGang<E, R> {
+    /**
+     * Snapshot of the current input Vector, which is never modified
+     * after it's published.
+     */
+    private volatile Object[] mElements = null;
+
+    /**
+     * Set the Vector to use as input and publish a snapshot of its
+     * contents for the workers to read.
+     */
+    @Override
+    protected void setVector(Vector<E> input) {
+        // Publish the snapshot before the Vector so a worker that
+        // sees the new Vector also sees the matching snapshot.
+        mElements = input == null ? null : input.toArray();
+        super.setVector(input);
+    }
+
+    /**
+     * Return the number of elements in the current input.
+     */
+    protected int getInputSize() {
+        return mElements.length;
+    }
+
+    /**
+     * Return the element of the current input at location @code
+     * index without acquiring any locks, which the workers created by
+     * makeWorker() use to read their input.  Throws an
+     * IndexOutOfBoundsException if there's no such element.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected E getElement(int index) throws IndexOutOfBoundsException {
+        return (E) mElements[index];
+    }
+}
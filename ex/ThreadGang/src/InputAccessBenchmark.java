@@ -0,0 +1,141 @@
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @class InputAccessBenchmark
+ *
+ * @brief Measures how the cost of reading the input of a gang grows
+ *        with the number of Threads reading it concurrently.  It
+ *        compares ThreadGang's synchronized getVector().get() with
+ *        ArrayThreadGang's lock-free getElement().
+ */
+public class InputAccessBenchmark {
+    /**
+     * Number of elements in the input.
+     */
+    private static final int INPUT_SIZE = 64;
+
+    /**
+     * Number of passes over the input each Thread makes.
+     */
+    private static final int PASSES = 50000;
+
+    /**
+     * Numbers of Threads reading the input concurrently.
+     */
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    /**
+     * Defines how a Thread reads one element of the input.
+     */
+    interface Reader {
+        String read(int index);
+    }
+
+    /**
+     * A gang that just holds input, so its accessors can be measured
+     * in isolation from the rest of the framework.
+     */
+    static class VectorGang extends ThreadGang<String, String> {
+        protected Vector<String> getNextInput() { return null; }
+        protected void initiateThreadGang(int inputSize) {}
+        protected void awaitThreadGangDone() {}
+        public boolean doWorkInBackground(String inputData) { return true; }
+        protected void processResults(String results) {}
+    }
+
+    /**
+     * A lock-free gang that just holds input, so its accessors can be
+     * measured in isolation from the rest of the framework.
+     */
+    static class ArrayGang extends ArrayThreadGang<String, String> {
+        protected Vector<String> getNextInput() { return null; }
+        protected void initiateThreadGang(int inputSize) {}
+        protected void awaitThreadGangDone() {}
+        public boolean doWorkInBackground(String inputData) { return true; }
+        protected void processResults(String results) {}
+    }
+
+    /**
+     * Sink for the values read, which keeps the JIT compiler from
+     * optimizing the reads away.
+     */
+    static volatile int sSink;
+
+    /**
+     * Have @code threads Threads concurrently make PASSES passes over
+     * the input via @code reader and return the average number of
+     * nanoseconds per read.
+     */
+    private static double timeReads(final Reader reader, int threads)
+        throws InterruptedException {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; ++t)
+            new Thread(new Runnable() {
+                    public void run() {
+                        int sum = 0;
+                        try {
+                            startLatch.await();
+                            for (int p = 0; p < PASSES; ++p)
+                                for (int i = 0; i < INPUT_SIZE; ++i)
+                                    sum += reader.read(i).length();
+                        } catch (InterruptedException e) {
+                        }
+                        sSink = sum;
+                        doneLatch.countDown();
+                    }
+                }).start();
+
+        long start = System.nanoTime();
+        startLatch.countDown();
+        doneLatch.await();
+        long elapsed = System.nanoTime() - start;
+
+        // Report the wall-clock time per read, so perfect scaling
+        // would keep this value constant as Threads are added.
+        return elapsed / (double) ((long) PASSES * INPUT_SIZE);
+    }
+
+    /**
+     * This is the entry point into the benchmark program.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Vector<String> input = new Vector<String>();
+        for (int i = 0; i < INPUT_SIZE; ++i)
+            input.add("x" + i);
+
+        final VectorGang vectorGang = new VectorGang();
+        vectorGang.setVector(input);
+        final ArrayGang arrayGang = new ArrayGang();
+        arrayGang.setVector(input);
+
+        Reader vectorReader = new Reader() {
+                public String read(int index) {
+                    return vectorGang.getVector().get(index);
+                }
+            };
+        Reader arrayReader = new Reader() {
+                public String read(int index) {
+                    return arrayGang.getElement(index);
+                }
+            };
+
+        System.out.println("Starting InputAccessBenchmark");
+
+        for (int threads : THREAD_COUNTS) {
+            // Warm up once before taking the measurements.
+            timeReads(vectorReader, threads);
+            timeReads(arrayReader, threads);
+
+            System.out.printf("%3d Threads: Vector %8.3f ns/read,"
+                              + " array %8.3f ns/read%n",
+                              threads,
+                              timeReads(vectorReader, threads),
+                              timeReads(arrayReader, threads));
+        }
+
+        System.out.println("Ending InputAccessBenchmark");
+    }
+}
@@ -1,4 +1,5 @@
 import java.util.Vector;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * @class ThreadGang
@@ -14,6 +15,31 @@ public abstract class ThreadGang<E, R> implements Runnable {
      */
     protected volatile Vector<E> mInput = null;
 
+    /**
+     * Creates the Threads in the gang, which are platform Threads
+     * unless setThreadFactory() is called.
+     */
+    private ThreadFactory mThreadFactory = new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                return new Thread(r);
+            }
+        };
+
+    /**
+     * Set the ThreadFactory used to create the Threads in the gang,
+     * e.g., one that creates virtual Threads.
+     */
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        mThreadFactory = threadFactory;
+    }
+
+    /**
+     * Factory method that creates a Thread that runs @code worker.
+     */
+    protected Thread makeThread(Runnable worker) {
+        return mThreadFactory.newThread(worker);
+    }
+
     /**
      * Set the Vector to use as input.
      */
@@ -28,6 +54,15 @@ public abstract class ThreadGang<E, R> implements Runnable {
         return mInput;
     }
 
+    /**
+     * Return the element of the current input at location @code
+     * index.  Throws an IndexOutOfBoundsException if there's no such
+     * element.
+     */
+    protected E getElement(int index) throws IndexOutOfBoundsException {
+        return getVector().get(index);
+    }
+
     /**
      * Factory method that makes the next Vector of input to be
      * processed concurrently by the gang of Threads.
@@ -110,7 +145,7 @@ public abstract class ThreadGang<E, R> implements Runnable {
                     try {
                         // Get the input data element associated with
                         // this index.
-                        E element = getVector().get(index);
+                        E element = getElement(index);
 
                         // Process input data element.
                         if (doWorkInBackground(element) == false)
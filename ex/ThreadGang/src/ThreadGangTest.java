@@ -26,6 +26,10 @@ public class ThreadGangTest {
     private final static int COUNTDOWNLATCH = 2;
     private final static int CYCLIC = 3;
     private final static int PHASER = 4;
+    private final static int VIRTUAL_JOIN = 5;
+    private final static int VIRTUAL_CYCLIC = 6;
+    private final static int VIRTUAL_PHASER = 7;
+    private final static int ARRAY_CYCLIC = 8;
 
     /**
      * If this is set to true then lots of debugging output will be
@@ -180,7 +184,7 @@ public class ThreadGangTest {
             // Vector - each Thread performs the processing designated
             // by the doWorkInBackgroundThread() hook method.
             for (int i = 0; i < size; ++i) {
-                Thread t = new Thread(makeWorker(i));
+                Thread t = makeThread(makeWorker(i));
                 mWorkerThreads.add(t);
                 t.start();
             }
@@ -235,7 +239,7 @@ public class ThreadGangTest {
             // Vector - each Thread performs the processing designated
             // by the doWorkInBackgroundThread() hook method.
             for (int i = 0; i < size; ++i) 
-                new Thread(makeWorker(i)).start();
+                makeThread(makeWorker(i)).start();
         }
 
         /**
@@ -405,7 +409,7 @@ public class ThreadGangTest {
             // Vector - each Thread performs the processing designated
             // by the doWorkInBackgroundThread() hook method.
             for (int i = 0; i < size; ++i)
-                new Thread(makeWorker(i)).start();
+                makeThread(makeWorker(i)).start();
         }
 
         /**
@@ -435,6 +439,52 @@ public class ThreadGangTest {
         }
     }
 
+    /**
+     * @class SearchCyclicArrayThreadGang
+     *
+     * @brief Customizes the SearchCyclicThreadGang so its workers
+     *        read each cycle's input from a snapshot array without
+     *        locking the Vector, as ArrayThreadGang does.
+     */
+    static public class SearchCyclicArrayThreadGang 
+                  extends SearchCyclicThreadGang {
+        /**
+         * Snapshot of the current input Vector, which is never
+         * modified after it's published.
+         */
+        private volatile Object[] mElements = null;
+
+        /**
+         * Constructor initializes the superclass.
+         */
+        SearchCyclicArrayThreadGang(String[] wordsToFind) {
+            // Pass input to search to superclass constructor.
+            super(wordsToFind);
+        }
+
+        /**
+         * Set the Vector to use as input and publish a snapshot of
+         * its contents for the workers to read.
+         */
+        @Override
+        protected void setVector(Vector<String> input) {
+            // Publish the snapshot before the Vector so a worker that
+            // sees the new Vector also sees the matching snapshot.
+            mElements = input == null ? null : input.toArray();
+            super.setVector(input);
+        }
+
+        /**
+         * Return the element of the current input at location @code
+         * index without acquiring any locks.
+         */
+        @Override
+        protected String getElement(int index)
+            throws IndexOutOfBoundsException {
+            return (String) mElements[index];
+        }
+    }
+
     /**
      * @class SearchPhaserThreadGang
      *
@@ -532,7 +582,7 @@ public class ThreadGangTest {
                                          // them.
                                          if (oldSize < newSize)
                                              for (int i = oldSize; i < newSize; ++i)
-                                                 new Thread(makeWorker(i)).start();
+                                                 makeThread(makeWorker(i)).start();
 
                                          // Indicate there's no more need
                                          // for reconfiguration.
@@ -566,7 +616,7 @@ public class ThreadGangTest {
             // Vector - each Thread performs the processing designated
             // by the doWorkInBackgroundThread() hook method.
             for (int i = 0; i < size; ++i)
-                new Thread(makeWorker(i)).start();
+                makeThread(makeWorker(i)).start();
         }
 
         /**
@@ -690,6 +740,21 @@ public class ThreadGangTest {
         case PHASER:
             s = new SearchPhaserThreadGang(wordList);
             break;
+        case VIRTUAL_JOIN:
+            s = new SearchOneShotThreadGangJoin(wordList);
+            s.setThreadFactory(VirtualThreads.factory());
+            break;
+        case VIRTUAL_CYCLIC:
+            s = new SearchCyclicThreadGang(wordList);
+            s.setThreadFactory(VirtualThreads.factory());
+            break;
+        case VIRTUAL_PHASER:
+            s = new SearchPhaserThreadGang(wordList);
+            s.setThreadFactory(VirtualThreads.factory());
+            break;
+        case ARRAY_CYCLIC:
+            s = new SearchCyclicArrayThreadGang(wordList);
+            break;
         }
         return s;
     }
@@ -739,6 +804,26 @@ public class ThreadGangTest {
         makeThreadGang(wordList, PHASER).run();
         printDebugging("Ending PHASER");
 
+        if (!VirtualThreads.isSupported())
+            printDebugging("Virtual Threads aren't supported by this JVM,"
+                           + " so the VIRTUAL tests use platform Threads");
+
+        printDebugging("Starting VIRTUAL_JOIN");
+        makeThreadGang(wordList, VIRTUAL_JOIN).run();
+        printDebugging("Ending VIRTUAL_JOIN");
+
+        printDebugging("Starting VIRTUAL_CYCLIC");
+        makeThreadGang(wordList, VIRTUAL_CYCLIC).run();
+        printDebugging("Ending VIRTUAL_CYCLIC");
+
+        printDebugging("Starting VIRTUAL_PHASER");
+        makeThreadGang(wordList, VIRTUAL_PHASER).run();
+        printDebugging("Ending VIRTUAL_PHASER");
+
+        printDebugging("Starting ARRAY_CYCLIC");
+        makeThreadGang(wordList, ARRAY_CYCLIC).run();
+        printDebugging("Ending ARRAY_CYCLIC");
+
         printDebugging("Ending ThreadGangTest");
     }
 }
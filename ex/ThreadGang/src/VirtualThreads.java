@@ -0,0 +1,80 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * @class VirtualThreads
+ *
+ * @brief Provides factories that run each task in its own virtual
+ *        Thread.  Virtual Threads are only available in Java 21 and
+ *        later, so they're obtained via reflection, which allows these
+ *        examples to still build and run on older JDKs.  On those
+ *        JDKs the factories fall back to platform Threads, which can
+ *        be checked via isSupported().
+ */
+public final class VirtualThreads {
+    /**
+     * Creates a new virtual Thread for each Runnable, or null if
+     * virtual Threads aren't supported by this JVM.
+     */
+    private static final ThreadFactory sVirtualThreadFactory =
+        makeVirtualThreadFactory();
+
+    /**
+     * This class just provides static methods.
+     */
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns true if this JVM supports virtual Threads.
+     */
+    public static boolean isSupported() {
+        return sVirtualThreadFactory != null;
+    }
+
+    /**
+     * Returns a ThreadFactory that creates a new virtual Thread for
+     * each Runnable, or a platform Thread if virtual Threads aren't
+     * supported.
+     */
+    public static ThreadFactory factory() {
+        return isSupported()
+            ? sVirtualThreadFactory
+            : Executors.defaultThreadFactory();
+    }
+
+    /**
+     * Returns an ExecutorService that runs each submitted task in a
+     * new virtual Thread, or a cached pool of platform Threads if
+     * virtual Threads aren't supported.
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        if (isSupported())
+            try {
+                return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            } catch (Exception e) {
+                // Fall through to the cached pool.
+            }
+        return Executors.newCachedThreadPool();
+    }
+
+    /**
+     * Use reflection to call Thread.ofVirtual().factory(), returning
+     * null if that's not possible.
+     */
+    private static ThreadFactory makeVirtualThreadFactory() {
+        try {
+            Object builder =
+                Thread.class.getMethod("ofVirtual").invoke(null);
+
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                .getMethod("factory")
+                .invoke(builder);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
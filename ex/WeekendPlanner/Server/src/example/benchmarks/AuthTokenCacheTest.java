@@ -0,0 +1,223 @@
+package example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.Gson;
+
+import example.web.ops.AuthTokenCache;
+import example.web.ops.FlightOps;
+import example.web.responses.OAuth2TokenResponse;
+
+import static example.benchmarks.WeekendPlannerStubs.check;
+
+/**
+ * Checks that AuthTokenCache honors expires_in, makes only one
+ * authorize() call for concurrent callers, and refreshes ahead of expiry,
+ * then measures the latency of FlightOps.getAuthToken() against a
+ * StubApiServer with and without a cached token.
+ */
+public class AuthTokenCacheTest {
+
+	/**
+	 * Default values
+	 */
+	private static final int CALLERS = 64;
+	private static final long AUTH_LATENCY_MILLIS = 20;
+	private static final int REQUESTS = 100;
+
+	private static final Gson sGson = new Gson();
+
+	public static void main(String[] args) throws Exception {
+		testSingleFlight();
+		testExpiry();
+		testRefreshAhead();
+		testFailureIsRetried();
+		measureLatency();
+		System.out.println("AuthTokenCacheTest passed");
+	}
+
+	/**
+	 * Make a token response with the given access token and lifetime
+	 */
+	private static OAuth2TokenResponse makeToken(String token,
+			Long expiresInSeconds) {
+		return sGson.fromJson("{\"access_token\":\"" + token + "\""
+			+ (expiresInSeconds != null ?
+				",\"expires_in\":\"" + expiresInSeconds + "\"" : "")
+			+ "}", OAuth2TokenResponse.class);
+	}
+
+	/**
+	 * Concurrent callers with no cached token share one authorize() call
+	 */
+	private static void testSingleFlight() throws InterruptedException {
+		AtomicInteger authorizations = new AtomicInteger();
+		AuthTokenCache cache = new AuthTokenCache(() -> {
+			authorizations.incrementAndGet();
+			sleep(AUTH_LATENCY_MILLIS);
+			return makeToken("token", 3600L);
+		});
+
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> callers = new ArrayList<>();
+		AtomicInteger wrongTokens = new AtomicInteger();
+		for (int i = 0; i < CALLERS; ++i) {
+			Thread t = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (!"token".equals(cache.getAccessToken()))
+					wrongTokens.incrementAndGet();
+			});
+			t.start();
+			callers.add(t);
+		}
+		start.countDown();
+		for (Thread t : callers)
+			t.join();
+
+		check(authorizations.get() == 1,
+			"expected 1 authorization, got " + authorizations.get());
+		check(wrongTokens.get() == 0, "callers got the wrong token");
+	}
+
+	/**
+	 * A token is reused until it expires, and then replaced
+	 */
+	private static void testExpiry() {
+		AtomicLong now = new AtomicLong();
+		AtomicInteger authorizations = new AtomicInteger();
+		AuthTokenCache cache = new AuthTokenCache(
+			() -> makeToken("token" + authorizations.incrementAndGet(), 600L),
+			now::get);
+
+		check("token1".equals(cache.getAccessToken()), "first token");
+		now.set(TimeUnit.SECONDS.toNanos(500));
+		check("token1".equals(cache.getAccessToken()), "token reused");
+		now.set(TimeUnit.SECONDS.toNanos(601));
+		check("token2".equals(cache.getAccessToken()), "expired token replaced");
+		check(authorizations.get() == 2, "two authorizations");
+
+		// Tokens without an expiry are kept until invalidated
+		AuthTokenCache appTokens = new AuthTokenCache(
+			() -> makeToken("app" + authorizations.incrementAndGet(), null),
+			now::get);
+		String appToken = appTokens.getAccessToken();
+		now.set(TimeUnit.DAYS.toNanos(365));
+		check(appToken.equals(appTokens.getAccessToken()), "app token kept");
+		appTokens.invalidate();
+		check(!appToken.equals(appTokens.getAccessToken()),
+			"invalidated token replaced");
+	}
+
+	/**
+	 * Within a minute of expiry one caller refreshes the token while a
+	 * concurrent caller keeps using the current one
+	 */
+	private static void testRefreshAhead() throws InterruptedException {
+		AtomicLong now = new AtomicLong();
+		AtomicInteger authorizations = new AtomicInteger();
+		CountDownLatch refreshing = new CountDownLatch(1);
+		CountDownLatch finishRefresh = new CountDownLatch(1);
+		AuthTokenCache cache = new AuthTokenCache(() -> {
+			int n = authorizations.incrementAndGet();
+			if (n == 2) {
+				refreshing.countDown();
+				await(finishRefresh);
+			}
+			return makeToken("token" + n, 600L);
+		}, now::get);
+
+		cache.getAccessToken();
+		now.set(TimeUnit.SECONDS.toNanos(570));
+
+		String[] refreshed = new String[1];
+		Thread refresher = new Thread(
+			() -> refreshed[0] = cache.getAccessToken());
+		refresher.start();
+		refreshing.await();
+
+		// The refresh is in progress, but the current token is still valid
+		check("token1".equals(cache.getAccessToken()), "current token used");
+		finishRefresh.countDown();
+		refresher.join();
+
+		check("token2".equals(refreshed[0]), "refreshed token");
+		check("token2".equals(cache.getAccessToken()), "new token cached");
+		check(authorizations.get() == 2, "one refresh");
+	}
+
+	/**
+	 * A failed authorization is reported to the caller and retried by
+	 * the next one
+	 */
+	private static void testFailureIsRetried() {
+		AtomicInteger authorizations = new AtomicInteger();
+		AuthTokenCache cache = new AuthTokenCache(() -> {
+			if (authorizations.incrementAndGet() == 1)
+				throw new RuntimeException("authorization failed");
+			return makeToken("token", 600L);
+		});
+
+		try {
+			cache.getAccessToken();
+			check(false, "expected the authorization to fail");
+		} catch (RuntimeException e) {
+			check("authorization failed".equals(e.getMessage()),
+				"unexpected exception " + e);
+		}
+		check("token".equals(cache.getAccessToken()), "retried");
+	}
+
+	/**
+	 * Measure FlightOps.getAuthToken() against a stub Sabre API, where
+	 * only the first request pays for the authorization round trip
+	 */
+	private static void measureLatency() throws Exception {
+		try (StubApiServer server = new StubApiServer(AUTH_LATENCY_MILLIS)) {
+			server.respond("/v1/auth/token",
+				"{\"access_token\":\"token\",\"token_type\":\"bearer\","
+				+ "\"expires_in\":\"604800\"}");
+			FlightOps flightOps = new FlightOps(server.getEndpoint());
+
+			long start = System.nanoTime();
+			flightOps.getAuthToken();
+			long coldMicros = (System.nanoTime() - start) / 1000;
+
+			start = System.nanoTime();
+			for (int i = 0; i < REQUESTS; ++i)
+				flightOps.getAuthToken();
+			long warmMicros = (System.nanoTime() - start) / 1000 / REQUESTS;
+
+			check(server.getHits("/v1/auth/token") == 1,
+				"expected 1 authorization, got "
+				+ server.getHits("/v1/auth/token"));
+			System.out.println("getAuthToken(): " + coldMicros
+				+ " us uncached, " + warmMicros + " us cached");
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
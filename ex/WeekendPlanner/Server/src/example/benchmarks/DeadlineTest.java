@@ -0,0 +1,226 @@
+package example.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import example.web.ops.TicketOps;
+import example.web.responses.OAuth2TokenResponse;
+import example.weekendplanner.Deadlines;
+import example.weekendplanner.LatencyTracker;
+import example.weekendplanner.WeekendPlannerOps;
+import example.weekendplanner.WeekendPlannerResponse;
+import retrofit.client.Client;
+
+import static example.benchmarks.WeekendPlannerStubs.check;
+
+/**
+ * Checks that Deadlines times out late futures and hedges slow queries,
+ * then plans weekends against local stand-in APIs where the tickets API
+ * or its authorization is slower than its budget, which must return the
+ * rest of the plan with the tickets listed as missing rather than
+ * waiting for them.
+ */
+public class DeadlineTest {
+
+	/**
+	 * Default values
+	 */
+	private static final long TIMEOUT_MILLIS = 50;
+	private static final long HEDGE_DELAY_MILLIS = 50;
+	private static final long SLOW_QUERY_MILLIS = 1000;
+	private static final long SLOW_TICKETS_MILLIS = 8000;
+	private static final long LATENCY_MILLIS = 5;
+	private static final int EVENTS = 50;
+
+	public static void main(String[] args) throws Exception {
+		ExecutorService executor = Executors.newCachedThreadPool();
+		Deadlines deadlines = new Deadlines("test");
+		try {
+			testTimeout(deadlines);
+			testHedge(deadlines, executor);
+			testHedgeFailsOnlyIfEveryAttemptFails(deadlines, executor);
+		} finally {
+			deadlines.shutdown();
+			executor.shutdownNow();
+		}
+		testLateTicketsAreMissing();
+		testLateTicketAuthorizationIsMissing();
+		System.out.println("DeadlineTest passed");
+	}
+
+	/**
+	 * A late future fails with a TimeoutException, without completing
+	 * the original, while a prompt one is passed through
+	 */
+	private static void testTimeout(Deadlines deadlines) {
+		CompletableFuture<String> late = new CompletableFuture<>();
+		try {
+			deadlines.orTimeout(late, TIMEOUT_MILLIS, "test").join();
+			check(false, "expected a timeout");
+		} catch (CompletionException e) {
+			check(e.getCause() instanceof TimeoutException,
+				"unexpected exception " + e);
+		}
+		check(!late.isDone(), "the original future was completed");
+
+		check("prompt".equals(deadlines.orTimeout(
+				CompletableFuture.completedFuture("prompt"),
+				TIMEOUT_MILLIS, "test").join()), "prompt future");
+		check(deadlines.getTimeoutCount() == 1,
+			"unexpected statistics " + deadlines.getStatistics());
+	}
+
+	/**
+	 * A query slower than the hedge delay is duplicated, and the
+	 * duplicate's response is used
+	 */
+	private static void testHedge(Deadlines deadlines,
+			ExecutorService executor) {
+		AtomicInteger attempts = new AtomicInteger();
+		LatencyTracker latencies = new LatencyTracker(HEDGE_DELAY_MILLIS);
+
+		long start = System.nanoTime();
+		String response = deadlines.hedge(() -> {
+			if (attempts.incrementAndGet() == 1)
+				sleep(SLOW_QUERY_MILLIS);
+			return "response " + attempts.get();
+		}, executor, latencies).join();
+		long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+		check(response.startsWith("response"), "hedged response");
+		check(elapsedMillis < SLOW_QUERY_MILLIS / 2,
+			"hedged query took " + elapsedMillis + " ms");
+		check(deadlines.getHedgeCount() == 1
+				&& deadlines.getHedgeWinCount() == 1,
+			"unexpected statistics " + deadlines.getStatistics());
+
+		// A prompt query isn't hedged
+		check("prompt".equals(deadlines.hedge(() -> "prompt", executor,
+				latencies).join()), "prompt query");
+		sleep(2 * HEDGE_DELAY_MILLIS);
+		check(deadlines.getHedgeCount() == 1, "prompt query hedged");
+		System.out.println("hedged query: " + elapsedMillis + " ms with "
+			+ SLOW_QUERY_MILLIS + " ms for the first attempt");
+	}
+
+	/**
+	 * A hedged query fails only if the original and the duplicate do
+	 */
+	private static void testHedgeFailsOnlyIfEveryAttemptFails(
+			Deadlines deadlines, ExecutorService executor) {
+		LatencyTracker latencies = new LatencyTracker(HEDGE_DELAY_MILLIS);
+
+		AtomicInteger attempts = new AtomicInteger();
+		check("recovered".equals(deadlines.hedge(() -> {
+				if (attempts.incrementAndGet() == 1) {
+					sleep(2 * HEDGE_DELAY_MILLIS);
+					throw new RuntimeException("The service is likely down");
+				}
+				sleep(4 * HEDGE_DELAY_MILLIS);
+				return "recovered";
+			}, executor, latencies).join()), "duplicate response used");
+
+		try {
+			deadlines.hedge(() -> {
+				sleep(2 * HEDGE_DELAY_MILLIS);
+				throw new RuntimeException("The service is likely down");
+			}, executor, latencies).join();
+			check(false, "expected the query to fail");
+		} catch (CompletionException e) {
+			check(e.getCause() instanceof RuntimeException
+				&& "The service is likely down".equals(
+					e.getCause().getMessage()), "unexpected exception " + e);
+		}
+	}
+
+	/**
+	 * Tickets slower than their budget are left out of the plan, which
+	 * is returned in about the budget
+	 */
+	private static void testLateTicketsAreMissing() throws Exception {
+		try (StubApiServer server =
+				WeekendPlannerStubs.start(LATENCY_MILLIS, EVENTS)) {
+			server.delay("/search/catalog/events/v2", SLOW_TICKETS_MILLIS);
+			String endpoint = server.getEndpoint();
+			checkTicketsMissing(new WeekendPlannerOps(
+				8, endpoint, endpoint, endpoint, endpoint), "tickets");
+		}
+	}
+
+	/**
+	 * Tickets whose authorization is slower than its budget are left out
+	 * of the plan too, rather than failing it
+	 */
+	private static void testLateTicketAuthorizationIsMissing()
+			throws Exception {
+		try (StubApiServer server =
+				WeekendPlannerStubs.start(LATENCY_MILLIS, EVENTS)) {
+			String endpoint = server.getEndpoint();
+			WeekendPlannerOps wOps = new WeekendPlannerOps(8, endpoint,
+					endpoint, endpoint, endpoint) {
+				@Override
+				protected TicketOps makeTicketOps(String endpoint,
+						Client client) {
+					return new TicketOps(endpoint, client) {
+						@Override
+						protected OAuth2TokenResponse authorize() {
+							sleep(SLOW_TICKETS_MILLIS);
+							return super.authorize();
+						}
+					};
+				}
+			};
+			checkTicketsMissing(wOps, "ticket authorization");
+			check(server.getHits("/search/catalog/events/v2") == 0,
+				"tickets queried without authorization");
+		}
+	}
+
+	/**
+	 * Plan a weekend and check that it has everything but the tickets
+	 */
+	private static void checkTicketsMissing(WeekendPlannerOps wOps,
+			String label) throws Exception {
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+		}));
+		long start = System.nanoTime();
+		WeekendPlannerResponse plan;
+		try {
+			plan = wOps.planWeekend(WeekendPlannerStubs.makeRequest("1000"))
+				.get(SLOW_TICKETS_MILLIS, TimeUnit.MILLISECONDS);
+		} finally {
+			System.setOut(out);
+		}
+		long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+		check(plan.getFlight() != null, "flight missing");
+		check(plan.getWeather() != null
+			&& plan.getWeather().size() == 3, "weather missing");
+		check(plan.getMissingSections().equals(Arrays.asList("tickets")),
+			"missing sections " + plan.getMissingSections());
+		System.out.println("plan with late " + label + ": " + elapsedMillis
+			+ " ms, " + wOps.getDeadlineStatistics());
+		wOps.shutdown();
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,205 @@
+package example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.gson.Gson;
+
+import example.web.model.Event;
+import example.web.model.TripVariant;
+import example.web.responses.TicketResponse;
+import example.weekendplanner.EventScheduler;
+
+import static example.benchmarks.WeekendPlannerStubs.check;
+
+/**
+ * Checks that EventScheduler packs events into the trip variants without
+ * overlaps, repeated titles or overspending, and without dropping events
+ * that fit, then measures it with 500 events, StubHub's page size, and
+ * with 10,000.
+ */
+public class EventSchedulerTest {
+
+	/**
+	 * Default values
+	 */
+	private static final int VARIANTS = 5;
+	private static final double BUDGET = 1000.0;
+	private static final double LARGE_BUDGET = 1e9;
+	private static final String FRIDAY = "2016-04-08";
+	private static final String SATURDAY = "2016-04-09";
+	private static final String ZONE = "-0700";
+
+	private static final Gson sGson = new Gson();
+
+	public static void main(String[] args) {
+		testNoEventDroppedOnWrap();
+		testConflictsGoToOtherVariants();
+		testTitlesIgnoreCase();
+		measure(500, 200);
+		measure(10000, 20);
+		System.out.println("EventSchedulerTest passed");
+	}
+
+	private static Event makeEvent(String title, int hour, double price) {
+		return makeEvent(title, FRIDAY, hour, price);
+	}
+
+	private static Event makeEvent(String title, String day, int hour,
+			double price) {
+		return new Event(title,
+			String.format("%sT%02d:00:00%s", day, hour, ZONE), null,
+			price, "USD");
+	}
+
+	private static List<TripVariant> makeVariants(int count, double budget) {
+		List<TripVariant> variants = new ArrayList<>();
+		for (int i = 0; i < count; ++i)
+			variants.add(new TripVariant(budget));
+		return variants;
+	}
+
+	private static int countScheduled(List<TripVariant> variants) {
+		return variants.stream()
+			.mapToInt(variant -> variant.getSchedule().size())
+			.sum();
+	}
+
+	/**
+	 * Dealing events round-robin used to drop the event that came up
+	 * when the variants ran out
+	 */
+	private static void testNoEventDroppedOnWrap() {
+		List<Event> events = new ArrayList<>();
+		for (int i = 0; i < 2 * VARIANTS + 1; ++i)
+			events.add(makeEvent("Event " + i, i, 10.0));
+		List<TripVariant> variants = makeVariants(VARIANTS, BUDGET);
+
+		check(EventScheduler.schedule(events, variants) == events.size(),
+			"events dropped");
+		check(countScheduled(variants) == events.size(), "events dropped");
+		for (TripVariant variant : variants)
+			check(!variant.getSchedule().isEmpty(), "variant left empty");
+	}
+
+	/**
+	 * An event that doesn't fit the variant whose turn it is goes to
+	 * another variant
+	 */
+	private static void testConflictsGoToOtherVariants() {
+		List<TripVariant> variants = makeVariants(2, BUDGET);
+		List<Event> events = Arrays.asList(
+			// Only two of these fit, one in each variant
+			makeEvent("Play", 10, 10.0),
+			makeEvent("Concert", 10, 10.0),
+			makeEvent("Game", 10, 10.0),
+			// Overlaps every variant's first event
+			makeEvent("Museum", 11, 10.0),
+			makeEvent("Show", 16, 10.0),
+			// It's the second variant's turn, but it is already going
+			// to the game
+			makeEvent("GAME", SATURDAY, 10, 10.0),
+			// Too expensive once the variants have spent some money
+			makeEvent("Gala", SATURDAY, 19, BUDGET));
+
+		check(EventScheduler.schedule(events, variants) == 4,
+			"scheduled " + variants);
+		check(describe(variants.get(0)).equals(
+				Arrays.asList("Concert", "Show", "GAME")),
+			"first variant " + describe(variants.get(0)));
+		check(describe(variants.get(1)).equals(Arrays.asList("Game")),
+			"second variant " + describe(variants.get(1)));
+	}
+
+	/**
+	 * The same event posted twice on a day, in different cases, is
+	 * only scheduled once
+	 */
+	private static void testTitlesIgnoreCase() {
+		Event lower = makeEvent("concert", 10, 20.0);
+		Event upper = makeEvent("CONCERT", 10, 10.0);
+		check(lower.equals(upper) && lower.hashCode() == upper.hashCode(),
+			"equal events hash differently");
+
+		List<TripVariant> variants = makeVariants(VARIANTS, BUDGET);
+		check(EventScheduler.schedule(Arrays.asList(lower, upper),
+				variants) == 1, "duplicate event scheduled");
+		check(variants.get(0).getSchedule().get(0) == upper,
+			"the cheapest posting wasn't kept");
+	}
+
+	/**
+	 * Check that every variant's schedule is in order without overlaps,
+	 * repeated titles or overspending, and that every event left out
+	 * fits none of the variants
+	 */
+	private static void checkSchedule(List<Event> events,
+			List<TripVariant> variants) {
+		Map<Event, Boolean> scheduled = new IdentityHashMap<>();
+		for (TripVariant variant : variants) {
+			check(variant.getRemainingBudget() >= 0, "overspent");
+			Set<String> titles = new HashSet<>();
+			Event previous = null;
+			for (Event event : variant.getSchedule()) {
+				check(titles.add(event.getTitleKey()), "repeated title");
+				check(previous == null || event.getStartDateTime()
+						.isAfter(previous.getEndDateTime()), "overlap");
+				previous = event;
+				scheduled.put(event, true);
+			}
+		}
+
+		Set<Event> seen = new HashSet<>();
+		events.stream()
+			.sorted(TicketResponse.EVENT_ORDER)
+			.filter(seen::add)
+			.filter(event -> !scheduled.containsKey(event))
+			.forEach(event -> check(variants.stream()
+					.noneMatch(variant -> variant.canAdd(event)),
+				"an event that fits was left out: " + event));
+	}
+
+	/**
+	 * Measure scheduling eventCount events, freshly parsed each time so
+	 * that parsing their times is included
+	 */
+	private static void measure(int eventCount, int iterations) {
+		String json = WeekendPlannerStubs.makeTicketJson(eventCount);
+		for (double budget : new double[] { BUDGET, LARGE_BUDGET }) {
+			long totalNanos = 0;
+			int scheduledCount = 0;
+			for (int i = 0; i < 2 * iterations; ++i) {
+				List<Event> events =
+					sGson.fromJson(json, TicketResponse.class).getEvents();
+				List<TripVariant> variants = makeVariants(VARIANTS, budget);
+
+				long start = System.nanoTime();
+				scheduledCount = EventScheduler.schedule(events, variants);
+				long elapsed = System.nanoTime() - start;
+
+				// The first half of the iterations warm up the JIT
+				if (i >= iterations)
+					totalNanos += elapsed;
+				if (i == 0)
+					checkSchedule(events, variants);
+			}
+			System.out.println(String.format(
+				"%6d events, budget %.0f: %d scheduled in %.3f ms",
+				eventCount, budget, scheduledCount,
+				totalNanos / 1e6 / iterations));
+		}
+	}
+
+	private static List<String> describe(TripVariant variant) {
+		return variant.getSchedule().stream()
+			.map(Event::getTitle)
+			.collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,189 @@
+package example.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import com.google.gson.Gson;
+
+import example.weekendplanner.JsonResponseWriter;
+import example.weekendplanner.WeekendPlannerOps;
+import example.weekendplanner.WeekendPlannerResponse;
+
+import static example.benchmarks.WeekendPlannerStubs.check;
+
+/**
+ * Checks that JsonResponseWriter writes the same JSON that Gson.toJson()
+ * returns, gzipped or not, and negotiates gzip from Accept-Encoding, then
+ * measures the bytes allocated to send a plan the way the servlet used to
+ * (building the String, echoing it, and encoding it twice) and by
+ * streaming it.
+ */
+public class JsonResponseWriterTest {
+
+	/**
+	 * Default values
+	 */
+	private static final int EVENTS = 500;
+	private static final int ITERATIONS = 200;
+
+	private static final Gson sGson = new Gson();
+
+	/**
+	 * Discards whatever is written to it, without allocating
+	 */
+	private static final OutputStream sDiscard = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+
+	public static void main(String[] args) throws Exception {
+		testAcceptsGzip();
+		WeekendPlannerResponse plan = makePlan();
+		testOutputMatchesToJson(plan);
+		measureAllocations(plan);
+		System.out.println("JsonResponseWriterTest passed");
+	}
+
+	private static void testAcceptsGzip() {
+		check(!JsonResponseWriter.acceptsGzip(null), "no header");
+		check(!JsonResponseWriter.acceptsGzip("identity"), "identity");
+		check(JsonResponseWriter.acceptsGzip("gzip"), "gzip");
+		check(JsonResponseWriter.acceptsGzip("deflate, GZIP;q=0.8"),
+			"gzip with a quality");
+		check(!JsonResponseWriter.acceptsGzip("gzip;q=0, deflate"),
+			"gzip refused");
+		check(JsonResponseWriter.acceptsGzip("*"), "any coding");
+	}
+
+	/**
+	 * Plan a weekend with many events against the stand-in APIs
+	 */
+	private static WeekendPlannerResponse makePlan() throws Exception {
+		try (StubApiServer server = WeekendPlannerStubs.start(0, EVENTS)) {
+			String endpoint = server.getEndpoint();
+			WeekendPlannerOps wOps = new WeekendPlannerOps(
+				4, endpoint, endpoint, endpoint, endpoint);
+			PrintStream out = System.out;
+			System.setOut(new PrintStream(sDiscard));
+			try {
+				return wOps.planWeekend(
+					WeekendPlannerStubs.makeRequest("100000")).join();
+			} finally {
+				System.setOut(out);
+				wOps.shutdown();
+			}
+		}
+	}
+
+	private static void testOutputMatchesToJson(WeekendPlannerResponse plan)
+			throws IOException {
+		JsonResponseWriter writer = new JsonResponseWriter(sGson);
+		for (Object src : new Object[] { plan, "Error getting weather", null }) {
+			byte[] expected = sGson.toJson(src)
+				.getBytes(StandardCharsets.UTF_8);
+
+			ByteArrayOutputStream plain = new ByteArrayOutputStream();
+			writer.write(src, plain, false);
+			check(Arrays.equals(expected, plain.toByteArray()),
+				"streamed JSON differs for " + src);
+
+			ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+			writer.write(src, gzipped, true);
+			check(Arrays.equals(expected,
+					gunzip(gzipped.toByteArray())),
+				"gzipped JSON differs for " + src);
+		}
+	}
+
+	/**
+	 * Measure the bytes allocated per response by the old and new ways
+	 * of sending a plan
+	 */
+	private static void measureAllocations(WeekendPlannerResponse plan)
+			throws IOException {
+		JsonResponseWriter writer = new JsonResponseWriter(sGson);
+		PrintStream echo = new PrintStream(sDiscard);
+		int jsonBytes = sGson.toJson(plan).getBytes(StandardCharsets.UTF_8)
+			.length;
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		writer.write(plan, gzipped, true);
+
+		long before = measure(() -> {
+			// What sendResponse() used to do
+			String responseJson = sGson.toJson(plan);
+			echo.println("Sending response to client: " + responseJson);
+			int contentLength = responseJson.getBytes().length;
+			try (PrintWriter pw = new PrintWriter(sDiscard)) {
+				pw.write(responseJson);
+			}
+			return contentLength;
+		});
+		long streamed = measure(() -> {
+			writer.write(plan, sDiscard, false);
+			return 0;
+		});
+		long streamedGzip = measure(() -> {
+			writer.write(plan, sDiscard, true);
+			return 0;
+		});
+
+		System.out.println("response of " + jsonBytes + " bytes ("
+			+ gzipped.size() + " gzipped), bytes allocated per response: "
+			+ before + " before, " + streamed + " streamed, "
+			+ streamedGzip + " streamed and gzipped");
+		check(streamed < before, "streaming allocated more");
+	}
+
+	/**
+	 * A way of sending the response
+	 */
+	private interface Send {
+		int send() throws IOException;
+	}
+
+	/**
+	 * Returns the average bytes allocated by the current thread to send
+	 * the response, after warming up
+	 */
+	private static long measure(Send send) throws IOException {
+		com.sun.management.ThreadMXBean threads =
+			(com.sun.management.ThreadMXBean)
+				ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+
+		for (int i = 0; i < ITERATIONS; ++i)
+			send.send();
+		long start = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < ITERATIONS; ++i)
+			send.send();
+		return (threads.getThreadAllocatedBytes(threadId) - start)
+			/ ITERATIONS;
+	}
+
+	private static byte[] gunzip(byte[] gzipped) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(
+				new ByteArrayInputStream(gzipped))) {
+			byte[] buffer = new byte[1024];
+			int count;
+			while ((count = in.read(buffer)) != -1)
+				out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,223 @@
+package example.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+
+import example.web.model.TripVariant;
+import example.web.requests.WeekendPlannerRequest;
+import example.weekendplanner.WeekendPlannerOps;
+import example.weekendplanner.WeekendPlannerResponse;
+
+import static example.benchmarks.WeekendPlannerStubs.check;
+
+/**
+ * Checks that identical plans requested at once share one computation,
+ * that each caller gets a copy of the plan it can change without
+ * changing the others', that different plans, or a plan requested
+ * after an identical one completed, are computed separately, and that
+ * a plan that can't be started fails rather than throwing.
+ */
+public class PlanCoalescingTest {
+
+	/**
+	 * Default values
+	 */
+	private static final int THREADS = 4;
+	private static final int REQUESTS = 100;
+	private static final int EVENTS = 50;
+	private static final long LATENCY_MILLIS = 20;
+	private static final long TIMEOUT_SECONDS = 60;
+	private static final String FLIGHTS = "/v1/shop/flights";
+
+	private static final Gson sGson = new Gson();
+
+	public static void main(String[] args) throws Exception {
+		try (StubApiServer server =
+				WeekendPlannerStubs.start(LATENCY_MILLIS, EVENTS)) {
+			String endpoint = server.getEndpoint();
+			WeekendPlannerOps wOps = new WeekendPlannerOps(
+				THREADS, endpoint, endpoint, endpoint, endpoint);
+
+			// Silence the Ops' execution time logging during the run
+			PrintStream out = System.out;
+			System.setOut(new PrintStream(new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+			}));
+			long elapsedMillis;
+			try {
+				elapsedMillis = testIdenticalPlansShared(server, wOps);
+				testDifferentPlansNotShared(server, wOps);
+				testCompletedPlanNotShared(server, wOps);
+				testUnstartedPlanFails(wOps);
+			} finally {
+				System.setOut(out);
+			}
+
+			System.out.println(REQUESTS + " identical plans in "
+				+ elapsedMillis + " ms, " + wOps.getPlanStatistics());
+			wOps.shutdown();
+		}
+		System.out.println("PlanCoalescingTest passed");
+	}
+
+	/**
+	 * Make a request from the origin with the given budget, to the
+	 * destination with the given airport code
+	 */
+	private static WeekendPlannerRequest makeRequest(String budget,
+			String destinationCode) {
+		return sGson.fromJson("{\"budget\":\"" + budget + "\","
+			+ "\"currentCity\":{\"code\":\""
+			+ WeekendPlannerStubs.ORIGIN_CODE + "\",\"name\":\"Nashville\"},"
+			+ "\"destinationCity\":{\"code\":\"" + destinationCode
+			+ "\",\"name\":\"" + WeekendPlannerStubs.DESTINATION_NAME
+			+ "\"}}",
+			WeekendPlannerRequest.class);
+	}
+
+	/**
+	 * Request all the plans at once and wait for them
+	 */
+	private static List<WeekendPlannerResponse> plan(WeekendPlannerOps wOps,
+			List<WeekendPlannerRequest> requests) throws Exception {
+		List<CompletableFuture<WeekendPlannerResponse>> plans =
+			new ArrayList<>(requests.size());
+		for (WeekendPlannerRequest request : requests)
+			plans.add(wOps.planWeekend(request));
+		CompletableFuture.allOf(plans.toArray(
+				new CompletableFuture<?>[plans.size()]))
+			.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+		List<WeekendPlannerResponse> responses = new ArrayList<>();
+		for (CompletableFuture<WeekendPlannerResponse> plan : plans)
+			responses.add(plan.getNow(null));
+		return responses;
+	}
+
+	/**
+	 * Requests that differ only in the format of the budget and the
+	 * case of the airport codes query the APIs once, and each gets its
+	 * own copy of the plan. Returns the time taken to plan them
+	 */
+	private static long testIdenticalPlansShared(StubApiServer server,
+			WeekendPlannerOps wOps) throws Exception {
+		server.resetHits();
+		String code = WeekendPlannerStubs.DESTINATION_CODE;
+		List<WeekendPlannerRequest> requests = new ArrayList<>();
+		for (int i = 0; i < REQUESTS; ++i)
+			requests.add(makeRequest(i % 2 == 0 ? "1000" : "1000.00",
+				i % 3 == 0 ? code.toLowerCase() : code));
+
+		long start = System.nanoTime();
+		List<WeekendPlannerResponse> responses = plan(wOps, requests);
+		long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+		check(server.getHits(FLIGHTS) == 1,
+			"flights queried " + server.getHits(FLIGHTS) + " times");
+
+		// Every caller has its own response and trip variants, which
+		// echo its own request, and plan the same trip
+		Map<Object, Boolean> seen = new IdentityHashMap<>();
+		String expected = describe(responses.get(1));
+		for (int i = 0; i < REQUESTS; ++i) {
+			WeekendPlannerResponse response = responses.get(i);
+			check(seen.put(response, true) == null, "response shared");
+			for (TripVariant variant : response.getTripVariants()) {
+				check(seen.put(variant, true) == null, "variant shared");
+				check(seen.put(variant.getSchedule(), true) == null,
+					"schedule shared");
+			}
+			check(response.getDestinationCityCode().equals(
+					requests.get(i).getDestinationCity().getCode()),
+				"another request's city was echoed");
+			check(describe(response).equals(expected), "plans differ");
+		}
+
+		// Changing one caller's plan doesn't change the others'
+		WeekendPlannerResponse changed = responses.get(0);
+		TripVariant variant = changed.getTripVariants().get(0);
+		check(!variant.getSchedule().isEmpty(), "nothing scheduled");
+		variant.subtractFromBudget(100.0);
+		variant.getSchedule().clear();
+		changed.addMissingSection("tickets");
+		for (int i = 1; i < REQUESTS; ++i)
+			check(describe(responses.get(i)).equals(expected),
+				"changing one plan changed another");
+		return elapsedMillis;
+	}
+
+	/**
+	 * Requests with different budgets are planned separately
+	 */
+	private static void testDifferentPlansNotShared(StubApiServer server,
+			WeekendPlannerOps wOps) throws Exception {
+		server.resetHits();
+		List<WeekendPlannerRequest> requests = new ArrayList<>();
+		for (int i = 0; i < REQUESTS; ++i)
+			requests.add(makeRequest(i % 2 == 0 ? "1000" : "2000",
+				WeekendPlannerStubs.DESTINATION_CODE));
+		plan(wOps, requests);
+		check(server.getHits(FLIGHTS) == 2,
+			"flights queried " + server.getHits(FLIGHTS) + " times");
+	}
+
+	/**
+	 * A plan isn't reused once it is complete
+	 */
+	private static void testCompletedPlanNotShared(StubApiServer server,
+			WeekendPlannerOps wOps) throws Exception {
+		server.resetHits();
+		WeekendPlannerRequest request = makeRequest("1000",
+			WeekendPlannerStubs.DESTINATION_CODE);
+		wOps.planWeekend(request).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		wOps.planWeekend(request).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		check(server.getHits(FLIGHTS) == 2,
+			"flights queried " + server.getHits(FLIGHTS) + " times");
+	}
+
+	/**
+	 * A request with no destination city fails to start its plan, which
+	 * is returned failed rather than thrown, and isn't left in progress
+	 * for identical requests to wait on
+	 */
+	private static void testUnstartedPlanFails(WeekendPlannerOps wOps)
+			throws Exception {
+		WeekendPlannerRequest request = sGson.fromJson("{\"budget\":\"1000\","
+			+ "\"currentCity\":{\"code\":\""
+			+ WeekendPlannerStubs.ORIGIN_CODE + "\",\"name\":\"Nashville\"}}",
+			WeekendPlannerRequest.class);
+		for (int i = 0; i < 2; ++i) {
+			CompletableFuture<WeekendPlannerResponse> plan =
+				wOps.planWeekend(request);
+			try {
+				plan.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+				check(false, "plan with no destination succeeded");
+			} catch (ExecutionException e) {
+			}
+		}
+	}
+
+	/**
+	 * Returns the JSON of the plan without the cities, which each
+	 * response echoes from its own request
+	 */
+	private static String describe(WeekendPlannerResponse response) {
+		return sGson.toJsonTree(response).getAsJsonObject()
+			.entrySet().stream()
+			.filter(entry -> !entry.getKey().endsWith("City"))
+			.map(entry -> entry.getKey() + "=" + entry.getValue())
+			.reduce("", String::concat);
+	}
+
+}
@@ -0,0 +1,206 @@
+package example.benchmarks;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import example.web.ops.PooledClient;
+import example.web.ops.TicketOps;
+import example.web.ops.WeatherOps;
+import example.web.responses.TicketResponse;
+import example.web.services.TicketService;
+import example.web.services.WeatherService;
+import retrofit.RetrofitError;
+import retrofit.client.Client;
+import retrofit.client.UrlConnectionClient;
+
+import static example.benchmarks.WeekendPlannerStubs.check;
+
+/**
+ * Checks that PooledClient bounds the connections to an endpoint, times
+ * out slow responses and releases connections whatever the response,
+ * then compares it with Retrofit's UrlConnectionClient, which BaseOps
+ * used before, on bursts of ticket queries against a stand-in API whose
+ * connections cost a handshake.
+ */
+public class PooledClientTest {
+
+	/**
+	 * Default values
+	 */
+	private static final int THREADS = 16;
+	private static final int MAX_CONNECTIONS = 3;
+	private static final int EVENTS = 100;
+	private static final long LATENCY_MILLIS = 5;
+	private static final long HANDSHAKE_MILLIS = 50;
+	private static final int BURSTS = 50;
+	private static final String WEATHER = "/data/2.5/forecast/daily";
+
+	public static void main(String[] args) throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+		try {
+			testConnectionsBounded(clients);
+			testReadTimeout();
+			testConnectionsReleasedOnErrors();
+			// Connections to a local server are almost free, so also
+			// compare them when they cost as much as a remote API's
+			for (long handshakeMillis : new long[] { 0, HANDSHAKE_MILLIS }) {
+				System.out.println("handshake of " + handshakeMillis + " ms:");
+				compare(clients, handshakeMillis, "UrlConnectionClient",
+					new UrlConnectionClient());
+				compare(clients, handshakeMillis, "PooledClient",
+					new PooledClient(
+						PooledClient.getShared().getMaxConnections(),
+						PooledClient.getShared().getConnectTimeoutMillis(),
+						PooledClient.getShared().getReadTimeoutMillis()));
+			}
+		} finally {
+			clients.shutdown();
+		}
+		System.out.println("PooledClientTest passed");
+	}
+
+	private static WeatherService makeWeatherService(String endpoint,
+			Client client) {
+		return new WeatherOps(endpoint, client).getService();
+	}
+
+	private static Object queryWeather(WeatherService service) {
+		return service.queryWeather(WeekendPlannerStubs.DESTINATION_NAME,
+			3, "imperial", "json");
+	}
+
+	/**
+	 * However many requests are made at once, no more than
+	 * maxConnections reach the endpoint at once, on no more than
+	 * maxConnections connections
+	 */
+	private static void testConnectionsBounded(ExecutorService clients)
+			throws Exception {
+		try (StubApiServer server = WeekendPlannerStubs.start(20, EVENTS)) {
+			PooledClient client = new PooledClient(MAX_CONNECTIONS, 5000, 5000);
+			WeatherService service =
+				makeWeatherService(server.getEndpoint(), client);
+
+			List<Future<Object>> responses = new ArrayList<>();
+			for (int i = 0; i < 4 * THREADS; ++i)
+				responses.add(clients.submit(() -> queryWeather(service)));
+			for (Future<Object> response : responses)
+				check(response.get() != null, "no response");
+
+			check(server.getPeakConcurrency() <= MAX_CONNECTIONS,
+				server.getPeakConcurrency() + " requests at once");
+			check(server.getConnectionCount() <= MAX_CONNECTIONS,
+				server.getConnectionCount() + " connections");
+			System.out.println(responses.size() + " concurrent requests: "
+				+ server.getConnectionCount() + " connections, "
+				+ client.getStatistics());
+		}
+	}
+
+	/**
+	 * A response slower than the read timeout fails the request, and
+	 * releases the connection
+	 */
+	private static void testReadTimeout() throws Exception {
+		try (StubApiServer server = WeekendPlannerStubs.start(0, EVENTS)) {
+			server.delay(WEATHER, 2000);
+			PooledClient client = new PooledClient(1, 5000, 200);
+			WeatherService service =
+				makeWeatherService(server.getEndpoint(), client);
+
+			for (int i = 0; i < 2; ++i) {
+				long start = System.nanoTime();
+				try {
+					queryWeather(service);
+					check(false, "the slow response didn't time out");
+				} catch (RetrofitError e) {
+					check(e.getKind() == RetrofitError.Kind.NETWORK
+							&& e.getCause() instanceof SocketTimeoutException,
+						"unexpected error " + e);
+				}
+				long elapsedMillis = (System.nanoTime() - start) / 1000000;
+				check(elapsedMillis < 1000,
+					"timed out after " + elapsedMillis + " ms");
+			}
+			check(client.getWaitCount() == 0,
+				"connection not released " + client.getStatistics());
+		}
+	}
+
+	/**
+	 * Error responses, whose bodies Retrofit reads rather than converts,
+	 * release their connections too
+	 */
+	private static void testConnectionsReleasedOnErrors() throws Exception {
+		try (StubApiServer server = new StubApiServer(0)) {
+			PooledClient client = new PooledClient(1, 5000, 5000);
+			WeatherService service =
+				makeWeatherService(server.getEndpoint(), client);
+
+			for (int i = 0; i < 5; ++i) {
+				try {
+					queryWeather(service);
+					check(false, "no error for a missing path");
+				} catch (RetrofitError e) {
+					check(e.getKind() == RetrofitError.Kind.HTTP
+							&& e.getResponse().getStatus() == 404,
+						"unexpected error " + e);
+				}
+			}
+			check(client.getWaitCount() == 0,
+				"connection not released " + client.getStatistics());
+		}
+	}
+
+	/**
+	 * Send bursts of THREADS ticket queries at once with the given
+	 * client, as the planner does when many plans start together, to a
+	 * server whose connections take handshakeMillis to open, and report
+	 * the time taken and the connections used
+	 */
+	private static void compare(ExecutorService clients, long handshakeMillis,
+			String label, Client client) throws Exception {
+		try (StubApiServer server = WeekendPlannerStubs.start(
+				LATENCY_MILLIS, EVENTS)) {
+			server.handshake(handshakeMillis);
+			TicketOps ticketOps = new TicketOps(server.getEndpoint(), client);
+			TicketService service = ticketOps.getService();
+			String authToken = ticketOps.getAuthToken();
+
+			// Warm up the client and the JIT, then time the bursts
+			long start = 0;
+			int eventCount = 0;
+			for (int burst = 0; burst < 2 * BURSTS; ++burst) {
+				if (burst == BURSTS) {
+					server.resetHits();
+					start = System.nanoTime();
+				}
+				List<Future<TicketResponse>> responses = new ArrayList<>();
+				for (int i = 0; i < THREADS; ++i)
+					responses.add(clients.submit(() -> service.queryTickets(
+						authToken, null, WeekendPlannerStubs.DESTINATION_NAME,
+						"1000", "1", null, null, "500")));
+				for (Future<TicketResponse> response : responses)
+					eventCount = response.get().getEvents().size();
+			}
+			long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+			check(eventCount == EVENTS, "parsed " + eventCount + " events");
+			System.out.println(String.format(
+				"  %-19s %d bursts of %d requests in %5d ms (%.1f ms per burst),"
+				+ " %d connections, at most %d requests at once",
+				label + ":", BURSTS, THREADS, elapsedMillis,
+				(double) elapsedMillis / BURSTS,
+				server.getConnectionCount(), server.getPeakConcurrency()));
+			if (client instanceof PooledClient)
+				check(server.getConnectionCount()
+						<= ((PooledClient) client).getMaxConnections(),
+					"connections not reused");
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+package example.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import example.web.ops.ResponseCache;
+import example.weekendplanner.WeekendPlannerOps;
+import example.weekendplanner.WeekendPlannerResponse;
+
+import static example.benchmarks.WeekendPlannerStubs.check;
+
+/**
+ * Checks that ResponseCache honors its time to live and maximum size,
+ * coalesces concurrent misses and doesn't cache failures, then runs many
+ * plans for the same destination against local stand-in APIs to check
+ * that the weather, geocode and places APIs are each queried only once.
+ */
+public class ResponseCacheTest {
+
+	/**
+	 * Default values
+	 */
+	private static final int CALLERS = 64;
+	private static final long QUERY_LATENCY_MILLIS = 20;
+	private static final int THREADS = 8;
+	private static final int REQUESTS = 100;
+	private static final int WAVE = 20;
+	private static final int EVENTS = 50;
+	private static final long TIMEOUT_SECONDS = 60;
+
+	public static void main(String[] args) throws Exception {
+		testExpiry();
+		testEviction();
+		testCoalescing();
+		testFailureIsNotCached();
+		testPlannerQueriesOnce();
+		System.out.println("ResponseCacheTest passed");
+	}
+
+	/**
+	 * A response is reused until its time to live has passed
+	 */
+	private static void testExpiry() {
+		AtomicLong now = new AtomicLong();
+		AtomicInteger queries = new AtomicInteger();
+		ResponseCache<String, String> cache = new ResponseCache<>(
+			"test", 10, TimeUnit.MINUTES, 10, now::get);
+
+		check("1".equals(cache.get("key",
+				() -> "" + queries.incrementAndGet())), "first query");
+		now.set(TimeUnit.MINUTES.toNanos(9));
+		check("1".equals(cache.get("key",
+				() -> "" + queries.incrementAndGet())), "response reused");
+		now.set(TimeUnit.MINUTES.toNanos(11));
+		check("2".equals(cache.get("key",
+				() -> "" + queries.incrementAndGet())), "expired response");
+		check(cache.getHitCount() == 1 && cache.getMissCount() == 2
+				&& cache.getExpirationCount() == 1,
+			"unexpected statistics " + cache.getStatistics());
+	}
+
+	/**
+	 * A full cache evicts the least recently used response
+	 */
+	private static void testEviction() {
+		AtomicInteger queries = new AtomicInteger();
+		ResponseCache<String, Integer> cache = new ResponseCache<>(
+			"test", 1, TimeUnit.HOURS, 2);
+
+		cache.get("a", queries::incrementAndGet);
+		cache.get("b", queries::incrementAndGet);
+		cache.get("a", queries::incrementAndGet);
+		cache.get("c", queries::incrementAndGet);
+		check(cache.size() == 2 && cache.getEvictionCount() == 1,
+			"unexpected statistics " + cache.getStatistics());
+
+		// "b" was least recently used, so "a" is still cached
+		cache.get("a", queries::incrementAndGet);
+		check(queries.get() == 3, "recently used response evicted");
+		cache.get("b", queries::incrementAndGet);
+		check(queries.get() == 4, "least recently used response kept");
+	}
+
+	/**
+	 * Concurrent misses for the same key share one query
+	 */
+	private static void testCoalescing() throws InterruptedException {
+		AtomicInteger queries = new AtomicInteger();
+		ResponseCache<String, String> cache = new ResponseCache<>(
+			"test", 1, TimeUnit.HOURS, 10);
+
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> callers = new ArrayList<>();
+		AtomicInteger wrongResponses = new AtomicInteger();
+		for (int i = 0; i < CALLERS; ++i) {
+			Thread t = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				String response = cache.get("key", () -> {
+					queries.incrementAndGet();
+					sleep(QUERY_LATENCY_MILLIS);
+					return "response";
+				});
+				if (!"response".equals(response))
+					wrongResponses.incrementAndGet();
+			});
+			t.start();
+			callers.add(t);
+		}
+		start.countDown();
+		for (Thread t : callers)
+			t.join();
+
+		check(queries.get() == 1, "expected 1 query, got " + queries.get());
+		check(wrongResponses.get() == 0, "callers got the wrong response");
+		check(cache.getHitCount() + cache.getMissCount() == CALLERS,
+			"unexpected statistics " + cache.getStatistics());
+	}
+
+	/**
+	 * A failed query is reported to the caller and retried by the next one
+	 */
+	private static void testFailureIsNotCached() {
+		AtomicInteger queries = new AtomicInteger();
+		ResponseCache<String, String> cache = new ResponseCache<>(
+			"test", 1, TimeUnit.HOURS, 10);
+
+		try {
+			cache.get("key", () -> {
+				queries.incrementAndGet();
+				throw new RuntimeException("The service is likely down");
+			});
+			check(false, "expected the query to fail");
+		} catch (RuntimeException e) {
+			check("The service is likely down".equals(e.getMessage()),
+				"unexpected exception " + e);
+		}
+		check("response".equals(cache.get("key", () -> {
+				queries.incrementAndGet();
+				return "response";
+			})), "retried");
+		check(queries.get() == 2 && cache.size() == 1,
+			"unexpected statistics " + cache.getStatistics());
+	}
+
+	/**
+	 * Plans for the same destination share the weather, geocode and
+	 * places responses, however many run at once. Each plan has a
+	 * different budget, so that the plans themselves aren't coalesced.
+	 * The plans are sent in waves that the executor has room for, since
+	 * it rejects calls once its queue is full
+	 */
+	private static void testPlannerQueriesOnce() throws Exception {
+		try (StubApiServer server = WeekendPlannerStubs.start(
+				QUERY_LATENCY_MILLIS, EVENTS)) {
+			String endpoint = server.getEndpoint();
+			WeekendPlannerOps wOps = new WeekendPlannerOps(
+				THREADS, endpoint, endpoint, endpoint, endpoint);
+
+			// Silence the Ops' execution time logging during the run
+			PrintStream out = System.out;
+			System.setOut(new PrintStream(new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+			}));
+
+			long start = System.nanoTime();
+			List<CompletableFuture<WeekendPlannerResponse>> plans =
+				new ArrayList<>(REQUESTS);
+			try {
+				for (int i = 0; i < REQUESTS; ++i) {
+					plans.add(wOps.planWeekend(
+						WeekendPlannerStubs.makeRequest(
+							String.valueOf(1000 + i))));
+					if (plans.size() % WAVE == 0)
+						CompletableFuture.allOf(plans.toArray(
+								new CompletableFuture<?>[plans.size()]))
+							.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+				}
+			} finally {
+				System.setOut(out);
+			}
+			long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+			for (CompletableFuture<WeekendPlannerResponse> plan : plans)
+				check(plan.getNow(null).getWeather().size() == 3,
+					"incomplete plan");
+
+			// The stub forecast has outdoor and indoor conditions, so
+			// there are two places queries
+			check(server.getHits("/data/2.5/forecast/daily") == 1,
+				"weather queried "
+				+ server.getHits("/data/2.5/forecast/daily") + " times");
+			check(server.getHits("/maps/api/geocode/json") == 1,
+				"geocode queried "
+				+ server.getHits("/maps/api/geocode/json") + " times");
+			check(server.getHits("/maps/api/place/nearbysearch/json") == 2,
+				"places queried "
+				+ server.getHits("/maps/api/place/nearbysearch/json")
+				+ " times");
+
+			System.out.println(REQUESTS + " plans in " + elapsedMillis
+				+ " ms\n" + wOps.getCacheStatistics());
+			wOps.shutdown();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
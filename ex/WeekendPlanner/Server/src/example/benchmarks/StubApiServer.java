@@ -0,0 +1,240 @@
+package example.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for the remote APIs used by WeekendPlannerOps, so
+ * that the Ops can be load tested and benchmarked without network access
+ * or API quotas. Each path returns a JSON body, which may depend on the
+ * query parameters, after a fixed latency, which may be overridden for
+ * a path, e.g. to simulate a slow API, and the number of requests to
+ * each path is counted, as are the connections the requests were made
+ * on and the most requests handled at once.
+ */
+public class StubApiServer implements AutoCloseable {
+
+	/**
+	 * The HTTP server listening on a free local port
+	 */
+	private final HttpServer mServer;
+
+	/**
+	 * The threads that handle the requests
+	 */
+	private final ExecutorService mExecutor;
+
+	/**
+	 * The simulated latency of every response
+	 */
+	private final long mLatencyMillis;
+
+	/**
+	 * The simulated latency of the responses to particular paths
+	 */
+	private final Map<String, Long> mPathLatencyMillis =
+		new ConcurrentHashMap<>();
+
+	/**
+	 * The simulated latency added to the first request on a connection
+	 */
+	private volatile long mHandshakeMillis;
+
+	/**
+	 * Makes the JSON body returned for each path from the query parameters
+	 */
+	private final Map<String, Function<Map<String, String>, String>>
+		mResponses = new ConcurrentHashMap<>();
+
+	/**
+	 * The number of requests made to each path
+	 */
+	private final Map<String, AtomicLong> mHits = new ConcurrentHashMap<>();
+
+	/**
+	 * The client addresses of the connections the requests were made on
+	 */
+	private final Set<InetSocketAddress> mConnections =
+		ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The number of requests being handled, and the most handled at once
+	 */
+	private final AtomicInteger mActive = new AtomicInteger();
+	private final AtomicInteger mPeakActive = new AtomicInteger();
+
+	/**
+	 * Start a server whose responses each take latencyMillis
+	 */
+	public StubApiServer(long latencyMillis) throws IOException {
+		mLatencyMillis = latencyMillis;
+
+		// Avoid the ~40 ms stalls caused by Nagle's algorithm and delayed
+		// ACKs when the headers and body are written separately
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		mExecutor = Executors.newCachedThreadPool(runnable -> {
+			Thread t = new Thread(runnable, "stub-api-server");
+			t.setDaemon(true);
+			return t;
+		});
+		mServer.setExecutor(mExecutor);
+		mServer.createContext("/", this::handle);
+		mServer.start();
+	}
+
+	/**
+	 * Return the given JSON body for requests to the given path
+	 */
+	public StubApiServer respond(String path, String json) {
+		return respond(path, query -> json);
+	}
+	
+	/**
+	 * Return the JSON body made by the given function from the query
+	 * parameters for requests to the given path
+	 */
+	public StubApiServer respond(String path,
+			Function<Map<String, String>, String> json) {
+		mResponses.put(path, json);
+		return this;
+	}
+
+	/**
+	 * Make the responses to the given path take latencyMillis
+	 */
+	public StubApiServer delay(String path, long latencyMillis) {
+		mPathLatencyMillis.put(path, latencyMillis);
+		return this;
+	}
+
+	/**
+	 * Make the first request on each connection take latencyMillis
+	 * longer, as the TCP and TLS handshakes with a remote API would
+	 */
+	public StubApiServer handshake(long latencyMillis) {
+		mHandshakeMillis = latencyMillis;
+		return this;
+	}
+
+	/**
+	 * Returns the endpoint to pass to the API operations classes
+	 */
+	public String getEndpoint() {
+		return "http://127.0.0.1:" + mServer.getAddress().getPort() + "/";
+	}
+
+	/**
+	 * Returns the number of requests made to the given path
+	 */
+	public long getHits(String path) {
+		AtomicLong hits = mHits.get(path);
+		return hits != null ? hits.get() : 0;
+	}
+
+	/**
+	 * Returns the number of connections requests were made on
+	 */
+	public int getConnectionCount() {
+		return mConnections.size();
+	}
+
+	/**
+	 * Returns the most requests that were handled at once
+	 */
+	public int getPeakConcurrency() {
+		return mPeakActive.get();
+	}
+
+	/**
+	 * Reset all the request and connection counts
+	 */
+	public void resetHits() {
+		mHits.clear();
+		mConnections.clear();
+		mPeakActive.set(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getPath();
+		mHits.computeIfAbsent(path, p -> new AtomicLong()).incrementAndGet();
+		boolean newConnection = mConnections.add(exchange.getRemoteAddress());
+
+		// The request stops being counted just before its response is
+		// sent, since the client may send another as soon as it has it
+		int active = mActive.incrementAndGet();
+		mPeakActive.accumulateAndGet(active, Math::max);
+		String json;
+		try {
+			// Consume the request body so the connection can be reused
+			try (InputStream in = exchange.getRequestBody()) {
+				byte[] buffer = new byte[1024];
+				while (in.read(buffer) != -1)
+					continue;
+			}
+
+			try {
+				TimeUnit.MILLISECONDS.sleep(
+					mPathLatencyMillis.getOrDefault(path, mLatencyMillis)
+					+ (newConnection ? mHandshakeMillis : 0));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			Function<Map<String, String>, String> response =
+				mResponses.get(path);
+			json = response != null ?
+				response.apply(parseQuery(exchange.getRequestURI().getRawQuery())) :
+				null;
+		} finally {
+			mActive.decrementAndGet();
+		}
+
+		byte[] body = (json != null ? json : "{}")
+			.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(json != null ? 200 : 404, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static Map<String, String> parseQuery(String rawQuery)
+			throws UnsupportedEncodingException {
+		Map<String, String> query = new HashMap<>();
+		if (rawQuery != null)
+			for (String parameter : rawQuery.split("&")) {
+				int equals = parameter.indexOf('=');
+				if (equals > 0)
+					query.put(
+						URLDecoder.decode(parameter.substring(0, equals), "UTF-8"),
+						URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+			}
+		return query;
+	}
+
+	@Override
+	public void close() {
+		mServer.stop(0);
+		mExecutor.shutdownNow();
+	}
+
+}
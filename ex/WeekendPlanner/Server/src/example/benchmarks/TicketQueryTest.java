@@ -0,0 +1,165 @@
+package example.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.gson.Gson;
+
+import example.web.model.Event;
+import example.web.responses.TicketResponse;
+import example.web.utils.DateUtils;
+import example.weekendplanner.WeekendPlannerOps;
+import example.weekendplanner.WeekendPlannerResponse;
+
+import static example.benchmarks.WeekendPlannerStubs.check;
+
+/**
+ * Checks that WeekendPlannerOps.getTickets() queries each day of the
+ * weekend concurrently, only for the part of the day between the flights,
+ * and merges the events in the same order however the days return.
+ */
+public class TicketQueryTest {
+
+	/**
+	 * Default values
+	 */
+	private static final int EVENTS = 300;
+	private static final long LATENCY_MILLIS = 100;
+	private static final String TICKETS_PATH = "/search/catalog/events/v2";
+
+	private static final Gson sGson = new Gson();
+
+	public static void main(String[] args) throws Exception {
+		testMergeIsDeterministic();
+		testDaysAreQueriedConcurrently();
+		System.out.println("TicketQueryTest passed");
+	}
+
+	/**
+	 * Merging the days in any order gives the same events in order of
+	 * their start times
+	 */
+	private static void testMergeIsDeterministic() {
+		List<TicketResponse> days = new ArrayList<>();
+		for (DayOfWeek day : Arrays.asList(
+				DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, DayOfWeek.SUNDAY)) {
+			List<Event> events = parseEvents(
+				WeekendPlannerStubs.makeTicketJson(EVENTS)).stream()
+				.filter(event -> event.getDate().getDayOfWeek() == day)
+				.collect(Collectors.toList());
+			days.add(new TicketResponse(events));
+		}
+
+		List<String> expected = describe(TicketResponse.merge(days));
+		check(expected.size() == EVENTS, "merged " + expected.size());
+		for (int i = 0; i < 5; ++i) {
+			Collections.shuffle(days);
+			check(expected.equals(describe(TicketResponse.merge(days))),
+				"merge depends on the order of the days");
+		}
+
+		List<Event> merged = TicketResponse.merge(days).getEvents();
+		for (int i = 1; i < merged.size(); ++i)
+			check(!merged.get(i).getStartDateTime()
+					.isBefore(merged.get(i - 1).getStartDateTime()),
+				"events out of order");
+	}
+
+	/**
+	 * getTickets() makes one query per day, which run concurrently, so
+	 * it takes about as long as one query
+	 */
+	private static void testDaysAreQueriedConcurrently() throws Exception {
+		try (StubApiServer server =
+				WeekendPlannerStubs.start(LATENCY_MILLIS, EVENTS)) {
+			String endpoint = server.getEndpoint();
+			WeekendPlannerOps wOps = new WeekendPlannerOps(
+				8, endpoint, endpoint, endpoint, endpoint);
+
+			PrintStream out = System.out;
+			System.setOut(new PrintStream(new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+			}));
+			long elapsedMillis;
+			String firstPlan, secondPlan;
+			try {
+				String flightToken = wOps.getFlightAuthToken().join();
+				String ticketToken = wOps.getTicketAuthToken().join();
+				firstPlan = wOps.getTickets(getFlight(wOps, flightToken),
+					ticketToken).join().toString();
+
+				WeekendPlannerResponse trip = getFlight(wOps, flightToken);
+				checkDayRanges(trip);
+				server.resetHits();
+				long start = System.nanoTime();
+				secondPlan = wOps.getTickets(trip, ticketToken).join().toString();
+				elapsedMillis = (System.nanoTime() - start) / 1000000;
+			} finally {
+				System.setOut(out);
+			}
+			wOps.shutdown();
+
+			check(server.getHits(TICKETS_PATH) == 3,
+				"expected 3 ticket queries, got " + server.getHits(TICKETS_PATH));
+			check(elapsedMillis < 2 * LATENCY_MILLIS,
+				"ticket queries took " + elapsedMillis + " ms");
+			check(firstPlan.equals(secondPlan), "plans differ");
+			System.out.println("getTickets(): 3 day queries in "
+				+ elapsedMillis + " ms with " + LATENCY_MILLIS
+				+ " ms per query");
+		}
+	}
+
+	/**
+	 * The stub flight lands Friday at 19:45 and leaves Sunday at 13:00,
+	 * so only those parts of Friday and Sunday are queried
+	 */
+	private static void checkDayRanges(WeekendPlannerResponse trip) {
+		LocalDate fridayDate = LocalDate.parse(
+			DateUtils.getFormattedDateOfNext(DayOfWeek.FRIDAY));
+		String friday = fridayDate.toString();
+		String saturday = fridayDate.plusDays(1).toString();
+		String sunday = fridayDate.plusDays(2).toString();
+		check((friday + "T19:45 TO " + friday + "T23:59").equals(
+				DateUtils.makeDateTimeRange(trip.getFlight(), DayOfWeek.FRIDAY)),
+			"Friday range");
+		check((saturday + "T00:00 TO " + saturday + "T23:59").equals(
+				DateUtils.makeDateTimeRange(trip.getFlight(), DayOfWeek.SATURDAY)),
+			"Saturday range");
+		check((sunday + "T00:00 TO " + sunday + "T13:00").equals(
+				DateUtils.makeDateTimeRange(trip.getFlight(), DayOfWeek.SUNDAY)),
+			"Sunday range");
+		check(DateUtils.makeDateTimeRange(trip.getFlight(), DayOfWeek.MONDAY)
+				== null, "Monday isn't part of the trip");
+	}
+
+	/**
+	 * Get the flight for a new trip
+	 */
+	private static WeekendPlannerResponse getFlight(WeekendPlannerOps wOps,
+			String flightToken) {
+		return wOps.getFlight(
+			wOps.initTrip(WeekendPlannerStubs.makeRequest("1000")).join(),
+			flightToken).join();
+	}
+
+	private static List<Event> parseEvents(String json) {
+		return sGson.fromJson(json, TicketResponse.class).getEvents();
+	}
+
+	private static List<String> describe(TicketResponse response) {
+		return response.getEvents().stream()
+			.map(Event::toString)
+			.collect(Collectors.toList());
+	}
+
+}
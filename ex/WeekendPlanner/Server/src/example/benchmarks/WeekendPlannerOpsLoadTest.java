@@ -0,0 +1,118 @@
+package example.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import example.weekendplanner.WeekendPlannerOps;
+
+/**
+ * Load test that sends the WeekendPlannerServlet's doGet pipeline
+ * (authorize, then query the cities) against a StubApiServer, once with
+ * a new WeekendPlannerOps per request as the servlet used to do, and once
+ * with a single shared WeekendPlannerOps as it does now. It reports the
+ * JVM's thread count, which climbs with every request in the first case
+ * and stays flat in the second.
+ */
+public class WeekendPlannerOpsLoadTest {
+
+	/**
+	 * Default values
+	 */
+	private static final int CLIENT_THREADS = 32;
+	private static final int SHARED_REQUESTS = 4000;
+	private static final int PER_REQUEST_REQUESTS = 500;
+	private static final int REPORT_EVERY = 100;
+	private static final long LATENCY_MILLIS = 2;
+
+	private static final String TOKEN_JSON =
+		"{\"access_token\":\"token\",\"token_type\":\"bearer\","
+		+ "\"expires_in\":\"604800\"}";
+	private static final String CITIES_JSON = "{\"Cities\":[]}";
+
+	private static final ThreadMXBean sThreads =
+		ManagementFactory.getThreadMXBean();
+
+	public static void main(String[] args) throws Exception {
+		try (StubApiServer server = new StubApiServer(LATENCY_MILLIS)) {
+			server.respond("/v1/auth/token", TOKEN_JSON)
+				.respond("/v1/lists/supported/cities", CITIES_JSON);
+			String endpoint = server.getEndpoint();
+
+			ExecutorService clients =
+				Executors.newFixedThreadPool(CLIENT_THREADS);
+
+			// Run the shared case first so the threads leaked by the
+			// per-request case don't affect it
+			WeekendPlannerOps shared = makeOps(endpoint);
+			run("shared ops", clients, SHARED_REQUESTS, () -> shared);
+			System.out.println("  executor " + shared.getExecutorStatistics());
+			shared.shutdown();
+
+			run("ops per request", clients, PER_REQUEST_REQUESTS,
+				() -> makeOps(endpoint));
+
+			clients.shutdown();
+		}
+	}
+
+	private static WeekendPlannerOps makeOps(String endpoint) {
+		return new WeekendPlannerOps(8, endpoint, endpoint, endpoint, endpoint);
+	}
+
+	/**
+	 * Send the given number of requests from the client threads, each
+	 * using the Ops returned by opsPerRequest, and report the thread count
+	 */
+	private static void run(String label, ExecutorService clients,
+			int requests, Supplier<WeekendPlannerOps> opsPerRequest)
+					throws Exception {
+		System.out.println(label + ": " + requests + " requests from "
+			+ CLIENT_THREADS + " clients, starting with "
+			+ sThreads.getThreadCount() + " threads");
+		sThreads.resetPeakThreadCount();
+		long start = System.nanoTime();
+
+		// Silence the Ops' execution time logging during the run
+		PrintStream out = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+		}));
+		List<String> samples = new ArrayList<>();
+		try {
+			for (int sent = 0; sent < requests; sent += REPORT_EVERY) {
+				List<Future<?>> batch = new ArrayList<>(REPORT_EVERY);
+				for (int i = 0; i < REPORT_EVERY; ++i)
+					batch.add(clients.submit(() -> doGet(opsPerRequest.get())));
+				for (Future<?> request : batch)
+					request.get();
+				samples.add((sent + REPORT_EVERY) + " requests: "
+					+ sThreads.getThreadCount() + " threads");
+			}
+		} finally {
+			System.setOut(out);
+		}
+
+		samples.forEach(sample -> System.out.println("  " + sample));
+		System.out.println("  peak " + sThreads.getPeakThreadCount()
+			+ " threads, "
+			+ (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+	/**
+	 * The same pipeline as WeekendPlannerServlet.doGet
+	 */
+	private static void doGet(WeekendPlannerOps wOps) {
+		wOps.findCities("US").join();
+	}
+
+}
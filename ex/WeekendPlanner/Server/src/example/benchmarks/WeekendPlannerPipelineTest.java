@@ -0,0 +1,107 @@
+package example.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import example.weekendplanner.WeekendPlannerOps;
+import example.weekendplanner.WeekendPlannerResponse;
+
+/**
+ * Runs many concurrent WeekendPlannerOps.planWeekend() pipelines against
+ * local stand-in APIs on a pool of only two threads. Before the pipeline
+ * was non-blocking, pool threads joined futures queued behind them on the
+ * same pool, so this would deadlock; now every request must complete.
+ * Each request has a different budget, so that they aren't coalesced.
+ *
+ * The requests submit more calls than the pool's queue holds, so some
+ * are rejected. A plan whose flight is rejected fails with the
+ * RejectedExecutionException, for which the servlet sends a 503, and a
+ * plan whose other calls are rejected lists them as missing sections.
+ */
+public class WeekendPlannerPipelineTest {
+
+	/**
+	 * Default values
+	 */
+	private static final int THREADS = 2;
+	private static final int REQUESTS = 200;
+	private static final int EVENTS = 50;
+	private static final long LATENCY_MILLIS = 2;
+	private static final long TIMEOUT_SECONDS = 60;
+
+	public static void main(String[] args) throws Exception {
+		try (StubApiServer server =
+				WeekendPlannerStubs.start(LATENCY_MILLIS, EVENTS)) {
+			String endpoint = server.getEndpoint();
+			WeekendPlannerOps wOps = new WeekendPlannerOps(
+				THREADS, endpoint, endpoint, endpoint, endpoint);
+
+			// Silence the Ops' execution time logging during the run
+			PrintStream out = System.out;
+			System.setOut(new PrintStream(new OutputStream() {
+				@Override
+				public void write(int b) {
+				}
+			}));
+
+			long start = System.nanoTime();
+			List<CompletableFuture<WeekendPlannerResponse>> plans;
+			try {
+				// Every request is composed without waiting, so this loop
+				// returns immediately
+				plans = new ArrayList<>(REQUESTS);
+				for (int i = 0; i < REQUESTS; ++i)
+					plans.add(wOps.planWeekend(
+						WeekendPlannerStubs.makeRequest(
+							String.valueOf(1000 + i))));
+
+				// Wait for every plan, whether it succeeded or not
+				CompletableFuture.allOf(plans.toArray(
+						new CompletableFuture<?>[plans.size()]))
+					.handle((allDone, exception) -> null)
+					.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			} finally {
+				System.setOut(out);
+			}
+			long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+			int rejected = 0;
+			int incomplete = 0;
+			for (CompletableFuture<WeekendPlannerResponse> plan : plans) {
+				WeekendPlannerResponse response;
+				try {
+					response = plan.join();
+				} catch (CompletionException e) {
+					if (!(e.getCause() instanceof RejectedExecutionException))
+						throw e;
+					++rejected;
+					continue;
+				}
+				List<String> missing = response.getMissingSections();
+				if (response.getFlight() == null
+						|| (response.getWeather() == null ?
+							!missing.contains("weather") :
+							response.getWeather().size() != 3))
+					throw new AssertionError("incomplete plan " + response);
+				if (!missing.isEmpty())
+					++incomplete;
+			}
+			if (rejected == REQUESTS)
+				throw new AssertionError("every plan was rejected");
+
+			System.out.println(REQUESTS + " plans on " + THREADS
+				+ " threads in " + elapsedMillis + " ms, " + rejected
+				+ " rejected, " + incomplete + " with missing sections, "
+				+ "executor " + wOps.getExecutorStatistics());
+			wOps.shutdown();
+			System.out.println("WeekendPlannerPipelineTest passed");
+		}
+	}
+
+}
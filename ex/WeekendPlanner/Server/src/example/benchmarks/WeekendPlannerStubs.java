@@ -0,0 +1,178 @@
+package example.benchmarks;
+
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import com.google.gson.Gson;
+
+import example.web.requests.WeekendPlannerRequest;
+import example.web.utils.DateUtils;
+
+/**
+ * Canned responses for every API used by WeekendPlannerOps, served by a
+ * StubApiServer, so the whole planner pipeline can be run locally.
+ */
+public class WeekendPlannerStubs {
+
+	/**
+	 * Default values
+	 */
+	public static final String ORIGIN_CODE = "BNA";
+	public static final String DESTINATION_CODE = "LAX";
+	public static final String DESTINATION_NAME = "Los Angeles";
+	private static final int PLACES_PER_DAY = 10;
+
+	private static final Gson sGson = new Gson();
+
+	/**
+	 * Fail the test with the given message unless the condition holds
+	 */
+	public static void check(boolean condition, String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+	/**
+	 * Start a StubApiServer that answers every API with the given
+	 * latency, returning the given number of ticketed events
+	 */
+	public static StubApiServer start(long latencyMillis, int eventCount)
+			throws IOException {
+		StubApiServer server = new StubApiServer(latencyMillis);
+		String token = "{\"access_token\":\"token\",\"token_type\":\"bearer\","
+			+ "\"expires_in\":\"604800\"}";
+		return server
+			.respond("/v1/auth/token", token)
+			.respond("/login", token)
+			.respond("/v1/lists/supported/cities",
+				"{\"Cities\":[{\"code\":\"" + DESTINATION_CODE
+				+ "\",\"name\":\"" + DESTINATION_NAME + "\"}]}")
+			.respond("/v1/shop/flights", makeFlightJson())
+			.respond("/search/catalog/events/v2",
+				query -> makeTicketJson(eventCount, query.get("date")))
+			.respond("/data/2.5/forecast/daily", makeWeatherJson())
+			.respond("/maps/api/geocode/json",
+				"{\"results\":[{\"geometry\":{\"location\":"
+				+ "{\"lat\":\"34.05\",\"lng\":\"-118.24\"}}}]}")
+			.respond("/maps/api/place/nearbysearch/json", makePlacesJson());
+	}
+
+	/**
+	 * Make a request for a trip from the origin to the destination
+	 * with the given budget
+	 */
+	public static WeekendPlannerRequest makeRequest(String budget) {
+		return sGson.fromJson("{\"budget\":\"" + budget + "\","
+			+ "\"currentCity\":{\"code\":\"" + ORIGIN_CODE
+			+ "\",\"name\":\"Nashville\"},"
+			+ "\"destinationCity\":{\"code\":\"" + DESTINATION_CODE
+			+ "\",\"name\":\"" + DESTINATION_NAME + "\"}}",
+			WeekendPlannerRequest.class);
+	}
+
+	private static String makeFlightJson() {
+		String friday = DateUtils.getFormattedDateOfNext(DayOfWeek.FRIDAY);
+		String sunday = DateUtils.getFormattedDateOfNext(DayOfWeek.SUNDAY);
+		return "{\"PricedItineraries\":[{"
+			+ "\"AirItinerary\":{\"OriginDestinationOptions\":"
+			+ "{\"OriginDestinationOption\":["
+			+ makeFlightSegmentJson(friday + "T17:30:00", friday + "T19:45:00",
+				ORIGIN_CODE, DESTINATION_CODE)
+			+ ","
+			+ makeFlightSegmentJson(sunday + "T13:00:00", sunday + "T19:10:00",
+				DESTINATION_CODE, ORIGIN_CODE)
+			+ "]}},"
+			+ "\"AirItineraryPricingInfo\":{\"ItinTotalFare\":{\"TotalFare\":"
+			+ "{\"Amount\":\"250.00\",\"CurrencyCode\":\"USD\"}}}}],"
+			+ "\"OriginLocation\":\"" + ORIGIN_CODE + "\","
+			+ "\"DestinationLocation\":\"" + DESTINATION_CODE + "\","
+			+ "\"DepartureDateTime\":\"" + friday + "\","
+			+ "\"ReturnDateTime\":\"" + sunday + "\"}";
+	}
+
+	private static String makeFlightSegmentJson(String departure,
+			String arrival, String from, String to) {
+		return "{\"FlightSegment\":[{"
+			+ "\"DepartureAirport\":{\"LocationCode\":\"" + from + "\"},"
+			+ "\"ArrivalAirport\":{\"LocationCode\":\"" + to + "\"},"
+			+ "\"DepartureDateTime\":\"" + departure + "\","
+			+ "\"ArrivalDateTime\":\"" + arrival + "\","
+			+ "\"ElapsedTime\":255,\"FlightNumber\":100,"
+			+ "\"OperatingAirline\":{\"Code\":\"AA\"}}],"
+			+ "\"ElapsedTime\":255}";
+	}
+
+	/**
+	 * Make eventCount events spread over the weekend, with repeated
+	 * titles in different cases and a range of prices and start times
+	 */
+	public static String makeTicketJson(int eventCount) {
+		return makeTicketJson(eventCount, null);
+	}
+
+	/**
+	 * Make the events of makeTicketJson(eventCount) that start within the
+	 * given "yyyy-MM-ddTHH:mm TO yyyy-MM-ddTHH:mm" range, or all of them
+	 * if the range is null. The events aren't sorted, as the real API
+	 * would sort them, so the caller can't depend on their order
+	 */
+	static String makeTicketJson(int eventCount, String dateTimeRange) {
+		LocalDateTime from = null, to = null;
+		if (dateTimeRange != null) {
+			String[] range = dateTimeRange.split(" TO ");
+			from = LocalDateTime.parse(range[0]);
+			to = LocalDateTime.parse(range[1]);
+		}
+
+		LocalDate friday = LocalDate.parse(
+			DateUtils.getFormattedDateOfNext(DayOfWeek.FRIDAY));
+		StringBuilder json = new StringBuilder("{\"events\":[");
+		boolean first = true;
+		for (int i = 0; i < eventCount; ++i) {
+			LocalDate day = friday.plusDays(i % 3);
+			int hour = 10 + (i * 7) % 13;
+			LocalDateTime start = day.atTime(hour, 0);
+			if (from != null && (start.isBefore(from) || start.isAfter(to)))
+				continue;
+
+			String title = (i % 2 == 0 ? "Concert " : "CONCERT ")
+				+ (i % (eventCount / 4 + 1));
+			if (!first)
+				json.append(',');
+			first = false;
+			json.append("{\"title\":\"").append(title)
+				.append("\",\"dateLocal\":\"").append(day)
+				.append(String.format("T%02d:00:00-0700", hour))
+				.append("\",\"ticketInfo\":{\"minPrice\":\"")
+				.append(10 + (i * 37) % 190)
+				.append(".0\",\"currencyCode\":\"USD\"},")
+				.append("\"venue\":{\"name\":\"Venue ").append(i % 20)
+				.append("\",\"city\":\"").append(DESTINATION_NAME)
+				.append("\",\"state\":\"CA\"}}");
+		}
+		return json.append("]}").toString();
+	}
+
+	private static String makeWeatherJson() {
+		return "{\"list\":["
+			+ "{\"temp\":{\"day\":72.0},\"weather\":[{\"main\":\"Clear\"}]},"
+			+ "{\"temp\":{\"day\":65.5},\"weather\":[{\"main\":\"Rain\"}]},"
+			+ "{\"temp\":{\"day\":70.1},\"weather\":[{\"main\":\"Clouds\"}]}"
+			+ "]}";
+	}
+
+	private static String makePlacesJson() {
+		StringBuilder json = new StringBuilder("{\"results\":[");
+		for (int i = 0; i < PLACES_PER_DAY; ++i) {
+			if (i > 0)
+				json.append(',');
+			json.append("{\"name\":\"Place ").append(i)
+				.append("\",\"types\":[\"park\"],\"geometry\":{\"location\":"
+				+ "{\"lat\":\"34.05\",\"lng\":\"-118.24\"}}}");
+		}
+		return json.append("]}").toString();
+	}
+
+}
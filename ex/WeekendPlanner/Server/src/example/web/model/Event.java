@@ -3,9 +3,12 @@ package example.web.model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 import com.google.gson.annotations.SerializedName;
 
+import example.web.utils.DateUtils;
+
 /**
  * A POJO representing the fields of a StubHub event necessary for
  * weekend planning
@@ -43,6 +46,17 @@ public class Event {
 	 */
 	private String mEndDateTime;
 	
+	/**
+	 * The parsed start and end times, price and lower case title, which
+	 * are computed on first use so that scheduling and sorting don't
+	 * parse the strings on every comparison. Transient fields aren't
+	 * serialized
+	 */
+	private transient LocalDateTime mParsedStart;
+	private transient LocalDateTime mParsedEnd;
+	private transient Double mParsedPrice;
+	private transient String mTitleKey;
+	
 	public Event(String title, String startDateTime,
 			String endDateTime, Double fare, String currencyCode) {
 		mTitle = title;
@@ -55,18 +69,32 @@ public class Event {
 		return mTitle;
 	}
 	
+	/**
+	 * Returns the title in lower case, so that events can be indexed
+	 * by title regardless of case
+	 */
+	public String getTitleKey() {
+		if (mTitleKey == null)
+			mTitleKey = mTitle.toLowerCase(Locale.ROOT);
+		return mTitleKey;
+	}
+	
 	public LocalDate getDate() {
-		return getDateTime(mStartDateTime).toLocalDate();
+		return getStartDateTime().toLocalDate();
 	}
 	
 	public LocalDateTime getStartDateTime() {
-		return getDateTime(mStartDateTime);
+		if (mParsedStart == null)
+			mParsedStart = getDateTime(mStartDateTime);
+		return mParsedStart;
 	}
 	
 	public LocalDateTime getEndDateTime() {
-		return mEndDateTime == null ?
-			getDateTime(mStartDateTime).plusHours(DURATION_HOURS) :
-			getDateTime(mEndDateTime);
+		if (mParsedEnd == null)
+			mParsedEnd = mEndDateTime == null ?
+				getStartDateTime().plusHours(DURATION_HOURS) :
+				getDateTime(mEndDateTime);
+		return mParsedEnd;
 	}
 	
 	/**
@@ -74,12 +102,14 @@ public class Event {
 	 * the additional zone correction returned by the server
 	 */
 	private LocalDateTime getDateTime(String dateTime) {
-		return LocalDateTime.parse(
+		return DateUtils.parseLocalDateTime(
 			dateTime.substring(0, dateTime.lastIndexOf("-")));
 	}
 	
 	public Double getTicketPrice() {
-		return mTicketInfo.getPrice();
+		if (mParsedPrice == null)
+			mParsedPrice = mTicketInfo.getPrice();
+		return mParsedPrice;
 	}
 	
 	/**
@@ -91,7 +121,8 @@ public class Event {
 	 */
 	@Override
 	public int hashCode() {
-		return getTitle().hashCode() ^ getDate().hashCode();
+		// Hash the lower case title, as equals() ignores its case
+		return getTitleKey().hashCode() ^ getDate().hashCode();
 	}
 	
 	@Override
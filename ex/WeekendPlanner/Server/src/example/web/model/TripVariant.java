@@ -1,7 +1,10 @@
 package example.web.model;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.google.gson.annotations.SerializedName;
 
@@ -33,26 +36,61 @@ public class TripVariant {
 	@SerializedName("places")
 	private List<List<Place>> mPlaces;
 	
+	/**
+	 * The lower case titles of the scheduled events and the end of the
+	 * last one, so that checking whether an event fits takes constant
+	 * time. Transient fields aren't serialized
+	 */
+	private transient Set<String> mScheduledTitles;
+	private transient LocalDateTime mScheduleEnd;
+	
 	public TripVariant(Double currentBudget) {
 		mCurrentBudget = currentBudget;
 		mSchedule = new ArrayList<Event>();
 		mPlaces = new ArrayList<List<Place>>();
+		mScheduledTitles = new HashSet<String>();
+	}
+
+	/**
+	 * Construct a copy of the given variant that can be changed without
+	 * changing it. The events and places themselves are never changed,
+	 * so they are shared
+	 */
+	public TripVariant(TripVariant other) {
+		mCurrentBudget = other.mCurrentBudget;
+		mSchedule = new ArrayList<Event>(other.mSchedule);
+		mPlaces = new ArrayList<List<Place>>(other.mPlaces.size());
+		for (List<Place> places : other.mPlaces)
+			mPlaces.add(places == null ? null : new ArrayList<Place>(places));
+		mScheduledTitles = new HashSet<String>(other.mScheduledTitles);
+		mScheduleEnd = other.mScheduleEnd;
 	}
 	
 	public List<Event> getSchedule() {
 		return mSchedule;
 	}
 	
+	/**
+	 * Determine if an event can be added to the schedule: it must be
+	 * affordable, start after the previously scheduled event, and not
+	 * be similar to one we are already going to
+	 */
+	public Boolean canAdd(Event event) {
+		return !tooExpensive(event)
+			&& startsAfterPreviousEvent(event)
+			&& !alreadyGoing(event);
+	}
+	
 	/**
 	 * Add an event to the Schedule
 	 */
 	public Boolean addEvent(Event event) {
-		if (tooExpensive(event) 
-				|| !startsAfterPreviousEvent(event)
-				|| alreadyGoing(event))
+		if (!canAdd(event))
 			return false;
 		
 		if (mSchedule.add(event)) {
+			mScheduledTitles.add(event.getTitleKey());
+			mScheduleEnd = event.getEndDateTime();
 			subtractFromBudget(event.getTicketPrice());
 			return true;
 		}
@@ -72,9 +110,8 @@ public class TripVariant {
 	 * Determine if this event begins after the previously scheduled event
 	 */
 	private Boolean startsAfterPreviousEvent(Event e) {
-		return mSchedule.size() == 0 ?
-			true : e.getStartDateTime().isAfter(
-				mSchedule.get(mSchedule.size() - 1).getEndDateTime());
+		return mScheduleEnd == null ?
+			true : e.getStartDateTime().isAfter(mScheduleEnd);
 	}
 	
 	/**
@@ -82,9 +119,7 @@ public class TripVariant {
 	 * the weekend
 	 */
 	private Boolean alreadyGoing(Event e) {
-		return mSchedule.stream()
-			.anyMatch(schedEvent ->
-				schedEvent.getTitle().equalsIgnoreCase(e.getTitle()));
+		return mScheduledTitles.contains(e.getTitleKey());
 	}
 	
 	/**
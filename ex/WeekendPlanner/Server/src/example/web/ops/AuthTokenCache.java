@@ -0,0 +1,176 @@
+package example.web.ops;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import example.web.responses.OAuth2TokenResponse;
+
+/**
+ * Caches the access token returned by an API's authorize() call until it
+ * expires, as given by the expires_in field of the OAuth2TokenResponse,
+ * so that the authorization round trip isn't made for every request.
+ * Tokens without an expiry are cached until they are invalidated.
+ *
+ * Only one caller at a time refreshes the token (single-flight): callers
+ * that need a token while it is being fetched wait for the same result
+ * rather than making their own authorize() calls. Once a token is close
+ * to expiring, the next caller refreshes it ahead of time while every
+ * other caller keeps using the current token, so requests don't stall
+ * when it expires.
+ */
+public class AuthTokenCache {
+
+	/**
+	 * Default values
+	 */
+	private static final long REFRESH_AHEAD_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+	/**
+	 * Makes the authorize() call that returns a new token
+	 */
+	private final Supplier<OAuth2TokenResponse> mAuthorizer;
+
+	/**
+	 * The source of the current time in nanoseconds
+	 */
+	private final LongSupplier mNanoClock;
+
+	/**
+	 * The current token, or null if there is none
+	 */
+	private volatile CachedToken mToken;
+
+	/**
+	 * The refresh in progress, if any, which every waiting caller shares
+	 */
+	private final AtomicReference<CompletableFuture<CachedToken>> mRefresh =
+		new AtomicReference<>();
+
+	/**
+	 * A token along with the times it should be refreshed and expires
+	 */
+	private static class CachedToken {
+		final String mAccessToken;
+		final long mRefreshAtNanos;
+		final long mExpiresAtNanos;
+		final boolean mExpires;
+
+		CachedToken(String accessToken, Long expiresInSeconds, long nowNanos) {
+			mAccessToken = accessToken;
+			mExpires = expiresInSeconds != null;
+			if (mExpires) {
+				long lifetime = TimeUnit.SECONDS.toNanos(expiresInSeconds);
+				mExpiresAtNanos = nowNanos + lifetime;
+				mRefreshAtNanos = mExpiresAtNanos
+					- Math.min(REFRESH_AHEAD_NANOS, lifetime / 2);
+			} else {
+				mExpiresAtNanos = mRefreshAtNanos = 0;
+			}
+		}
+
+		boolean isFresh(long nowNanos) {
+			return !mExpires || nowNanos - mRefreshAtNanos < 0;
+		}
+
+		boolean isValid(long nowNanos) {
+			return !mExpires || nowNanos - mExpiresAtNanos < 0;
+		}
+	}
+
+	public AuthTokenCache(Supplier<OAuth2TokenResponse> authorizer) {
+		this(authorizer, System::nanoTime);
+	}
+
+	/**
+	 * Construct a cache that uses the given clock, e.g. to test expiry
+	 */
+	public AuthTokenCache(Supplier<OAuth2TokenResponse> authorizer,
+			LongSupplier nanoClock) {
+		mAuthorizer = authorizer;
+		mNanoClock = nanoClock;
+	}
+
+	/**
+	 * Returns a valid access token, authorizing only if there is no
+	 * cached token or it is about to expire
+	 */
+	public String getAccessToken() {
+		CachedToken token = mToken;
+		long now = mNanoClock.getAsLong();
+
+		if (token != null && token.isFresh(now))
+			return token.mAccessToken;
+
+		if (token != null && token.isValid(now)) {
+			// Refresh ahead of expiry if no one else is doing so, and
+			// otherwise keep using the current token
+			CompletableFuture<CachedToken> refresh = new CompletableFuture<>();
+			if (mRefresh.compareAndSet(null, refresh)) {
+				refresh(refresh);
+				if (!refresh.isCompletedExceptionally())
+					return refresh.join().mAccessToken;
+			}
+			return token.mAccessToken;
+		}
+
+		return awaitRefresh().mAccessToken;
+	}
+
+	/**
+	 * Drop the cached token, e.g. after the API rejects it
+	 */
+	public void invalidate() {
+		mToken = null;
+	}
+
+	/**
+	 * Wait for the refresh in progress, starting one if there is none
+	 */
+	private CachedToken awaitRefresh() {
+		for (;;) {
+			CompletableFuture<CachedToken> refresh = mRefresh.get();
+			if (refresh == null) {
+				refresh = new CompletableFuture<>();
+				if (!mRefresh.compareAndSet(null, refresh))
+					continue;
+				refresh(refresh);
+			}
+
+			try {
+				return refresh.join();
+			} catch (CompletionException e) {
+				throw e.getCause() instanceof RuntimeException ?
+					(RuntimeException) e.getCause() : e;
+			}
+		}
+	}
+
+	/**
+	 * Authorize in the calling thread and complete the refresh with the
+	 * new token or the exception
+	 */
+	private void refresh(CompletableFuture<CachedToken> refresh) {
+		try {
+			OAuth2TokenResponse response = mAuthorizer.get();
+			if (response == null || response.getAccessToken() == null)
+				throw new IllegalStateException(
+					"Authorization returned no access token");
+
+			CachedToken token = new CachedToken(
+				response.getAccessToken(),
+				response.getExpiresInSeconds(),
+				mNanoClock.getAsLong());
+			mToken = token;
+			refresh.complete(token);
+		} catch (RuntimeException e) {
+			refresh.completeExceptionally(e);
+		} finally {
+			mRefresh.compareAndSet(refresh, null);
+		}
+	}
+
+}
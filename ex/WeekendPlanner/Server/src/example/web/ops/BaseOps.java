@@ -1,18 +1,34 @@
 package example.web.ops;
 
+import com.google.gson.Gson;
+
 import example.web.responses.OAuth2TokenResponse;
 import example.web.utils.NoAuthUtils;
 import example.web.utils.BaseOAuth2Utils;
 import retrofit.RestAdapter;
+import retrofit.RetrofitError;
 import retrofit.RestAdapter.LogLevel;
-import retrofit.client.UrlConnectionClient;
+import retrofit.client.Client;
+import retrofit.converter.GsonConverter;
 
 /**
  * Provides common members and functionality that
  * each class that interacts with an API probably needs
+ * 
+ * Every API is queried with the given Retrofit Client, by default the
+ * shared PooledClient, and every response body is streamed into one
+ * shared Gson, so that the type adapters it builds for the responses
+ * are built once rather than by every Ops instance.
  */
 public abstract class BaseOps<T> {
 	
+	private static final int HTTP_UNAUTHORIZED = 401;
+	
+	/**
+	 * Google's JSON parsing library, shared by every service
+	 */
+	private static final Gson sGson = new Gson();
+	
 	/**
 	 * The endpoint of the API being queried
 	 */
@@ -28,20 +44,35 @@ public abstract class BaseOps<T> {
 	 */
 	protected BaseOAuth2Utils mAuthUtils;
 	
+	/**
+	 * Caches the token returned by authorize() until it expires
+	 */
+	protected AuthTokenCache mAuthTokenCache;
+	
 	protected BaseOps(String endpoint, Class<T> serviceClass) {
-		init(endpoint, serviceClass, null);
+		init(endpoint, serviceClass, null, PooledClient.getShared());
 	}
 	
 	protected BaseOps(String endpoint, 
 			Class<T> serviceClass, BaseOAuth2Utils authUtils) {
-		init(endpoint, serviceClass, authUtils);
+		init(endpoint, serviceClass, authUtils, PooledClient.getShared());
+	}
+	
+	/**
+	 * Construct Ops that query the API with the given client, e.g. a
+	 * PooledClient with other bounds
+	 */
+	protected BaseOps(String endpoint, Class<T> serviceClass,
+			BaseOAuth2Utils authUtils, Client client) {
+		init(endpoint, serviceClass, authUtils, client);
 	}
 	
 	private void init(String endpoint, Class<T> serviceClass,
-			BaseOAuth2Utils authUtils) {
+			BaseOAuth2Utils authUtils, Client client) {
 		mEndpoint = endpoint;
-		mService = makeService(serviceClass);
+		mService = makeService(serviceClass, client);
 		mAuthUtils = authUtils != null ? authUtils : new NoAuthUtils();
+		mAuthTokenCache = new AuthTokenCache(this::authorize);
 	}
 	
 	public String getEndpoint() {
@@ -53,7 +84,32 @@ public abstract class BaseOps<T> {
 	 * i.e. "Bearer <api-token>"
 	 */
 	public String getAuthToken() {
-		return mAuthUtils.makeBearerToken(authorize().getAccessToken());
+		return mAuthUtils.makeBearerToken(getAccessToken());
+	}
+	
+	/**
+	 * Returns the cached access token, only calling authorize()
+	 * if there is none or it is about to expire
+	 */
+	protected String getAccessToken() {
+		return mAuthTokenCache.getAccessToken();
+	}
+	
+	/**
+	 * Drops the cached access token so the next request authorizes
+	 * again, e.g. when the API rejects the token
+	 */
+	public void invalidateAuthToken() {
+		mAuthTokenCache.invalidate();
+	}
+	
+	/**
+	 * Invalidates the cached access token if the API rejected it
+	 */
+	protected void invalidateAuthTokenIfRejected(RetrofitError error) {
+		if (error.getResponse() != null
+			&& error.getResponse().getStatus() == HTTP_UNAUTHORIZED)
+			invalidateAuthToken();
 	}
 	
 	/**
@@ -70,9 +126,10 @@ public abstract class BaseOps<T> {
 		return mService;
 	}
 	
-	private T makeService(Class<T> serviceClass) {
+	private T makeService(Class<T> serviceClass, Client client) {
 		return new RestAdapter.Builder()
-			.setClient(new UrlConnectionClient())
+			.setClient(client)
+			.setConverter(new GsonConverter(sGson))
 			.setEndpoint(mEndpoint)
 			//.setLogLevel(LogLevel.FULL)
 			.build()
@@ -1,6 +1,7 @@
 package example.web.ops;
 
 import retrofit.RetrofitError;
+import retrofit.client.Client;
 import example.web.responses.CityResponse;
 import example.web.responses.FlightResponse;
 import example.web.responses.OAuth2TokenResponse;
@@ -24,6 +25,13 @@ public class FlightOps extends BaseOps<FlightService> {
 	public FlightOps(String endpoint) {
 		super(endpoint, FlightService.class, new FlightAuthUtils());
 	}
+	
+	/**
+	 * Construct Ops that query the API with the given client
+	 */
+	public FlightOps(String endpoint, Client client) {
+		super(endpoint, FlightService.class, new FlightAuthUtils(), client);
+	}
 
 	/**
 	 * The flights API requires a User token that must be
@@ -57,6 +65,7 @@ public class FlightOps extends BaseOps<FlightService> {
 				authToken,
 				country);
 		} catch (RetrofitError e) {
+			invalidateAuthTokenIfRejected(e);
 			// Catch and further detail the Retrofit error
 			throw new RuntimeException(
 				"Error getting cities: The server is likely down");
@@ -89,6 +98,7 @@ public class FlightOps extends BaseOps<FlightService> {
 					FLIGHT_RETURN_WINDOW,
 					LIMIT_RESPONSES);
 		} catch (RetrofitError e) {
+			invalidateAuthTokenIfRejected(e);
 			// Catch and further detail the Retrofit error
 			throw new RuntimeException(
 				"Error getting flights: "
@@ -2,8 +2,14 @@ package example.web.ops;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import retrofit.RetrofitError;
+import retrofit.client.Client;
 import example.web.model.Weather;
 import example.web.responses.GeoCodeResponse;
 import example.web.responses.OAuth2TokenResponse;
@@ -28,11 +34,40 @@ public class PlacesOps extends BaseOps<PlacesService> {
 	private final String OUTDOOR_PLACES =
 		"amusement_park|campground|park|stadium|zoo";
 	private final Integer RADIUS_METERS = 35000;
+	private static final long PLACES_CACHE_TTL_HOURS = 6;
+	private static final long GEOCODE_CACHE_TTL_DAYS = 30;
+	private static final int CACHE_SIZE = 1000;
+	
+	/**
+	 * Caches the places by location and type, which change on the
+	 * scale of hours, and the geocodes by city, which rarely change
+	 */
+	private final ResponseCache<List<String>, PlacesResponse> mPlacesCache =
+		new ResponseCache<>("places", PLACES_CACHE_TTL_HOURS, TimeUnit.HOURS,
+			CACHE_SIZE);
+	private final ResponseCache<String, GeoCodeResponse> mGeocodeCache =
+		new ResponseCache<>("geocode", GEOCODE_CACHE_TTL_DAYS, TimeUnit.DAYS,
+			CACHE_SIZE);
 	
 	public PlacesOps(String endpoint) {
 		super(endpoint, PlacesService.class, new PlacesAuthUtils());
 	}
 	
+	/**
+	 * Construct Ops that query the API with the given client
+	 */
+	public PlacesOps(String endpoint, Client client) {
+		super(endpoint, PlacesService.class, new PlacesAuthUtils(), client);
+	}
+	
+	public ResponseCache<List<String>, PlacesResponse> getPlacesCache() {
+		return mPlacesCache;
+	}
+	
+	public ResponseCache<String, GeoCodeResponse> getGeocodeCache() {
+		return mGeocodeCache;
+	}
+	
 	/**
 	 * Override the getAuthToken method to only return
 	 * the raw application key, as it is a query parameter rather
@@ -41,7 +76,7 @@ public class PlacesOps extends BaseOps<PlacesService> {
 	 */
 	@Override
 	public String getAuthToken() {
-		return authorize().getAccessToken();
+		return getAccessToken();
 	}
 
 	/**
@@ -57,18 +92,50 @@ public class PlacesOps extends BaseOps<PlacesService> {
 	/**
 	 * Queries the API for places within 25000 meters of the given
 	 * lat, lng coordinates that are appropriate for the given weather
-	 * conditions
+	 * conditions, unless they have been cached recently
 	 */
 	public PlacesResponse getPlaces(String authToken,
 			String lat, String lng, Weather weather) {
 		logExecutionTime("PlacesOps::getPlaces");
+		String latLng = lat.trim() + "," + lng.trim();
+		String types = getPlaceTypes(weather);
+		return mPlacesCache.get(Arrays.asList(latLng, types),
+			() -> queryPlaces(authToken, latLng, types));
+	}
+	
+	/**
+	 * Return the cached places for the given coordinates and weather,
+	 * or start querying the endpoint for them with the given runner,
+	 * which runs the query asynchronously, e.g. on an executor or as a
+	 * hedged request
+	 */
+	public CompletableFuture<PlacesResponse> getPlacesAsync(String authToken,
+			String lat, String lng, Weather weather,
+			Function<Supplier<PlacesResponse>,
+				CompletableFuture<PlacesResponse>> runner) {
+		logExecutionTime("PlacesOps::getPlacesAsync");
+		String latLng = lat.trim() + "," + lng.trim();
+		String types = getPlaceTypes(weather);
+		return mPlacesCache.getAsync(Arrays.asList(latLng, types),
+			() -> runner.apply(() -> queryPlaces(authToken, latLng, types)));
+	}
+	
+	/**
+	 * Returns the types of places appropriate for the given weather
+	 */
+	private String getPlaceTypes(Weather weather) {
+		return OUTDOOR_CONDITIONS.contains(weather.getDayCondition()) ?
+			OUTDOOR_PLACES : INDOOR_PLACES;
+	}
+	
+	private PlacesResponse queryPlaces(String authToken, String latLng,
+			String types) {
 		try {
 			return mService.queryPlaces(
 				authToken,
-				lat + "," + lng,
+				latLng,
 				RADIUS_METERS,
-				OUTDOOR_CONDITIONS.contains(weather.getDayCondition()) ?
-					OUTDOOR_PLACES : INDOOR_PLACES);
+				types);
 		} catch (RetrofitError e) {
 			// Catch and further detail the Retrofit error
 			throw new RuntimeException(
@@ -78,10 +145,16 @@ public class PlacesOps extends BaseOps<PlacesService> {
 	}
 	
 	/**
-	 * Queries the API for the lat, lng coodrinates of a given city
+	 * Queries the API for the lat, lng coodrinates of a given city,
+	 * unless they have been cached
 	 */
 	public GeoCodeResponse getGeocode(String authToken, String city) {
 		logExecutionTime("PlacesOps::getGeocode");
+		return mGeocodeCache.get(city.trim().toLowerCase(Locale.ROOT),
+			() -> queryGeocode(authToken, city));
+	}
+	
+	private GeoCodeResponse queryGeocode(String authToken, String city) {
 		try {
 			return mService.queryGeocode(
 				authToken,
@@ -0,0 +1,276 @@
+package example.web.ops;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import retrofit.client.Client;
+import retrofit.client.Request;
+import retrofit.client.Response;
+import retrofit.client.UrlConnectionClient;
+import retrofit.mime.TypedInput;
+
+/**
+ * A Retrofit client that bounds the connections to each endpoint so that
+ * they are reused rather than opened for every request, and that bounds
+ * the time spent connecting and waiting for a response.
+ *
+ * HttpURLConnection keeps idle connections alive in a JVM-wide cache,
+ * but only http.maxConnections (5 by default) of them per endpoint, and
+ * opens a new connection for every concurrent request that finds none
+ * idle. When a burst of requests completes, the connections beyond the
+ * cache's capacity are closed, so the next burst pays for new
+ * connections, and TLS handshakes, all over again. This client allows
+ * at most maxConnections requests to an endpoint at once, by default
+ * the cache's capacity, so every connection is kept alive.
+ * Other requests wait, for up to the connect timeout, for a connection
+ * to be released, which is when its response body has been read or
+ * closed. Retrofit streams the body straight into the converter, which
+ * reads it to the end and closes it.
+ *
+ * A single shared client, returned by getShared(), is used by every
+ * BaseOps unless another Client is given, so the bounds hold across all
+ * the API operations classes, however many there are.
+ */
+public class PooledClient implements Client {
+
+	/**
+	 * Default values
+	 */
+	private static final int DEFAULT_MAX_CONNECTIONS =
+		Math.max(1, Integer.getInteger("http.maxConnections", 5));
+	private static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 3000;
+	private static final int DEFAULT_READ_TIMEOUT_MILLIS = 10000;
+
+	private static final PooledClient sShared = new PooledClient(
+		DEFAULT_MAX_CONNECTIONS, DEFAULT_CONNECT_TIMEOUT_MILLIS,
+		DEFAULT_READ_TIMEOUT_MILLIS);
+
+	/**
+	 * The bounds on each endpoint's connections and on each request
+	 */
+	private final int mMaxConnections;
+	private final int mConnectTimeoutMillis;
+	private final int mReadTimeoutMillis;
+
+	/**
+	 * The connections available to each endpoint, keyed on its scheme,
+	 * host and port, as HttpURLConnection's keep-alive cache is
+	 */
+	private final Map<String, Semaphore> mConnections =
+		new ConcurrentHashMap<>();
+
+	/**
+	 * Makes the requests, with this client's timeouts
+	 */
+	private final UrlConnectionClient mClient = new UrlConnectionClient() {
+		@Override
+		protected HttpURLConnection openConnection(Request request)
+				throws IOException {
+			HttpURLConnection connection = super.openConnection(request);
+			connection.setConnectTimeout(mConnectTimeoutMillis);
+			connection.setReadTimeout(mReadTimeoutMillis);
+			return connection;
+		}
+	};
+
+	/**
+	 * Statistics
+	 */
+	private final AtomicLong mRequests = new AtomicLong();
+	private final AtomicLong mWaits = new AtomicLong();
+
+	/**
+	 * Construct a client allowing maxConnections concurrent requests to
+	 * each endpoint, with the given connect and read timeouts
+	 */
+	public PooledClient(int maxConnections, int connectTimeoutMillis,
+			int readTimeoutMillis) {
+		if (maxConnections <= 0)
+			throw new IllegalArgumentException(
+				"maxConnections must be positive: " + maxConnections);
+		mMaxConnections = maxConnections;
+		mConnectTimeoutMillis = connectTimeoutMillis;
+		mReadTimeoutMillis = readTimeoutMillis;
+	}
+
+	/**
+	 * Returns the client shared by the API operations classes
+	 */
+	public static PooledClient getShared() {
+		return sShared;
+	}
+
+	@Override
+	public Response execute(Request request) throws IOException {
+		String endpoint = getEndpoint(request.getUrl());
+		Semaphore connections = mConnections.computeIfAbsent(endpoint,
+			e -> new Semaphore(mMaxConnections));
+		acquire(connections, endpoint);
+
+		Response response;
+		try {
+			response = mClient.execute(request);
+		} catch (IOException | RuntimeException | Error e) {
+			connections.release();
+			throw e;
+		}
+
+		if (response.getBody() == null) {
+			connections.release();
+			return response;
+		}
+		return new Response(response.getUrl(), response.getStatus(),
+			response.getReason(), response.getHeaders(),
+			new ReleasingBody(response.getBody(), connections));
+	}
+
+	/**
+	 * Wait, for up to the connect timeout, for one of the endpoint's
+	 * connections
+	 */
+	private void acquire(Semaphore connections, String endpoint)
+			throws IOException {
+		mRequests.incrementAndGet();
+		if (connections.tryAcquire())
+			return;
+
+		mWaits.incrementAndGet();
+		try {
+			if (!connections.tryAcquire(mConnectTimeoutMillis,
+					TimeUnit.MILLISECONDS))
+				throw new SocketTimeoutException(
+					"Timed out waiting for a connection to " + endpoint
+					+ " after " + mConnectTimeoutMillis + " ms");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+				"Interrupted waiting for a connection to " + endpoint);
+		}
+	}
+
+	/**
+	 * Returns the scheme, host and port of the URL
+	 */
+	private static String getEndpoint(String url) throws IOException {
+		URL parsed = new URL(url);
+		int port = parsed.getPort() != -1 ?
+			parsed.getPort() : parsed.getDefaultPort();
+		return parsed.getProtocol() + "://" + parsed.getHost() + ":" + port;
+	}
+
+	/**
+	 * A response body that releases its connection once it has been read
+	 * to the end or closed, whichever is first
+	 */
+	private static class ReleasingBody implements TypedInput {
+		private final TypedInput mBody;
+		private final Semaphore mConnections;
+		private final AtomicBoolean mReleased = new AtomicBoolean();
+		private InputStream mIn;
+
+		ReleasingBody(TypedInput body, Semaphore connections) {
+			mBody = body;
+			mConnections = connections;
+		}
+
+		@Override
+		public String mimeType() {
+			return mBody.mimeType();
+		}
+
+		@Override
+		public long length() {
+			return mBody.length();
+		}
+
+		@Override
+		public synchronized InputStream in() throws IOException {
+			if (mIn == null)
+				mIn = new FilterInputStream(mBody.in()) {
+					@Override
+					public int read() throws IOException {
+						return released(super.read());
+					}
+
+					@Override
+					public int read(byte[] b, int off, int len)
+							throws IOException {
+						return released(super.read(b, off, len));
+					}
+
+					@Override
+					public void close() throws IOException {
+						try {
+							super.close();
+						} finally {
+							release();
+						}
+					}
+				};
+			return mIn;
+		}
+
+		/**
+		 * Release the connection if the read reached the end of the body
+		 */
+		private int released(int read) {
+			if (read == -1)
+				release();
+			return read;
+		}
+
+		private void release() {
+			if (mReleased.compareAndSet(false, true))
+				mConnections.release();
+		}
+	}
+
+	public int getMaxConnections() {
+		return mMaxConnections;
+	}
+
+	public int getConnectTimeoutMillis() {
+		return mConnectTimeoutMillis;
+	}
+
+	public int getReadTimeoutMillis() {
+		return mReadTimeoutMillis;
+	}
+
+	public long getRequestCount() {
+		return mRequests.get();
+	}
+
+	/**
+	 * Returns the number of requests that had to wait for a connection
+	 */
+	public long getWaitCount() {
+		return mWaits.get();
+	}
+
+	/**
+	 * Returns a one line summary of the requests made and how many had
+	 * to wait for a connection
+	 */
+	public String getStatistics() {
+		long requests = getRequestCount();
+		long waits = getWaitCount();
+		return "http client: " + mMaxConnections + " connections per endpoint"
+			+ ", requests: " + requests
+			+ ", waited for a connection: " + waits
+			+ String.format(" (%.2f)", requests > 0 ?
+				(double) waits / requests : 0.0);
+	}
+
+}
@@ -0,0 +1,264 @@
+package example.web.ops;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches the responses of one API endpoint, keyed on the normalised
+ * parameters of the request, for a fixed time to live. The cache holds
+ * at most a fixed number of responses, evicting the least recently used
+ * one when it is full.
+ *
+ * Concurrent misses for the same key are coalesced: the first caller
+ * queries the API and every other caller waits for the same response
+ * rather than making its own query. Failed queries aren't cached, so
+ * the next caller tries again. The hits, misses and evictions are
+ * counted so the cache can be tuned.
+ */
+public class ResponseCache<K, V> {
+
+	/**
+	 * The name of the cache used in its statistics
+	 */
+	private final String mName;
+
+	/**
+	 * How long a response is used for after it is fetched
+	 */
+	private final long mTimeToLiveNanos;
+
+	/**
+	 * The source of the current time in nanoseconds
+	 */
+	private final LongSupplier mNanoClock;
+
+	/**
+	 * The cached responses in least recently used order, which is
+	 * guarded by the cache's lock
+	 */
+	private final LinkedHashMap<K, CachedResponse<V>> mResponses;
+
+	/**
+	 * The queries in progress, which every caller that misses on the
+	 * same key shares
+	 */
+	private final Map<K, CompletableFuture<V>> mQueries =
+		new ConcurrentHashMap<>();
+
+	/**
+	 * Statistics
+	 */
+	private final AtomicLong mHits = new AtomicLong();
+	private final AtomicLong mMisses = new AtomicLong();
+	private final AtomicLong mCoalesced = new AtomicLong();
+	private final AtomicLong mEvictions = new AtomicLong();
+	private final AtomicLong mExpirations = new AtomicLong();
+
+	/**
+	 * A response along with the time it expires
+	 */
+	private static class CachedResponse<V> {
+		final V mResponse;
+		final long mExpiresAtNanos;
+
+		CachedResponse(V response, long expiresAtNanos) {
+			mResponse = response;
+			mExpiresAtNanos = expiresAtNanos;
+		}
+
+		boolean isValid(long nowNanos) {
+			return nowNanos - mExpiresAtNanos < 0;
+		}
+	}
+
+	public ResponseCache(String name, long timeToLive, TimeUnit unit,
+			int maxSize) {
+		this(name, timeToLive, unit, maxSize, System::nanoTime);
+	}
+
+	/**
+	 * Construct a cache that uses the given clock, e.g. to test expiry
+	 */
+	public ResponseCache(String name, long timeToLive, TimeUnit unit,
+			int maxSize, LongSupplier nanoClock) {
+		mName = name;
+		mTimeToLiveNanos = unit.toNanos(timeToLive);
+		mNanoClock = nanoClock;
+		mResponses = new LinkedHashMap<K, CachedResponse<V>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<K, CachedResponse<V>> eldest) {
+				if (size() <= maxSize)
+					return false;
+				mEvictions.incrementAndGet();
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached response for the given key, or calls query
+	 * to fetch it if there is none or it has expired. Only one caller
+	 * at a time queries for a given key
+	 */
+	public V get(K key, Supplier<V> query) {
+		// Run the query in the calling thread
+		return await(getAsync(key, () -> {
+			try {
+				return CompletableFuture.completedFuture(query.get());
+			} catch (RuntimeException e) {
+				CompletableFuture<V> failed = new CompletableFuture<>();
+				failed.completeExceptionally(e);
+				return failed;
+			}
+		}));
+	}
+
+	/**
+	 * Returns a future for the cached response for the given key, or
+	 * calls query to start fetching it if there is none or it has
+	 * expired. Concurrent misses for a key share the same future
+	 */
+	public CompletableFuture<V> getAsync(K key,
+			Supplier<CompletableFuture<V>> query) {
+		V response = getCached(key);
+		if (response != null) {
+			mHits.incrementAndGet();
+			return CompletableFuture.completedFuture(response);
+		}
+		mMisses.incrementAndGet();
+
+		CompletableFuture<V> pending = new CompletableFuture<>();
+		CompletableFuture<V> inProgress = mQueries.putIfAbsent(key, pending);
+		if (inProgress != null) {
+			mCoalesced.incrementAndGet();
+			return inProgress;
+		}
+
+		// A query that finished since the first check has already
+		// cached the response
+		CompletableFuture<V> result;
+		response = getCached(key);
+		if (response != null) {
+			result = CompletableFuture.completedFuture(response);
+		} else {
+			try {
+				result = query.get();
+			} catch (RuntimeException e) {
+				result = new CompletableFuture<>();
+				result.completeExceptionally(e);
+			}
+		}
+
+		// Cache the response before the query is removed, so later
+		// callers find one or the other
+		result.whenComplete((queried, exception) -> {
+			if (exception == null && queried != null)
+				put(key, queried);
+			mQueries.remove(key, pending);
+			if (exception == null)
+				pending.complete(queried);
+			else
+				pending.completeExceptionally(exception);
+		});
+		return pending;
+	}
+
+	/**
+	 * Drop every cached response
+	 */
+	public synchronized void invalidateAll() {
+		mResponses.clear();
+	}
+
+	public synchronized int size() {
+		return mResponses.size();
+	}
+
+	public long getHitCount() {
+		return mHits.get();
+	}
+
+	public long getMissCount() {
+		return mMisses.get();
+	}
+
+	/**
+	 * Returns the number of misses that waited for another caller's
+	 * query rather than making their own
+	 */
+	public long getCoalescedCount() {
+		return mCoalesced.get();
+	}
+
+	public long getEvictionCount() {
+		return mEvictions.get();
+	}
+
+	public long getExpirationCount() {
+		return mExpirations.get();
+	}
+
+	/**
+	 * Returns the fraction of lookups that were hits
+	 */
+	public double getHitRatio() {
+		long hits = getHitCount();
+		long lookups = hits + getMissCount();
+		return lookups > 0 ? (double) hits / lookups : 0;
+	}
+
+	/**
+	 * Returns a one line summary of the cache's statistics
+	 */
+	public String getStatistics() {
+		return mName + " cache: " + size() + " responses"
+			+ ", hits: " + getHitCount()
+			+ ", misses: " + getMissCount()
+			+ " (coalesced " + getCoalescedCount() + ")"
+			+ ", hit ratio: " + String.format("%.2f", getHitRatio())
+			+ ", evictions: " + getEvictionCount()
+			+ ", expirations: " + getExpirationCount();
+	}
+
+	/**
+	 * Returns the cached response for the given key, or null if there
+	 * is none or it has expired
+	 */
+	private synchronized V getCached(K key) {
+		CachedResponse<V> cached = mResponses.get(key);
+		if (cached == null)
+			return null;
+		if (!cached.isValid(mNanoClock.getAsLong())) {
+			mResponses.remove(key);
+			mExpirations.incrementAndGet();
+			return null;
+		}
+		return cached.mResponse;
+	}
+
+	private synchronized void put(K key, V response) {
+		mResponses.put(key, new CachedResponse<>(response,
+			mNanoClock.getAsLong() + mTimeToLiveNanos));
+	}
+
+	/**
+	 * Wait for the query, rethrowing its exception
+	 */
+	private static <V> V await(CompletableFuture<V> query) {
+		try {
+			return query.join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException ?
+				(RuntimeException) e.getCause() : e;
+		}
+	}
+
+}
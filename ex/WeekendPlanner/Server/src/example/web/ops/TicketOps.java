@@ -1,6 +1,7 @@
 package example.web.ops;
 
 import retrofit.RetrofitError;
+import retrofit.client.Client;
 import example.web.responses.OAuth2TokenResponse;
 import example.web.responses.TicketResponse;
 import example.web.services.TicketService;
@@ -25,6 +26,13 @@ public class TicketOps extends BaseOps<TicketService> {
 	public TicketOps(String endpoint) {
 		super(endpoint, TicketService.class, new TicketAuthUtils());
 	}
+	
+	/**
+	 * Construct Ops that query the API with the given client
+	 */
+	public TicketOps(String endpoint, Client client) {
+		super(endpoint, TicketService.class, new TicketAuthUtils(), client);
+	}
 
 	/**
 	 * Authorizes the StubHub query, which requires only the provided
@@ -57,6 +65,7 @@ public class TicketOps extends BaseOps<TicketService> {
 				SORT,
 				LIMIT);
 		} catch (RetrofitError e) {
+			invalidateAuthTokenIfRejected(e);
 			// Catch and further detail the Retrofit error
 			throw new RuntimeException(
 				"Error getting tickets: "
@@ -1,6 +1,15 @@
 package example.web.ops;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 import retrofit.RetrofitError;
+import retrofit.client.Client;
 import example.web.responses.OAuth2TokenResponse;
 import example.web.responses.WeatherResponse;
 import example.web.services.WeatherService;
@@ -16,10 +25,31 @@ public class WeatherOps extends BaseOps<WeatherService> {
 	 */
 	private final String UNITS = "imperial";
 	private final String RESPONSE_MODE = "json";
+	private static final long CACHE_TTL_MINUTES = 30;
+	private static final int CACHE_SIZE = 1000;
+	
+	/**
+	 * Caches the forecasts by city and number of days, as they only
+	 * change on the scale of hours
+	 */
+	private final ResponseCache<List<Object>, WeatherResponse> mWeatherCache =
+		new ResponseCache<>("weather", CACHE_TTL_MINUTES, TimeUnit.MINUTES,
+			CACHE_SIZE);
 	
 	public WeatherOps(String endpoint) {
 		super(endpoint, WeatherService.class);
 	}
+	
+	/**
+	 * Construct Ops that query the API with the given client
+	 */
+	public WeatherOps(String endpoint, Client client) {
+		super(endpoint, WeatherService.class, null, client);
+	}
+	
+	public ResponseCache<List<Object>, WeatherResponse> getWeatherCache() {
+		return mWeatherCache;
+	}
 
 	/**
 	 * Override the authorize () abstract method, which in this case
@@ -34,10 +64,32 @@ public class WeatherOps extends BaseOps<WeatherService> {
 	
 	/**
 	 * Invoke the WeatherService retrofit adapter to query the endpoint
-	 * for the weather forecast
+	 * for the weather forecast, unless it has been cached recently
 	 */
 	public WeatherResponse getWeather(String city, Integer dayCount) {
 		logExecutionTime("WeatherOps::getWeather");
+		return mWeatherCache.get(makeWeatherKey(city, dayCount),
+			() -> queryWeather(city, dayCount));
+	}
+	
+	/**
+	 * Return the cached weather forecast, or start querying the endpoint
+	 * for it with the given runner, which runs the query asynchronously,
+	 * e.g. on an executor or as a hedged request
+	 */
+	public CompletableFuture<WeatherResponse> getWeatherAsync(String city,
+			Integer dayCount, Function<Supplier<WeatherResponse>,
+				CompletableFuture<WeatherResponse>> runner) {
+		logExecutionTime("WeatherOps::getWeatherAsync");
+		return mWeatherCache.getAsync(makeWeatherKey(city, dayCount),
+			() -> runner.apply(() -> queryWeather(city, dayCount)));
+	}
+	
+	private List<Object> makeWeatherKey(String city, Integer dayCount) {
+		return Arrays.asList(city.trim().toLowerCase(Locale.ROOT), dayCount);
+	}
+	
+	private WeatherResponse queryWeather(String city, Integer dayCount) {
 		try {
 			return mService.queryWeather(
 				city,
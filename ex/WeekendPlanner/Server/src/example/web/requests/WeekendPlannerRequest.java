@@ -1,5 +1,8 @@
 package example.web.requests;
 
+import java.util.Arrays;
+import java.util.List;
+
 import com.google.gson.annotations.SerializedName;
 
 import example.web.model.City;
@@ -39,6 +42,26 @@ public class WeekendPlannerRequest {
 		return mDestinationCity;
 	}
 	
+	/**
+	 * Returns the normalised parameters of the request, which are equal
+	 * for requests that plan the same trip: the budget as a number, so
+	 * "1000" and "1000.00" are the same, and the airport codes in upper
+	 * case. The destination name is kept as given, since it is sent to
+	 * the APIs
+	 */
+	public List<Object> getPlanKey() {
+		return Arrays.asList(
+			getBudget(),
+			normaliseCode(mOriginCity),
+			normaliseCode(mDestinationCity),
+			mDestinationCity == null ? null : mDestinationCity.getName());
+	}
+	
+	private static String normaliseCode(City city) {
+		return city == null || city.getCode() == null ?
+			null : city.getCode().toUpperCase();
+	}
+	
 	public String toString() {
 		return "{budget: " + mBudget 
 				+ ", curCity: "
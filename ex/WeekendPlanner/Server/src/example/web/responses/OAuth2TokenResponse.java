@@ -33,6 +33,19 @@ public class OAuth2TokenResponse {
 		return mAccessToken;
 	}
 	
+	/**
+	 * Returns the life span of the token in seconds, or null if the
+	 * server didn't give one, in which case the token doesn't expire
+	 */
+	public Long getExpiresInSeconds() {
+		try {
+			return mExpiresIn != null ?
+				Long.valueOf(mExpiresIn.trim()) : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+	
 	public String toString() {
 		return mAccessToken
 				+ " {type: " + mTokenType
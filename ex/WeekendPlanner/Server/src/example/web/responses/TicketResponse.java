@@ -1,5 +1,8 @@
 package example.web.responses;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import com.google.gson.annotations.SerializedName;
@@ -17,6 +20,41 @@ public class TicketResponse {
 	@SerializedName("events")
 	private List<Event> mEvents;
 	
+	/**
+	 * The order of merged events: by start time, then title and price
+	 * so that events starting together are always in the same order
+	 */
+	public static final Comparator<Event> EVENT_ORDER =
+		Comparator.comparing(Event::getStartDateTime)
+			.thenComparing(Event::getTitle, String.CASE_INSENSITIVE_ORDER)
+			.thenComparing(Event::getTicketPrice);
+	
+	/**
+	 * Construct a response with no events
+	 */
+	public TicketResponse() {
+		mEvents = Collections.emptyList();
+	}
+	
+	public TicketResponse(List<Event> events) {
+		mEvents = events;
+	}
+	
+	/**
+	 * Merge the events of several responses, e.g. one for each day of
+	 * the weekend, into one response ordered by EVENT_ORDER, regardless
+	 * of the order in which the responses arrived
+	 */
+	public static TicketResponse merge(List<TicketResponse> responses) {
+		List<Event> events = new ArrayList<>();
+		responses.stream()
+			.filter(response -> response != null
+				&& response.getEvents() != null)
+			.forEach(response -> events.addAll(response.getEvents()));
+		events.sort(EVENT_ORDER);
+		return new TicketResponse(events);
+	}
+	
 	public List<Event> getEvents() {
 		return mEvents;
 	}
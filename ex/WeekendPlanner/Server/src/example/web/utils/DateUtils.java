@@ -2,6 +2,8 @@ package example.web.utils;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.Period;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
@@ -13,6 +15,9 @@ import example.web.model.Flight;
  */
 public class DateUtils {
 	
+	private static final DateTimeFormatter DATE_TIME_MINUTES =
+		DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+	
 	public static String getFormattedDateOfNext(DayOfWeek day) {
 		return getDateOfNext(day)
 			.format(DateTimeFormatter.ISO_LOCAL_DATE);
@@ -31,12 +36,78 @@ public class DateUtils {
 			+ removeSeconds(flight.getReturningDepartureDateTime());
 	}
 	
+	/**
+	 * Make the range of date times on the given day of the trip between
+	 * the arrival of the flight and the departure of the return flight,
+	 * or return null if the trip doesn't include any of that day
+	 */
+	public static String makeDateTimeRange(Flight flight, DayOfWeek day) {
+		LocalDateTime arrival =
+			LocalDateTime.parse(flight.getDepartingArrivalDateTime());
+		LocalDateTime departure =
+			LocalDateTime.parse(flight.getReturningDepartureDateTime());
+		LocalDate date =
+			arrival.toLocalDate().with(TemporalAdjusters.nextOrSame(day));
+		
+		LocalDateTime start = date.atStartOfDay();
+		LocalDateTime end = date.atTime(LocalTime.of(23, 59));
+		if (start.isBefore(arrival))
+			start = arrival;
+		if (end.isAfter(departure))
+			end = departure;
+		
+		return start.isBefore(end) ?
+			start.format(DATE_TIME_MINUTES) + " TO "
+				+ end.format(DATE_TIME_MINUTES) :
+			null;
+	}
+	
 	public static Integer getNumDaysUntilNext(DayOfWeek day) {
 		LocalDate today = LocalDate.now();
 		return Period.between(today, getDateOfNext(day)).getDays()
 				+ (today.getDayOfWeek().compareTo(DayOfWeek.FRIDAY) > 0 ? 7 : 0);
 	}
 	
+	/**
+	 * Parse a local date time such as "2016-04-08T19:30:00", reading
+	 * the digits directly when it has exactly that layout, which is
+	 * several times faster than LocalDateTime.parse() for the hundreds
+	 * of events in each ticket query, and falling back to
+	 * LocalDateTime.parse() otherwise
+	 */
+	public static LocalDateTime parseLocalDateTime(String dateTime) {
+		if (dateTime.length() != 19
+				|| dateTime.charAt(4) != '-' || dateTime.charAt(7) != '-'
+				|| dateTime.charAt(10) != 'T'
+				|| dateTime.charAt(13) != ':' || dateTime.charAt(16) != ':')
+			return LocalDateTime.parse(dateTime);
+		
+		int year = parseDigits(dateTime, 0, 4);
+		int month = parseDigits(dateTime, 5, 7);
+		int day = parseDigits(dateTime, 8, 10);
+		int hour = parseDigits(dateTime, 11, 13);
+		int minute = parseDigits(dateTime, 14, 16);
+		int second = parseDigits(dateTime, 17, 19);
+		if ((year | month | day | hour | minute | second) < 0)
+			return LocalDateTime.parse(dateTime);
+		return LocalDateTime.of(year, month, day, hour, minute, second);
+	}
+	
+	/**
+	 * Returns the number made of the digits from start to end, or -1
+	 * if any of them isn't a digit
+	 */
+	private static int parseDigits(String s, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; ++i) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+	
 	private static String removeSeconds(String dateTime) {
 		return dateTime.substring(0, dateTime.lastIndexOf(":"));
 	}
@@ -0,0 +1,189 @@
+package example.weekendplanner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Enforces deadlines on the asynchronous calls to the APIs and hedges
+ * slow requests, using a single timer thread.
+ *
+ * orTimeout() backports CompletableFuture.orTimeout() from Java 9,
+ * except that it returns a new future rather than completing the given
+ * one, which may be shared, e.g. by coalesced cache lookups. As in
+ * Java 9, stages that depend on a timed out future run in the timer
+ * thread, so they should be short or asynchronous.
+ */
+public class Deadlines {
+
+	/**
+	 * Default values
+	 */
+	private static final double HEDGE_PERCENTILE = 0.95;
+
+	/**
+	 * The thread that times out futures and starts hedged requests
+	 */
+	private final ScheduledThreadPoolExecutor mTimer;
+
+	/**
+	 * Statistics
+	 */
+	private final AtomicLong mTimeouts = new AtomicLong();
+	private final AtomicLong mHedges = new AtomicLong();
+	private final AtomicLong mHedgeWins = new AtomicLong();
+
+	/**
+	 * Construct Deadlines whose timer thread is named after the given name
+	 */
+	public Deadlines(String name) {
+		mTimer = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread t = new Thread(runnable, name + "-timer");
+			t.setDaemon(true);
+			return t;
+		});
+		mTimer.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Returns a future that completes like the given one, or with a
+	 * TimeoutException naming the dependency if it takes longer than
+	 * timeoutMillis
+	 */
+	public <T> CompletableFuture<T> orTimeout(CompletableFuture<T> future,
+			long timeoutMillis, String dependency) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		ScheduledFuture<?> timeout = mTimer.schedule(() -> {
+			if (result.isDone())
+				return;
+			mTimeouts.incrementAndGet();
+			result.completeExceptionally(new TimeoutException(
+				"Timed out getting " + dependency
+				+ " after " + timeoutMillis + " ms"));
+		}, timeoutMillis, TimeUnit.MILLISECONDS);
+
+		future.whenComplete((response, exception) -> {
+			timeout.cancel(false);
+			if (exception == null)
+				result.complete(response);
+			else
+				result.completeExceptionally(exception);
+		});
+		return result;
+	}
+
+	/**
+	 * Run the idempotent query on the executor, and if it hasn't
+	 * returned within the 95th percentile of its recent latencies, run
+	 * a duplicate. The first response wins. The query only fails if
+	 * every attempt does
+	 */
+	public <T> CompletableFuture<T> hedge(Supplier<T> query,
+			Executor executor, LatencyTracker latencies) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		AtomicInteger attempts = new AtomicInteger(1);
+		long hedgeDelayMillis = latencies.getPercentileMillis(HEDGE_PERCENTILE);
+
+		// Time the query from when it starts running, since the time it
+		// waits in the executor's queue isn't the API's latency
+		attempt(() -> {
+			ScheduledFuture<?> hedge = mTimer.schedule(() -> {
+				// Don't add duplicate requests to an executor that is
+				// already saturated
+				if (result.isDone() || isSaturated(executor))
+					return;
+				attempts.incrementAndGet();
+				mHedges.incrementAndGet();
+				attempt(query, executor, latencies, result, attempts, true);
+			}, hedgeDelayMillis, TimeUnit.MILLISECONDS);
+			result.whenComplete((response, exception) -> hedge.cancel(false));
+			return query.get();
+		}, executor, latencies, result, attempts, false);
+		return result;
+	}
+
+	/**
+	 * Run one attempt at the query, completing the result with its
+	 * response, or with its exception if it is the last attempt running.
+	 * An attempt the executor rejects fails like any other
+	 */
+	private <T> void attempt(Supplier<T> query, Executor executor,
+			LatencyTracker latencies, CompletableFuture<T> result,
+			AtomicInteger attempts, boolean isHedge) {
+		CompletableFuture<T> attempt;
+		try {
+			attempt = CompletableFuture.supplyAsync(() -> {
+				long start = System.nanoTime();
+				T response = query.get();
+				latencies.record(TimeUnit.NANOSECONDS.toMillis(
+					System.nanoTime() - start));
+				return response;
+			}, executor);
+		} catch (RejectedExecutionException e) {
+			attempt = new CompletableFuture<>();
+			attempt.completeExceptionally(e);
+		}
+		attempt.whenComplete((response, exception) -> {
+			if (exception == null) {
+				if (isHedge && !result.isDone())
+					mHedgeWins.incrementAndGet();
+				result.complete(response);
+			} else if (attempts.decrementAndGet() == 0) {
+				result.completeExceptionally(exception);
+			}
+		});
+	}
+
+	/**
+	 * Returns true if the executor has no idle thread and no room in
+	 * its queue, so a task submitted to it would be rejected
+	 */
+	private static boolean isSaturated(Executor executor) {
+		if (!(executor instanceof ThreadPoolExecutor))
+			return false;
+		ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+		return pool.getActiveCount() >= pool.getMaximumPoolSize()
+			&& pool.getQueue().remainingCapacity() == 0;
+	}
+
+	public long getTimeoutCount() {
+		return mTimeouts.get();
+	}
+
+	public long getHedgeCount() {
+		return mHedges.get();
+	}
+
+	/**
+	 * Returns the number of hedged requests that returned before the
+	 * requests they duplicated
+	 */
+	public long getHedgeWinCount() {
+		return mHedgeWins.get();
+	}
+
+	/**
+	 * Returns a one line summary of the timeouts and hedged requests
+	 */
+	public String getStatistics() {
+		return "timeouts: " + getTimeoutCount()
+			+ ", hedged requests: " + getHedgeCount()
+			+ " (won " + getHedgeWinCount() + ")";
+	}
+
+	/**
+	 * Stop the timer, cancelling the pending timeouts and hedges
+	 */
+	public void shutdown() {
+		mTimer.shutdownNow();
+	}
+
+}
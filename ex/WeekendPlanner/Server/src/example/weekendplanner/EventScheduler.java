@@ -0,0 +1,56 @@
+package example.weekendplanner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import example.web.model.Event;
+import example.web.model.TripVariant;
+import example.web.responses.TicketResponse;
+
+/**
+ * Packs the events returned by the StubHub API into the trip variants.
+ *
+ * The events are taken in order of their start times, so each variant's
+ * schedule is built from the start of the weekend onwards, and dealt out
+ * in turn so that the variants differ. An event that doesn't fit the
+ * variant whose turn it is (it overlaps that variant's last event, is
+ * too expensive, or is one the variant is already going to) is offered
+ * to the following variants rather than dropped. This is the greedy
+ * interval partitioning algorithm, with a budget and a title index per
+ * variant, and each check takes constant time, so n events are packed
+ * into k variants in O(n log n + nk) time.
+ */
+public class EventScheduler {
+
+	/**
+	 * Schedule the given events into the variants, and return the
+	 * number of events scheduled
+	 */
+	public static int schedule(List<Event> events,
+			List<TripVariant> variants) {
+		if (events == null || variants.isEmpty())
+			return 0;
+
+		// Drop multiple postings of the same event on the same day,
+		// keeping the earliest and cheapest
+		List<Event> ordered = events.stream()
+			.sorted(TicketResponse.EVENT_ORDER)
+			.distinct()
+			.collect(Collectors.toList());
+
+		int next = 0;
+		int scheduled = 0;
+		for (Event event : ordered) {
+			for (int i = 0; i < variants.size(); ++i) {
+				int variant = (next + i) % variants.size();
+				if (variants.get(variant).addEvent(event)) {
+					next = (variant + 1) % variants.size();
+					++scheduled;
+					break;
+				}
+			}
+		}
+		return scheduled;
+	}
+
+}
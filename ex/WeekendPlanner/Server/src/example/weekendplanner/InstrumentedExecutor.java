@@ -0,0 +1,114 @@
+package example.weekendplanner;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded thread pool that keeps statistics about the tasks it runs.
+ * It has a fixed number of daemon threads and a fixed-capacity queue,
+ * so it can never grow without bound no matter how many requests the
+ * servlet receives. When the queue is full the task is rejected with
+ * a RejectedExecutionException, rather than run by the submitting
+ * thread, which may be a container thread, a pool thread or the
+ * Deadlines timer thread, none of which should block on an API call.
+ * The callers turn the rejection into a failed future.
+ */
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+
+	/**
+	 * The number of tasks rejected because the queue was full
+	 */
+	private final AtomicLong mRejections = new AtomicLong();
+
+	/**
+	 * The total time spent running tasks in the pool
+	 */
+	private final AtomicLong mBusyNanos = new AtomicLong();
+
+	/**
+	 * The start time of the task running in each pool thread
+	 */
+	private final ThreadLocal<Long> mTaskStartNanos = new ThreadLocal<>();
+
+	/**
+	 * Construct a pool of numThreads daemon threads named after
+	 * the given name, with room for queueCapacity waiting tasks
+	 */
+	public InstrumentedExecutor(String name, int numThreads,
+			int queueCapacity) {
+		super(numThreads, numThreads,
+			0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(queueCapacity));
+		setThreadFactory(makeThreadFactory(name));
+		setRejectedExecutionHandler(makeRejectionHandler());
+	}
+
+	/**
+	 * Construct a factory for daemon threads, which are not able to keep
+	 * the program alive in the case of an early termination
+	 */
+	private static ThreadFactory makeThreadFactory(String name) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread t = new Thread(runnable,
+				name + "-" + threadNumber.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+	}
+
+	/**
+	 * Construct a handler that counts the tasks rejected because the
+	 * queue is full and throws a RejectedExecutionException for them
+	 */
+	private RejectedExecutionHandler makeRejectionHandler() {
+		return (runnable, executor) -> {
+			if (executor.isShutdown())
+				throw new RejectedExecutionException(
+					"The executor has been shut down");
+			mRejections.incrementAndGet();
+			throw new RejectedExecutionException(
+				"The executor's threads and queue are full");
+		};
+	}
+
+	@Override
+	protected void beforeExecute(Thread t, Runnable r) {
+		super.beforeExecute(t, r);
+		mTaskStartNanos.set(System.nanoTime());
+	}
+
+	@Override
+	protected void afterExecute(Runnable r, Throwable t) {
+		super.afterExecute(r, t);
+		mBusyNanos.addAndGet(System.nanoTime() - mTaskStartNanos.get());
+	}
+
+	public long getRejectedCount() {
+		return mRejections.get();
+	}
+
+	public long getBusyMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(mBusyNanos.get());
+	}
+
+	/**
+	 * Returns a one line summary of the pool's statistics
+	 */
+	public String getStatistics() {
+		return "threads: " + getPoolSize()
+			+ " (largest " + getLargestPoolSize() + ")"
+			+ ", active: " + getActiveCount()
+			+ ", queued: " + getQueue().size()
+			+ ", completed: " + getCompletedTaskCount()
+			+ ", rejected: " + getRejectedCount()
+			+ ", busy: " + getBusyMillis() + " ms";
+	}
+
+}
@@ -0,0 +1,88 @@
+package example.weekendplanner;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Serializes response objects as JSON straight to an OutputStream, e.g.
+ * the servlet's, optionally gzipped. The JSON is never built as a String
+ * or copied into a byte array, so each response is encoded once, in
+ * small buffers, however large it is.
+ */
+public class JsonResponseWriter {
+
+	/**
+	 * Default values
+	 */
+	private static final int BUFFER_SIZE = 2048;
+	private static final String GZIP = "gzip";
+
+	/**
+	 * Google's JSON parsing library
+	 */
+	private final Gson mGson;
+
+	public JsonResponseWriter(Gson gson) {
+		mGson = gson;
+	}
+
+	/**
+	 * Write the given object as JSON to the stream, gzipped if gzip is
+	 * true, and close the stream
+	 */
+	public void write(Object src, OutputStream out, boolean gzip)
+			throws IOException {
+		OutputStream body = gzip ?
+			new GZIPOutputStream(out, BUFFER_SIZE) : out;
+		try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+				new OutputStreamWriter(body, StandardCharsets.UTF_8),
+				BUFFER_SIZE))) {
+			if (src != null)
+				mGson.toJson(src, src.getClass(), writer);
+			else
+				mGson.toJson(JsonNull.INSTANCE, writer);
+		}
+	}
+
+	/**
+	 * Determine whether a client that sent the given Accept-Encoding
+	 * header, which may be null, accepts gzipped responses
+	 */
+	public static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null)
+			return false;
+
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+			String name = parameters[0].trim();
+			if (!name.equalsIgnoreCase(GZIP) && !name.equals("*"))
+				continue;
+
+			// A quality of 0 means the coding isn't acceptable
+			boolean acceptable = true;
+			for (int i = 1; i < parameters.length; ++i) {
+				String parameter = parameters[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						acceptable = Double.parseDouble(
+							parameter.substring(2).trim()) > 0;
+					} catch (NumberFormatException e) {
+						acceptable = false;
+					}
+				}
+			}
+			if (acceptable)
+				return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,64 @@
+package example.weekendplanner;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent requests to a dependency, so
+ * that the delay before a hedged request can follow the dependency's
+ * actual percentiles rather than a fixed guess.
+ */
+public class LatencyTracker {
+
+	/**
+	 * Default values
+	 */
+	private static final int SAMPLE_COUNT = 256;
+	private static final int MIN_SAMPLES = 20;
+
+	/**
+	 * The most recent latencies in milliseconds, as a ring buffer
+	 */
+	private final long[] mSamples = new long[SAMPLE_COUNT];
+
+	/**
+	 * The number of latencies recorded, up to SAMPLE_COUNT
+	 */
+	private int mCount;
+
+	/**
+	 * The index of the next latency to record
+	 */
+	private int mNext;
+
+	/**
+	 * The latency returned until enough have been recorded
+	 */
+	private final long mDefaultMillis;
+
+	public LatencyTracker(long defaultMillis) {
+		mDefaultMillis = defaultMillis;
+	}
+
+	public synchronized void record(long millis) {
+		mSamples[mNext] = millis;
+		mNext = (mNext + 1) % SAMPLE_COUNT;
+		mCount = Math.min(mCount + 1, SAMPLE_COUNT);
+	}
+
+	/**
+	 * Returns the given percentile, e.g. 0.95, of the recent latencies,
+	 * or the default latency if too few have been recorded
+	 */
+	public long getPercentileMillis(double percentile) {
+		long[] samples;
+		synchronized (this) {
+			if (mCount < MIN_SAMPLES)
+				return mDefaultMillis;
+			samples = Arrays.copyOf(mSamples, mCount);
+		}
+		Arrays.sort(samples);
+		int index = (int) Math.ceil(percentile * samples.length) - 1;
+		return samples[Math.max(0, Math.min(index, samples.length - 1))];
+	}
+
+}
@@ -1,23 +1,34 @@
 package example.weekendplanner;
 
 import java.time.DayOfWeek;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import example.web.model.Weather;
 import example.web.ops.FlightOps;
 import example.web.ops.PlacesOps;
+import example.web.ops.PooledClient;
 import example.web.ops.TicketOps;
 import example.web.ops.WeatherOps;
 import example.web.requests.WeekendPlannerRequest;
 import example.web.responses.CityResponse;
 import example.web.responses.GeoCodeResponse;
 import example.web.responses.PlacesResponse;
+import example.web.responses.TicketResponse;
 import example.web.utils.DateUtils;
+import retrofit.client.Client;
 
 /**
  * WeekendPlannerOps is a thin layer between the WeekendPlannerServlet
@@ -25,24 +36,86 @@ import example.web.utils.DateUtils;
  * is to unify the interfaces of accessing asynchronous calls, enabling
  * them to be composed freely. It also maintains the executor upon which each
  * asynchronous call is run.
+ * 
+ * WeekendPlannerOps keeps no per-request state (the trip is passed along
+ * the pipeline), so a single instance is shared by every request to the
+ * servlet. It must be shut down when it is no longer needed.
+ * 
+ * Each API has a deadline budget. The flight is essential to the trip,
+ * so the request fails if it or its authorization token is late, but if
+ * the tickets or their authorization, the weather, geocode or places
+ * are late the response is sent without them, and lists them as
+ * missing sections. The same goes for calls the executor rejects
+ * because it is saturated. The weather and places queries are
+ * idempotent, so they are hedged: if one is slower than 95% of recent
+ * queries, a duplicate is sent and the first response is used.
+ * 
+ * Identical plans requested while one is in progress, e.g. when many
+ * users look at the same trip at once, share its computation rather than
+ * each querying every API. Each caller gets its own copy of the plan.
  */
 public class WeekendPlannerOps {
 	
 	/**
 	 * Default values
 	 */
-	private final int THREAD_COUNT = 8;
+	private static final int THREAD_COUNT = 8;
+	private static final int QUEUE_CAPACITY = 256;
+	private static final List<DayOfWeek> WEEKEND_DAYS = Arrays.asList(
+		DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, DayOfWeek.SUNDAY);
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+	private static final long FLIGHT_BUDGET_MILLIS = 10000;
+	private static final long TICKETS_BUDGET_MILLIS = 5000;
+	private static final long WEATHER_BUDGET_MILLIS = 3000;
+	private static final long GEOCODE_BUDGET_MILLIS = 3000;
+	private static final long PLACES_BUDGET_MILLIS = 3000;
+	private static final long DEFAULT_HEDGE_DELAY_MILLIS = 1000;
 	private final int NUM_TRIP_VARIANTS = 5;
-	private final String FLIGHT_ENDPOINT = "https://api.test.sabre.com/";
-	private final String TICKET_ENDPOINT = "https://api.stubhubsandbox.com/";
-	private final String WEATHER_ENDPOINT = "http://api.openweathermap.org/";
-	private final String PLACES_ENDPOINT = "https://maps.googleapis.com/";
+	private static final String FLIGHT_ENDPOINT = "https://api.test.sabre.com/";
+	private static final String TICKET_ENDPOINT = "https://api.stubhubsandbox.com/";
+	private static final String WEATHER_ENDPOINT = "http://api.openweathermap.org/";
+	private static final String PLACES_ENDPOINT = "https://maps.googleapis.com/";
 	
 	/**
 	 * The executor responsible for scheduling threads
 	 */
 	private Executor mExecutor;
 	
+	/**
+	 * The executor created by this class, if any, which must be
+	 * shut down along with it
+	 */
+	private InstrumentedExecutor mOwnedExecutor;
+	
+	/**
+	 * Times out late API calls and hedges slow ones
+	 */
+	private Deadlines mDeadlines;
+	
+	/**
+	 * The recent latencies of the hedged APIs
+	 */
+	private LatencyTracker mWeatherLatencies;
+	private LatencyTracker mPlacesLatencies;
+	
+	/**
+	 * The plans in progress, keyed on the normalised request and the
+	 * weekend it is for, so that identical requests can share them
+	 */
+	private final Map<List<Object>, CompletableFuture<WeekendPlannerResponse>>
+		mPlansInProgress = new ConcurrentHashMap<>();
+	
+	/**
+	 * Statistics
+	 */
+	private final AtomicLong mPlans = new AtomicLong();
+	private final AtomicLong mCoalescedPlans = new AtomicLong();
+	
+	/**
+	 * The client that every API is queried with
+	 */
+	private Client mClient;
+	
 	/**
 	 * Helper classes for interacting with the various APIs
 	 */
@@ -52,27 +125,73 @@ public class WeekendPlannerOps {
 	private PlacesOps mPlacesOps;
 	
 	public WeekendPlannerOps() {
-		init(makeDefaultExecutor(THREAD_COUNT));
+		this(THREAD_COUNT);
+	}
+	
+	public WeekendPlannerOps(int numThreads) {
+		init(makeDefaultExecutor(numThreads), PooledClient.getShared(),
+			FLIGHT_ENDPOINT, TICKET_ENDPOINT, WEATHER_ENDPOINT,
+			PLACES_ENDPOINT);
 	}
 	
 	public WeekendPlannerOps(WeekendPlannerRequest req, int numThreads) {
-		init(makeDefaultExecutor(numThreads));
+		this(numThreads);
 	}
 	
 	public WeekendPlannerOps(WeekendPlannerRequest req, Executor executor) {
-		init(executor);
+		init(executor, PooledClient.getShared(), FLIGHT_ENDPOINT,
+			TICKET_ENDPOINT, WEATHER_ENDPOINT, PLACES_ENDPOINT);
+	}
+	
+	/**
+	 * Construct Ops that query the given endpoints, e.g. local stand-in
+	 * services for testing, using a default executor with numThreads threads
+	 */
+	public WeekendPlannerOps(int numThreads, String flightEndpoint,
+			String ticketEndpoint, String weatherEndpoint,
+			String placesEndpoint) {
+		this(numThreads, PooledClient.getShared(), flightEndpoint,
+			ticketEndpoint, weatherEndpoint, placesEndpoint);
+	}
+	
+	/**
+	 * Construct Ops that query the given endpoints with the given client,
+	 * using a default executor with numThreads threads
+	 */
+	public WeekendPlannerOps(int numThreads, Client client,
+			String flightEndpoint, String ticketEndpoint,
+			String weatherEndpoint, String placesEndpoint) {
+		init(makeDefaultExecutor(numThreads), client, flightEndpoint,
+			ticketEndpoint, weatherEndpoint, placesEndpoint);
 	}
 	
 	/**
-	 * Initialize the Ops with the given executor
+	 * Initialize the Ops with the given executor, client and endpoints.
+	 * The API operations classes, and the Retrofit services they
+	 * contain, are created once here and reused by every request
 	 */
-	private void init(Executor exec) {
+	private void init(Executor exec, Client client, String flightEndpoint,
+			String ticketEndpoint, String weatherEndpoint,
+			String placesEndpoint) {
 		mExecutor = exec;
+		mClient = client;
+		mDeadlines = new Deadlines("weekendplanner");
+		mWeatherLatencies = new LatencyTracker(DEFAULT_HEDGE_DELAY_MILLIS);
+		mPlacesLatencies = new LatencyTracker(DEFAULT_HEDGE_DELAY_MILLIS);
 		
-		mFlightOps = new FlightOps(FLIGHT_ENDPOINT);
-		mTicketOps = new TicketOps(TICKET_ENDPOINT);
-		mWeatherOps = new WeatherOps(WEATHER_ENDPOINT);
-		mPlacesOps = new PlacesOps(PLACES_ENDPOINT);
+		mFlightOps = new FlightOps(flightEndpoint, client);
+		mTicketOps = makeTicketOps(ticketEndpoint, client);
+		mWeatherOps = new WeatherOps(weatherEndpoint, client);
+		mPlacesOps = new PlacesOps(placesEndpoint, client);
+	}
+	
+	/**
+	 * Create the operations for the StubHub API. Its authorization
+	 * doesn't query the endpoint, so tests override this to stand in
+	 * for it
+	 */
+	protected TicketOps makeTicketOps(String endpoint, Client client) {
+		return new TicketOps(endpoint, client);
 	}
 	
 	public Executor getExecutor() {
@@ -80,21 +199,174 @@ public class WeekendPlannerOps {
 	}
 	
 	/**
-	 * Construct a default executor that uses Daemon threads
-	 * that are not able to keep the program alive in the case
-	 * of an early termination in the case of, say, a thrown exception
+	 * Returns a summary of the default executor's statistics, or
+	 * null if the executor was provided by the caller
+	 */
+	public String getExecutorStatistics() {
+		return mOwnedExecutor != null ?
+			mOwnedExecutor.getStatistics() : null;
+	}
+	
+	/**
+	 * Returns a summary of the timeouts and hedged requests
+	 */
+	public String getDeadlineStatistics() {
+		return mDeadlines.getStatistics();
+	}
+	
+	/**
+	 * Returns a summary of the statistics of the weather, geocode and
+	 * places response caches, one cache per line
+	 */
+	public String getCacheStatistics() {
+		return mWeatherOps.getWeatherCache().getStatistics()
+			+ "\n" + mPlacesOps.getGeocodeCache().getStatistics()
+			+ "\n" + mPlacesOps.getPlacesCache().getStatistics();
+	}
+	
+	/**
+	 * Returns a summary of the HTTP client's statistics, or null if it
+	 * isn't a PooledClient
+	 */
+	public String getClientStatistics() {
+		return mClient instanceof PooledClient ?
+			((PooledClient) mClient).getStatistics() : null;
+	}
+	
+	/**
+	 * Returns a summary of the plans computed and the plans that shared
+	 * an identical plan in progress
+	 */
+	public String getPlanStatistics() {
+		return "plans: " + mPlans.get()
+			+ ", coalesced: " + mCoalescedPlans.get();
+	}
+	
+	/**
+	 * Construct a default executor with a bounded number of daemon
+	 * threads and a bounded queue, which is shut down by shutdown()
 	 */
 	private Executor makeDefaultExecutor(int numThreads) {
-		return Executors.newFixedThreadPool(
-			numThreads,
-			new ThreadFactory() {
-				@Override
-				public Thread newThread(Runnable r) {
-					Thread t = new Thread(r);
-					t.setDaemon(true);
-					return t;
-				}
+		mOwnedExecutor = new InstrumentedExecutor(
+			"weekendplanner", numThreads, QUEUE_CAPACITY);
+		return mOwnedExecutor;
+	}
+	
+	/**
+	 * Shut down the default executor, waiting a bounded amount of time
+	 * for the requests in progress to complete. An executor provided by
+	 * the caller is left for the caller to shut down
+	 */
+	public void shutdown() {
+		mDeadlines.shutdown();
+		if (mOwnedExecutor == null)
+			return;
+		
+		mOwnedExecutor.shutdown();
+		try {
+			if (!mOwnedExecutor.awaitTermination(
+					SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+				mOwnedExecutor.shutdownNow();
+		} catch (InterruptedException e) {
+			mOwnedExecutor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Compose the asynchronous calls that find the cities in the given
+	 * country for which flights may exist
+	 */
+	public CompletableFuture<CityResponse> findCities(String country) {
+		// Initialize the monad by retrieving the flight authorization token
+		return getFlightAuthToken()
+			// Then get the available cities for flights from the Sabre
+			// cities API
+			.thenCompose(authToken -> getCities(country, authToken));
+	}
+	
+	/**
+	 * Plan the requested weekend, sharing the plan in progress for an
+	 * identical request if there is one. The shared plan is never
+	 * returned, since the servlet may change it; each caller gets a copy.
+	 * A plan that can't be started is returned already failed
+	 */
+	public CompletableFuture<WeekendPlannerResponse> planWeekend(
+			WeekendPlannerRequest req) {
+		// The weekend is part of the key, so that a plan in progress at
+		// midnight on a Friday isn't shared with a request for next weekend
+		List<Object> key = Arrays.asList(req.getPlanKey(),
+			DateUtils.getFormattedDateOfNext(DayOfWeek.FRIDAY));
+		CompletableFuture<WeekendPlannerResponse> pending =
+			new CompletableFuture<>();
+		CompletableFuture<WeekendPlannerResponse> plan =
+			mPlansInProgress.putIfAbsent(key, pending);
+		
+		if (plan == null) {
+			mPlans.incrementAndGet();
+			plan = pending;
+			CompletableFuture<WeekendPlannerResponse> computation;
+			try {
+				computation = composePlan(req);
+			} catch (RuntimeException e) {
+				// Don't leave identical requests waiting for a plan that
+				// was never started, and fail this one the way a plan
+				// that fails later does
+				mPlansInProgress.remove(key, pending);
+				pending.completeExceptionally(e);
+				return pending;
+			}
+			// Remove the plan before completing it, so that a request
+			// that arrives once it is complete starts a new plan
+			computation.whenComplete((response, exception) -> {
+				mPlansInProgress.remove(key, pending);
+				if (exception == null)
+					pending.complete(response);
+				else
+					pending.completeExceptionally(getCause(exception));
 			});
+		} else {
+			mCoalescedPlans.incrementAndGet();
+		}
+		
+		return plan.thenApply(response -> new WeekendPlannerResponse(
+			response, req.getOriginCity(), req.getDestinationCity()));
+	}
+	
+	/**
+	 * Compose the asynchronous calls that plan the requested weekend.
+	 * No step waits for another: each returns a future, and the next
+	 * step runs when the futures it depends on complete
+	 */
+	private CompletableFuture<WeekendPlannerResponse> composePlan(
+			WeekendPlannerRequest req) {
+		// Initialize the monad with the request data
+		return initTrip(req)
+			// Combine the flight authorization API call and the current
+			// state of the trip by retrieving the available flight data 
+			// from the Sabre flights API (getFlight). Each step returns a
+			// future, which thenCompose() flattens without waiting for it
+			.thenCombine(
+				getFlightAuthToken(),
+				this::getFlight)
+			.thenCompose(Function.identity())
+			// Then do the same for ticket operations from the StubHub API,
+			// whose tickets are missing if it doesn't authorize us in time
+			.thenCombine(
+				orNullIfUnavailable(getTicketAuthToken()),
+				this::getTickets)
+			.thenCompose(Function.identity())
+			// Then retrieve the weather for the weekend from the 
+			// OpenWeatherMap API
+			.thenCompose(this::getWeather)
+			// combine the weather information with the geocode (lat, lng)
+			// of the destination city to fill the weekend with fun places
+			// that don't require tickets from the Google Places API
+			.thenCombine(
+				orNullIfUnavailable(
+					getGeocode(req.getDestinationCity().getName())),
+				this::fillWeekend)
+			.thenCompose(Function.identity());
 	}
 	
 	/**
@@ -118,18 +390,18 @@ public class WeekendPlannerOps {
 	 * Return a token that will authorize requests to the StubHub API
 	 */
 	public CompletableFuture<String> getFlightAuthToken() {
-		return CompletableFuture.supplyAsync(
-			() -> mFlightOps.getAuthToken(),
-			getExecutor());
+		return mDeadlines.orTimeout(
+			supplyAsync(() -> mFlightOps.getAuthToken()),
+			FLIGHT_BUDGET_MILLIS, "flight authorization");
 	}
 	
 	/**
 	 * Return a token that will authorize requests to the StubHub API
 	 */
 	public CompletableFuture<String> getTicketAuthToken() {
-		return CompletableFuture.supplyAsync(
-			() -> mTicketOps.getAuthToken(),
-			getExecutor());
+		return mDeadlines.orTimeout(
+			supplyAsync(() -> mTicketOps.getAuthToken()),
+			TICKETS_BUDGET_MILLIS, "ticket authorization");
 	}
 	
 	/**
@@ -138,85 +410,99 @@ public class WeekendPlannerOps {
 	 */
 	public CompletableFuture<CityResponse> getCities(
 			String country, String authToken) {
-		return CompletableFuture.supplyAsync(
-			() -> mFlightOps.getCities(authToken, country),
-			getExecutor());
+		return supplyAsync(() -> mFlightOps.getCities(authToken, country));
 	}
 
 	/**
 	 * Get flight information from the Sabre Flights API for the
 	 * appropriate dates between the given origin and destination
-	 * @throws Exception 
 	 */
-	public WeekendPlannerResponse getFlight(
+	public CompletableFuture<WeekendPlannerResponse> getFlight(
 			WeekendPlannerResponse tripVariants, String authToken) {
-		return CompletableFuture.supplyAsync(
-				() -> mFlightOps.getFlight(
-					authToken,
-					tripVariants.getOriginCityCode(),
-					tripVariants.getDestinationCityCode(),
-					DateUtils.getFormattedDateOfNext(DayOfWeek.FRIDAY),
-					DateUtils.getFormattedDateOfNext(DayOfWeek.SUNDAY),
-					String.valueOf(tripVariants.getInitialBudget())),
-				getExecutor())
-			.thenApply(tripVariants::update)
-			.join();
+		return mDeadlines.orTimeout(
+				supplyAsync(
+					() -> mFlightOps.getFlight(
+						authToken,
+						tripVariants.getOriginCityCode(),
+						tripVariants.getDestinationCityCode(),
+						DateUtils.getFormattedDateOfNext(DayOfWeek.FRIDAY),
+						DateUtils.getFormattedDateOfNext(DayOfWeek.SUNDAY),
+						String.valueOf(tripVariants.getInitialBudget()))),
+				FLIGHT_BUDGET_MILLIS, "flight")
+			.thenApply(tripVariants::update);
 	}
 	
 	/**
 	 * Return tickets to relevant events going on in the destiantion city
-	 * on the appropriate weekend
+	 * on the appropriate weekend. The tickets can't be queried without
+	 * an auth token, so they are missing if the token is null
 	 */
-	public WeekendPlannerResponse getTickets(
+	public CompletableFuture<WeekendPlannerResponse> getTickets(
 			WeekendPlannerResponse tripVariants, String authToken) {
-		// These methods will return a server throttle error because requests are made
-		// too quickly
-		/**
-		List<CompletableFuture<TicketInfoResponse>> responses =
-		Arrays.asList(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, DayOfWeek.SUNDAY)
-			.stream()
+		if (authToken == null)
+			return CompletableFuture.completedFuture(
+				tripVariants.addMissingSection("tickets"));
+		
+		// Query each day of the weekend concurrently, so the tickets take
+		// as long as the slowest day rather than the sum of the days
+		List<CompletableFuture<TicketResponse>> responses =
+		WEEKEND_DAYS.stream()
 			.map(day -> getTicketsForDay(day, tripVariants, authToken))
 			.collect(Collectors.toList());
-			
-		// Apply the update function for each response
-		responses.stream()
-			.map(CompletableFuture::join)
-			.forEach(tripVariants::update);
 		
-		// Keep interface consistent
-		return CompletableFuture.completedFuture(tripVariants);
-	----------------------------------------------------------------------------
-		return getTicketsForDay(DayOfWeek.FRIDAY, tripVariants, authToken)
-			.thenComposeAsync(variants ->
-				getTicketsForDay(DayOfWeek.SATURDAY, variants, authToken))
-			.thenComposeAsync(variants ->
-				getTicketsForDay(DayOfWeek.SUNDAY, variants, authToken));
-		*/
+		// Once every day has returned, merge the events into one response
+		// in a deterministic order and distribute them across the trip
+		// variants. The futures are all complete by then, so getNow()
+		// never waits
+		return CompletableFuture.allOf(
+				responses.toArray(new CompletableFuture<?>[responses.size()]))
+			.thenApply(allDone -> TicketResponse.merge(
+				responses.stream()
+					.map(response -> response.getNow(null))
+					.collect(Collectors.toList())))
+			.thenApply(tripVariants::update);
+	}
+	
+	/**
+	 * Return tickets to events on the given day of the weekend, limited
+	 * to the part of the day between the flights, or no tickets if the
+	 * API misses its budget
+	 */
+	private CompletableFuture<TicketResponse> getTicketsForDay(DayOfWeek day,
+			WeekendPlannerResponse tripVariants, String authToken) {
+		String dateTimeRange =
+			DateUtils.makeDateTimeRange(tripVariants.getFlight(), day);
+		
+		// Skip the query if the trip doesn't include any of this day
+		if (dateTimeRange == null)
+			return CompletableFuture.completedFuture(new TicketResponse());
 		
-		// As such, the request cannot be broken into days
-		return CompletableFuture.supplyAsync(
+		return orMissingSection(
+			supplyAsync(
 				() -> mTicketOps.getTickets(
 					authToken,
-					DateUtils.makeDateTimeRange(tripVariants.getFlight()),
+					dateTimeRange,
 					tripVariants.getDestinationCityName(),
-					String.valueOf(tripVariants.getBudgetAfterFlight())),
-				getExecutor())
-			.thenApply(tripVariants::update)
-			.join();
+					String.valueOf(tripVariants.getBudgetAfterFlight()))),
+			TICKETS_BUDGET_MILLIS, tripVariants, "tickets",
+			new TicketResponse());
 	}
 	
 	/**
 	 * Return the weather for as many days as required to capture
-	 * the weekend of the trip
+	 * the weekend of the trip, or no weather if the API misses its budget
 	 */
 	public CompletableFuture<WeekendPlannerResponse> getWeather(
 			WeekendPlannerResponse tripVariants) {
-		return CompletableFuture.supplyAsync(
-				() -> mWeatherOps.getWeather(
+		return orMissingSection(
+				mWeatherOps.getWeatherAsync(
 					tripVariants.getDestinationCityName(),
-					DateUtils.getNumDaysUntilNext(DayOfWeek.MONDAY)),
-				getExecutor())
-			.thenApply(tripVariants::update);
+					DateUtils.getNumDaysUntilNext(DayOfWeek.MONDAY),
+					query -> mDeadlines.hedge(query, getExecutor(),
+						mWeatherLatencies)),
+				WEATHER_BUDGET_MILLIS, tripVariants, "weather", null)
+			.thenApply(weather -> weather != null ?
+				tripVariants.update(weather) : tripVariants);
 	}
 	
 	/**
@@ -225,47 +511,135 @@ public class WeekendPlannerOps {
 	 */
 	public CompletableFuture<GeoCodeResponse> getGeocode(
 			String destinationCityName) {
-		return CompletableFuture.supplyAsync(
-			() -> mPlacesOps.getGeocode(
-				mPlacesOps.getAuthToken(),
-				destinationCityName),
-			getExecutor());
+		return mDeadlines.orTimeout(
+			supplyAsync(
+				() -> mPlacesOps.getGeocode(
+					mPlacesOps.getAuthToken(),
+					destinationCityName)),
+			GEOCODE_BUDGET_MILLIS, "geocode");
 	}
 	
 	/**
 	 * Fill the weekend with generally free or inexpensive activities
-	 * tailored to the weather on the given day
+	 * tailored to the weather on the given day. The places can't be
+	 * found without the weather and the geocode, so they are missing
+	 * if either of those is
 	 */
-	public WeekendPlannerResponse fillWeekend(
+	public CompletableFuture<WeekendPlannerResponse> fillWeekend(
 			WeekendPlannerResponse tripVariants, GeoCodeResponse geocode) {
+		if (tripVariants.getWeather() == null || geocode == null)
+			return CompletableFuture.completedFuture(
+				tripVariants.addMissingSection("places"));
+		
 		// Here, the server handles quotas differently, and the server is able to
 		// handle concurrent day-level requests
 		List<CompletableFuture<PlacesResponse>> responses =
 		tripVariants.getWeather().stream()
-			.map(dayWeather -> getPlacesForDay(dayWeather, geocode))
+			.map(dayWeather ->
+				getPlacesForDay(dayWeather, geocode, tripVariants))
 			.collect(Collectors.toList());
 		
-		// When each places request returns, update the response
-		responses.stream()
-			.map(CompletableFuture::join)
-			.filter(place -> place != null)
-			.forEach(tripVariants::update);
-
-		return tripVariants;
+		// When every places request has returned, update the response
+		// in the order of the days. The futures are all complete by then,
+		// so getNow() never waits
+		return CompletableFuture.allOf(
+				responses.toArray(new CompletableFuture<?>[responses.size()]))
+			.thenApply(allDone -> {
+				responses.stream()
+					.map(response -> response.getNow(null))
+					.filter(place -> place != null)
+					.forEach(tripVariants::update);
+				return tripVariants;
+			});
 	}
 	
 	/**
-	 * Return places near a given (lat, lng) appropriate for given weather
+	 * Return places near a given (lat, lng) appropriate for given weather,
+	 * or null if the API misses its budget
 	 */
 	private CompletableFuture<PlacesResponse> getPlacesForDay(
-			Weather dayWeather, GeoCodeResponse geocode) {
-		return CompletableFuture.supplyAsync(
-			() -> mPlacesOps.getPlaces(
+			Weather dayWeather, GeoCodeResponse geocode,
+			WeekendPlannerResponse tripVariants) {
+		return orMissingSection(
+			mPlacesOps.getPlacesAsync(
 				mPlacesOps.getAuthToken(),
 				geocode.getLat(),
 				geocode.getLng(),
-				dayWeather),
-			getExecutor());
+				dayWeather,
+				query -> mDeadlines.hedge(query, getExecutor(),
+					mPlacesLatencies)),
+			PLACES_BUDGET_MILLIS, tripVariants, "places", null);
+	}
+	
+	/**
+	 * Run the API call on the executor. If the executor is saturated
+	 * the returned future fails with a RejectedExecutionException,
+	 * rather than the call being run, or the exception thrown, in the
+	 * calling thread
+	 */
+	private <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+		try {
+			return CompletableFuture.supplyAsync(call, getExecutor());
+		} catch (RejectedExecutionException e) {
+			CompletableFuture<T> rejected = new CompletableFuture<>();
+			rejected.completeExceptionally(e);
+			return rejected;
+		}
+	}
+	
+	/**
+	 * Return the response of the given API call, or the fallback if it
+	 * misses its budget or the executor rejects it, in which case the
+	 * section it provides is recorded as missing from the trip. Other
+	 * failures still fail the request
+	 */
+	private <T> CompletableFuture<T> orMissingSection(
+			CompletableFuture<T> call, long budgetMillis,
+			WeekendPlannerResponse tripVariants, String section,
+			T fallback) {
+		return mDeadlines.orTimeout(call, budgetMillis, section)
+			.handle((response, exception) -> {
+				if (exception == null)
+					return response;
+				if (!isUnavailable(getCause(exception)))
+					throw new CompletionException(getCause(exception));
+				tripVariants.addMissingSection(section);
+				return fallback;
+			});
+	}
+	
+	/**
+	 * Return the response of the given API call, or null if it missed
+	 * its budget or the executor rejected it
+	 */
+	private <T> CompletableFuture<T> orNullIfUnavailable(
+			CompletableFuture<T> call) {
+		return call.handle((response, exception) -> {
+			if (exception == null)
+				return response;
+			if (!isUnavailable(getCause(exception)))
+				throw new CompletionException(getCause(exception));
+			return null;
+		});
+	}
+	
+	/**
+	 * Returns true if an API call failed because it missed its budget
+	 * or the executor was too busy to run it, rather than because the
+	 * API returned an error
+	 */
+	private static boolean isUnavailable(Throwable cause) {
+		return cause instanceof TimeoutException
+			|| cause instanceof RejectedExecutionException;
+	}
+	
+	/**
+	 * Returns the exception thrown by the failed stage of the pipeline
+	 */
+	private static Throwable getCause(Throwable exception) {
+		return exception instanceof CompletionException
+			&& exception.getCause() != null ?
+			exception.getCause() : exception;
 	}
 
 }
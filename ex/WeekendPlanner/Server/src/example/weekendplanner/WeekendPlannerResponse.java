@@ -1,12 +1,12 @@
 package example.weekendplanner;
 
 import java.time.LocalDateTime;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 
 import example.web.model.City;
@@ -71,12 +71,13 @@ public class WeekendPlannerResponse {
 	private List<Weather> mWeather;
 	
 	/**
-	 * An iterator used in distributing events across the trip variants
-	 * Note: used internally, does not need to be serialized
+	 * The sections of the response, e.g. "tickets", that are missing
+	 * or incomplete because an API didn't respond within its budget,
+	 * or null if the response is complete
 	 */
-	@Expose(serialize = false, deserialize = false)
-	private Iterator<TripVariant> mEventIt;
-
+	@SerializedName("missingSections")
+	private List<String> mMissingSections;
+	
 	/**
 	 * Initialize the Response with the given parameters
 	 */
@@ -90,6 +91,33 @@ public class WeekendPlannerResponse {
 				.limit(numVariants)
 				.collect(Collectors.toList());
 	}
+
+	/**
+	 * Construct a copy of the given plan, for a request with the given
+	 * cities, that can be changed without changing the plan. The cities
+	 * may differ from the plan's only in the case of their codes. The
+	 * flight, weather, events and places are never changed, so they are
+	 * shared
+	 */
+	public WeekendPlannerResponse(WeekendPlannerResponse plan,
+			City originCity, City destCity) {
+		mInitBudget = plan.mInitBudget;
+		mOriginCity = originCity;
+		mDestinationCity = destCity;
+		mTripVariants = plan.mTripVariants.stream()
+			.map(TripVariant::new)
+			.collect(Collectors.toList());
+		mFlight = plan.mFlight;
+		mWeather = plan.mWeather == null ? null : new ArrayList<>(plan.mWeather);
+		synchronized (plan) {
+			mMissingSections = plan.mMissingSections == null ?
+				null : new ArrayList<>(plan.mMissingSections);
+		}
+	}
+	
+	public List<TripVariant> getTripVariants() {
+		return mTripVariants;
+	}
 	
 	public Double getInitialBudget() {
 		return mInitBudget;
@@ -127,6 +155,27 @@ public class WeekendPlannerResponse {
 		return mWeather;
 	}
 	
+	/**
+	 * Returns the sections that are missing from the response
+	 */
+	public synchronized List<String> getMissingSections() {
+		return mMissingSections != null ?
+			new ArrayList<>(mMissingSections) : Collections.emptyList();
+	}
+	
+	/**
+	 * Record that the given section is missing or incomplete because
+	 * an API didn't respond in time, and return the updated response
+	 */
+	public synchronized WeekendPlannerResponse addMissingSection(
+			String section) {
+		if (mMissingSections == null)
+			mMissingSections = new ArrayList<>();
+		if (!mMissingSections.contains(section))
+			mMissingSections.add(section);
+		return this;
+	}
+	
 	/**
 	 * Set the flight returned from the Sabre API 
 	 * and return the updated response
@@ -143,17 +192,7 @@ public class WeekendPlannerResponse {
 	 * the trip variants and return the updated response
 	 */
 	public WeekendPlannerResponse update(TicketResponse response) {
-		mEventIt = mTripVariants.iterator();
-		if (response.getEvents() != null) {
-			response.getEvents().stream()
-				.distinct()
-				.forEach(event -> {
-					if (mEventIt.hasNext()) 
-						mEventIt.next().addEvent(event);
-					else
-						mEventIt = mTripVariants.iterator();
-				});
-		}
+		EventScheduler.schedule(response.getEvents(), mTripVariants);
 		return this;
 	}
 	
@@ -1,8 +1,15 @@
 package example.weekendplanner;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -23,6 +30,11 @@ import example.web.requests.WeekendPlannerRequest;
  * outside of what is required for the response. WeekendPlannerServlet uses
  * WeekendPlannerOps as an interface for making the various API calls
  * asynchronously and concurrently. 
+ * 
+ * Each request is put into asynchronous mode, so the container thread
+ * returns as soon as the pipeline is composed, and the response is sent
+ * and the AsyncContext completed by whichever thread completes the
+ * pipeline. No thread ever blocks waiting for another.
  */
 @WebServlet(asyncSupported = true,
 			urlPatterns = { "/WeekendPlannerServlet" })
@@ -33,10 +45,34 @@ public class WeekendPlannerServlet extends HttpServlet {
 	 */
 	private static final long serialVersionUID = 1L;
 	
+	/**
+	 * How long a request may take before the client is sent an error
+	 */
+	private static final long ASYNC_TIMEOUT_MILLIS = 60000;
+	
+	/**
+	 * Logs the requests and responses at Level.FINE, so they are only
+	 * serialized for the log when debugging, and the Ops' statistics
+	 * when the servlet is destroyed
+	 */
+	private static final Logger sLogger =
+		Logger.getLogger(WeekendPlannerServlet.class.getName());
+	
 	/**
 	 * Google's JSON parsing library
 	 */
 	private final Gson mGson;
+	
+	/**
+	 * Streams the response JSON to the client
+	 */
+	private final JsonResponseWriter mResponseWriter;
+	
+	/**
+	 * The Ops shared by every request, which are created in init()
+	 * and shut down in destroy()
+	 */
+	private WeekendPlannerOps mOps;
        
     /**
      * @see HttpServlet#HttpServlet()
@@ -44,6 +80,7 @@ public class WeekendPlannerServlet extends HttpServlet {
     public WeekendPlannerServlet() {
         super();
         mGson = new Gson();
+        mResponseWriter = new JsonResponseWriter(mGson);
     }
 
 	/**
@@ -51,6 +88,21 @@ public class WeekendPlannerServlet extends HttpServlet {
 	 */
 	public void init(ServletConfig config) throws ServletException {
 		super.init(config);
+		mOps = new WeekendPlannerOps();
+	}
+	
+	/**
+	 * @see Servlet#destroy()
+	 */
+	public void destroy() {
+		sLogger.info("Shutting down WeekendPlannerOps: "
+			+ mOps.getExecutorStatistics());
+		sLogger.info(mOps.getCacheStatistics());
+		sLogger.info(mOps.getDeadlineStatistics());
+		sLogger.info(mOps.getPlanStatistics());
+		sLogger.info(mOps.getClientStatistics());
+		mOps.shutdown();
+		super.destroy();
 	}
 	
 	/**
@@ -61,17 +113,17 @@ public class WeekendPlannerServlet extends HttpServlet {
 								  throws ServletException, IOException {
 		String country = request.getParameter("country");
 		
-		WeekendPlannerOps wOps = new WeekendPlannerOps();
+		WeekendPlannerOps wOps = mOps;
+		AtomicBoolean responded = new AtomicBoolean(false);
+		AsyncContext asyncContext = startAsync(request, response, responded);
 		
-		// Initialize the monad by retrieving the flight authorization token
-		wOps.getFlightAuthToken()
-		// Then get the available cities for flights from the Sabre cities API
-		.thenCompose(authToken -> wOps.getCities(country, authToken))
-		// Finally send the list of available cities to the client or
-		// an exception object if either the authorization or city query failed
-		.handle((success, exception) -> 
-			completionOrError(response, success, exception))
-		.join();
+		// Get the available cities for flights, then send them to the client
+		// or an exception object if either the authorization or city
+		// query failed
+		wOps.findCities(country)
+		.whenComplete((success, exception) -> 
+			completionOrError(asyncContext, responded, response,
+				success, exception));
 	}
 
 	/**
@@ -84,63 +136,116 @@ public class WeekendPlannerServlet extends HttpServlet {
 			mGson.fromJson(request.getReader().readLine(),
 						   WeekendPlannerRequest.class);
 		
-		System.out.println(req.toString());
+		if (sLogger.isLoggable(Level.FINE))
+			sLogger.fine(req.toString());
 		
-		// Make a new Operations object for each request to prevent races
-		WeekendPlannerOps wOps = new WeekendPlannerOps();
+		// The shared Operations object keeps no per-request state, so
+		// there are no races between concurrent requests
+		WeekendPlannerOps wOps = mOps;
 		
-		// Initialize the monad with the request data
-		wOps.initTrip(req)
-		// Combine the flight authorization API call and the current
-		// state of the trip by retrieving the available flight data 
-		// from the Sabre flights API (getFlight)
-		.thenCombine(
-			wOps.getFlightAuthToken(),
-			wOps::getFlight)
-		// Then do the same for ticket operations from the StubHub API
-		.thenCombine(
-			wOps.getTicketAuthToken(),
-			wOps::getTickets)
-		// Then retrieve the weather for the weekend from the 
-		// OpenWeatherMap API
-		.thenCompose(wOps::getWeather)
-		// combine the weather information with the geocode (lat, lng) of the
-		// destination city to fill the weekend with fun places that
-		// don't require tickets from the Google Places API
-		.thenCombine(
-			wOps.getGeocode(req.getDestinationCity().getName()),
-			wOps::fillWeekend)
-		// Finally, send the WeekendPlannerResponse to the client,
-		// or the exception object if the computation failed at any point
-		.handle((success, exception) ->
-			completionOrError(response, success, exception))
-		.join();
+		AtomicBoolean responded = new AtomicBoolean(false);
+		AsyncContext asyncContext = startAsync(request, response, responded);
+		
+		// Plan the weekend, then send the WeekendPlannerResponse to the
+		// client, or the exception object if the computation failed at
+		// any point
+		wOps.planWeekend(req)
+		.whenComplete((success, exception) ->
+			completionOrError(asyncContext, responded, response,
+				success, exception));
+	}
+	
+	/**
+	 * Put the request into asynchronous mode, sending an error to the
+	 * client if the response isn't sent in time
+	 */
+	private AsyncContext startAsync(HttpServletRequest request,
+			HttpServletResponse response, AtomicBoolean responded) {
+		AsyncContext asyncContext = request.startAsync();
+		asyncContext.setTimeout(ASYNC_TIMEOUT_MILLIS);
+		asyncContext.addListener(new AsyncListener() {
+			@Override
+			public void onTimeout(AsyncEvent event) {
+				completionOrError(asyncContext, responded, response, null,
+					new RuntimeException("The request timed out"));
+			}
+
+			@Override
+			public void onComplete(AsyncEvent event) {
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+			}
+		});
+		return asyncContext;
 	}
 	
 	/**
-	 * Sends either the response or the error back to the client
+	 * Sends either the response or the error back to the client and
+	 * completes the request, unless it has already been responded to,
+	 * e.g. because it timed out. The client is told to try again later
+	 * if the Ops were too busy to run the request
 	 */
-	private <T> Boolean completionOrError(HttpServletResponse response,
+	private <T> Boolean completionOrError(AsyncContext asyncContext,
+			AtomicBoolean responded, HttpServletResponse response,
 			T responseObj, Throwable exception) {
-		return exception == null ?
-			sendResponse(response, responseObj, Response.SC_OK) :
-			sendResponse(response, exception.getMessage(),
-				Response.SC_BAD_REQUEST);
+		if (!responded.compareAndSet(false, true))
+			return false;
+		
+		// Gzip the response if the client accepts it
+		boolean gzip = JsonResponseWriter.acceptsGzip(
+			((HttpServletRequest) asyncContext.getRequest())
+				.getHeader("Accept-Encoding"));
+		try {
+			if (exception == null)
+				return sendResponse(response, responseObj, Response.SC_OK,
+					gzip);
+			if (getCause(exception) instanceof RejectedExecutionException)
+				return sendResponse(response,
+					"The server is busy, please try again later",
+					Response.SC_SERVICE_UNAVAILABLE, gzip);
+			return sendResponse(response, getCause(exception).getMessage(),
+				Response.SC_BAD_REQUEST, gzip);
+		} finally {
+			asyncContext.complete();
+		}
+	}
+	
+	/**
+	 * Returns the exception thrown by the failed stage of the pipeline
+	 */
+	private Throwable getCause(Throwable exception) {
+		return exception instanceof CompletionException
+			&& exception.getCause() != null ?
+			exception.getCause() : exception;
 	}
 	
 	/**
-	 * Generic method for sending a response object JSON to the client
+	 * Generic method for sending a response object JSON to the client,
+	 * which is serialized straight to the response's OutputStream
+	 * rather than built as a String first. Without a Content-Length the
+	 * container sends small responses with one and large ones chunked
 	 */
 	private <T> Boolean sendResponse(HttpServletResponse response,
-			T responseObj, Integer status) {
-		String responseJson = mGson.toJson(responseObj);
-		System.out.println("Sending response to client: " + responseJson);
+			T responseObj, Integer status, boolean gzip) {
+		if (sLogger.isLoggable(Level.FINE))
+			sLogger.fine("Sending response to client: "
+				+ mGson.toJson(responseObj));
 		response.setStatus(status);
 		response.setContentType("application/json");
-		response.setContentLength(responseJson.getBytes().length);
+		response.setCharacterEncoding("UTF-8");
+		response.addHeader("Vary", "Accept-Encoding");
+		if (gzip)
+			response.setHeader("Content-Encoding", "gzip");
 		
-		try (PrintWriter pw = response.getWriter()) {
-			pw.write(responseJson);
+		try {
+			mResponseWriter.write(responseObj,
+				response.getOutputStream(), gzip);
 			return true;
 		} catch (IOException e) {
 			e.printStackTrace();